@@ -0,0 +1,94 @@
+package edu.cornell.library.orcidclient.actions;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+
+import edu.cornell.library.orcidclient.actions.read.ReadCache;
+import edu.cornell.library.orcidclient.actions.read.ReadCoalescer;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+
+/**
+ * What the actions that change an ORCID record have in common: they send their
+ * elements through a codec, build their URLs from the Member API URL, and
+ * discard the record from the ReadCache and the ReadCoalescer when they are
+ * done.
+ */
+abstract class AbstractEditAction {
+	protected final OrcidClientContext context;
+	protected final HttpWrapper httpWrapper;
+
+	private volatile ReadCache readCache;
+	private volatile ReadCoalescer readCoalescer;
+	private volatile OrcidCodec codec = XmlCodec.INSTANCE;
+
+	public AbstractEditAction(OrcidClientContext context,
+			HttpWrapper httpWrapper) {
+		this.context = context;
+		this.httpWrapper = httpWrapper;
+	}
+
+	/**
+	 * Elements are sent as XML, unless a different codec is set.
+	 */
+	public void setCodec(OrcidCodec codec) {
+		this.codec = codec;
+	}
+
+	protected OrcidCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * If a ReadCache is set, any elements cached for the ORCID record are
+	 * discarded when an edit completes, whether it succeeds or fails.
+	 */
+	public void setReadCache(ReadCache readCache) {
+		this.readCache = readCache;
+	}
+
+	/**
+	 * If a ReadCoalescer is set, reads of the ORCID record that start after an
+	 * edit completes do not join a request that was sent before it.
+	 */
+	public void setReadCoalescer(ReadCoalescer readCoalescer) {
+		this.readCoalescer = readCoalescer;
+	}
+
+	protected <R> CompletableFuture<R> invalidateWhenComplete(
+			AccessToken accessToken, CompletableFuture<R> future) {
+		return future.whenComplete((r, t) -> {
+			ReadCache cache = readCache;
+			if (cache != null) {
+				cache.invalidate(accessToken.getOrcid());
+			}
+			ReadCoalescer coalescer = readCoalescer;
+			if (coalescer != null) {
+				coalescer.invalidate(accessToken.getOrcid());
+			}
+		});
+	}
+
+	/**
+	 * Join the parts to the Member URI. Concatenate the parts with slashes.
+	 */
+	protected String createRequestUrl(AccessToken accessToken, String... parts)
+			throws OrcidClientException {
+		String url = context.getApiMemberUrl();
+		url += accessToken.getOrcid();
+		for (String part : parts) {
+			url += "/" + part;
+		}
+		try {
+			return new URI(url).toString();
+		} catch (URISyntaxException e) {
+			throw new OrcidClientException(
+					"Failed to resolve the URI: '" + url + "'", e);
+		}
+	}
+}
@@ -1,14 +1,15 @@
 package edu.cornell.library.orcidclient.actions;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
 import edu.cornell.library.orcidclient.context.OrcidClientContext;
 import edu.cornell.library.orcidclient.exceptions.OrcidApiErrorResponseException;
 import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
@@ -18,33 +19,29 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
 import edu.cornell.library.orcidclient.http.HttpWrapper.PostRequest;
 import edu.cornell.library.orcidclient.http.HttpWrapper.PutRequest;
-import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
 
 /**
  * Perform ADD, UPDATE and REMOVE operations on elements of the ORCID record.
  */
-abstract class AbstractRecordElementEditAction<T> {
+abstract class AbstractRecordElementEditAction<T> extends AbstractEditAction {
 	private static final Log log = LogFactory
 			.getLog(AbstractRecordElementEditAction.class);
 
-	protected final OrcidClientContext context;
-	protected final HttpWrapper httpWrapper;
-
 	/**
 	 * The elements that might include a "put code" do not have a common
 	 * ancester, so every concrete implementation of this class must specify how
 	 * to store the "put code" in the element;
 	 */
 	protected final PutCodeSetter<T> putCodeSetter;
-	
+
 	protected interface PutCodeSetter<T> {
 		void setPutcode(T element, String putCodeString);
 	}
 
 	public AbstractRecordElementEditAction(OrcidClientContext context,
 			HttpWrapper httpWrapper, PutCodeSetter<T> putCodeSetter) {
-		this.context = context;
-		this.httpWrapper = httpWrapper;
+		super(context, httpWrapper);
 		this.putCodeSetter = putCodeSetter;
 	}
 
@@ -60,26 +57,47 @@ abstract class AbstractRecordElementEditAction<T> {
 	 */
 	public String add(AccessToken accessToken, T element)
 			throws OrcidClientException {
-		String xml = OrcidXmlUtil.marshall(element);
+		return AsyncUtil.await(addAsync(accessToken, element));
+	}
+
+	/**
+	 * Like add(), but the put code is delivered through a future. If the add
+	 * fails, the future fails with an OrcidClientException.
+	 */
+	public CompletableFuture<String> addAsync(AccessToken accessToken,
+			T element) {
+		OrcidCodec codec = getCodec();
 		try {
+			String body = codec.encode(element);
 			String requestUrl = createRequestUrl(accessToken, getUrlPath());
 			PostRequest request = httpWrapper.createPostRequest(requestUrl)
-					.addHeader("Content-Type", "application/vnd.orcid+xml")
+					.addHeader("Content-Type", codec.getMediaType())
 					.addHeader("Authorization", accessToken.toAuthHeader())
-					.setBodyString(xml);
-			HttpResponse response = request.execute();
-			log.debug("Content from Add " + getUrlPath() + " was: "
-					+ response.getContentString());
-
-			return getPutCode(response);
-		} catch (HttpStatusCodeException e) {
-			log.error("HttpResponse status code: " + e.getStatusCode());
-			throw new OrcidApiErrorResponseException(
-					"Failed to add " + getUrlPath() + ". HTTP status code="
-							+ e.getStatusCode() + ", xml='" + xml + "'",
-					e);
-		} catch (IOException e) {
-			throw new OrcidClientException("Failed to add " + getUrlPath(), e);
+					.setBodyString(body);
+			CompletableFuture<HttpResponse> future = invalidateWhenComplete(
+					accessToken, request.executeAsync());
+			return future.handle((response, t) -> {
+				try {
+					if (t != null) {
+						throw AsyncUtil.unwrap(t);
+					}
+					log.debug("Content from Add " + getUrlPath() + " was: "
+							+ response.getContentString());
+					return getPutCode(response);
+				} catch (HttpStatusCodeException e) {
+					log.error("HttpResponse status code: " + e.getStatusCode());
+					throw new CompletionException(
+							new OrcidApiErrorResponseException("Failed to add "
+									+ getUrlPath() + ". HTTP status code="
+									+ e.getStatusCode() + ", body='" + body
+									+ "'", e));
+				} catch (Throwable e) {
+					throw new CompletionException(new OrcidClientException(
+							"Failed to add " + getUrlPath(), e));
+				}
+			});
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
 		}
 	}
 
@@ -93,25 +111,48 @@ abstract class AbstractRecordElementEditAction<T> {
 	 */
 	public void update(AccessToken accessToken, T element,
 			String putCode) throws OrcidClientException {
-		putCodeSetter.setPutcode(element, putCode);
-		String xml = OrcidXmlUtil.marshall(element);
+		AsyncUtil.await(updateAsync(accessToken, element, putCode));
+	}
+
+	/**
+	 * Like update(), but completion is signalled through a future. If the
+	 * update fails, the future fails with an OrcidClientException.
+	 */
+	public CompletableFuture<Void> updateAsync(AccessToken accessToken,
+			T element, String putCode) {
+		OrcidCodec codec = getCodec();
 		try {
+			putCodeSetter.setPutcode(element, putCode);
+			String body = codec.encode(element);
 			String requestUrl = createRequestUrl(accessToken, getUrlPath(),
 					putCode);
 			PutRequest request = httpWrapper.createPutRequest(requestUrl)
-					.addHeader("Content-Type", "application/vnd.orcid+xml")
+					.addHeader("Content-Type", codec.getMediaType())
 					.addHeader("Authorization", accessToken.toAuthHeader())
-					.setBodyString(xml);
-			request.execute();
-		} catch (HttpStatusCodeException e) {
-			log.error("HttpResponse status code: " + e.getStatusCode());
-			throw new OrcidClientException(
-					"Failed to update " + getUrlPath() + ". HTTP status code="
-							+ e.getStatusCode() + ", xml='" + xml + "'",
-					e);
-		} catch (IOException e) {
-			throw new OrcidClientException("Failed to update " + getUrlPath(),
-					e);
+					.setBodyString(body);
+			CompletableFuture<HttpResponse> future = invalidateWhenComplete(
+					accessToken, request.executeAsync());
+			return future.handle((response, t) -> {
+				if (t == null) {
+					return null;
+				}
+				Throwable e = AsyncUtil.unwrap(t);
+				if (e instanceof HttpStatusCodeException) {
+					int statusCode = ((HttpStatusCodeException) e)
+							.getStatusCode();
+					log.error("HttpResponse status code: " + statusCode);
+					throw new CompletionException(new OrcidClientException(
+							"Failed to update " + getUrlPath()
+									+ ". HTTP status code=" + statusCode
+									+ ", body='" + body + "'",
+							e));
+				} else {
+					throw new CompletionException(new OrcidClientException(
+							"Failed to update " + getUrlPath(), e));
+				}
+			});
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
 		}
 	}
 
@@ -125,38 +166,44 @@ abstract class AbstractRecordElementEditAction<T> {
 	 */
 	public void remove(AccessToken accessToken, String putCode)
 			throws OrcidClientException {
-		try {
-			String requestUrl = createRequestUrl(accessToken, getUrlPath(),
-					putCode);
-			DeleteRequest request = httpWrapper.createDeleteRequest(requestUrl)
-					.addHeader("Content-Type", "application/vnd.orcid+xml")
-					.addHeader("Authorization", accessToken.toAuthHeader());
-			request.execute();
-		} catch (HttpStatusCodeException e) {
-			log.error("HttpResponse status code: " + e.getStatusCode());
-			throw new OrcidClientException("Failed to remove " + getUrlPath()
-					+ ". HTTP status code=" + e.getStatusCode(), e);
-		} catch (IOException e) {
-			throw new OrcidClientException("Failed to remove " + getUrlPath(),
-					e);
-		}
+		AsyncUtil.await(removeAsync(accessToken, putCode));
 	}
 
 	/**
-	 * Join the parts to the Member URI. Concatenate the parts with slashes.
+	 * Like remove(), but completion is signalled through a future. If the
+	 * removal fails, the future fails with an OrcidClientException.
 	 */
-	protected String createRequestUrl(AccessToken accessToken, String... parts)
-			throws OrcidClientException {
+	public CompletableFuture<Void> removeAsync(AccessToken accessToken,
+			String putCode) {
+		OrcidCodec codec = getCodec();
 		try {
-			String url = context.getApiMemberUrl();
-			url += accessToken.getOrcid();
-			for (String part : parts) {
-				url += "/" + part;
-			}
-			return new URI(url).toString();
-		} catch (URISyntaxException e) {
-			throw new OrcidClientException(
-					"Failed to resolve the URI: " + parts, e);
+			String requestUrl = createRequestUrl(accessToken, getUrlPath(),
+					putCode);
+			DeleteRequest request = httpWrapper.createDeleteRequest(requestUrl)
+					.addHeader("Content-Type", codec.getMediaType())
+					.addHeader("Authorization", accessToken.toAuthHeader());
+			CompletableFuture<HttpResponse> future = invalidateWhenComplete(
+					accessToken, request.executeAsync());
+			return future.handle((response, t) -> {
+				if (t == null) {
+					return null;
+				}
+				Throwable e = AsyncUtil.unwrap(t);
+				if (e instanceof HttpStatusCodeException) {
+					int statusCode = ((HttpStatusCodeException) e)
+							.getStatusCode();
+					log.error("HttpResponse status code: " + statusCode);
+					throw new CompletionException(new OrcidClientException(
+							"Failed to remove " + getUrlPath()
+									+ ". HTTP status code=" + statusCode,
+							e));
+				} else {
+					throw new CompletionException(new OrcidClientException(
+							"Failed to remove " + getUrlPath(), e));
+				}
+			});
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
 		}
 	}
 
@@ -23,6 +23,10 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
  * 
  * We could go for any read, but the "/email" endpoint should return a vary
  * small response.
+ * 
+ * If there is a TokenValidityCache, a recent result is used instead. A 401
+ * response is remembered as invalid; other failures are not remembered, since
+ * they may say more about ORCID, or about the scope, than about the token.
  */
 public class AccessTokenValidator {
 	private static final Log log = LogFactory
@@ -30,6 +34,7 @@ public class AccessTokenValidator {
 
 	private final OrcidClientContext context;
 	private final HttpWrapper httpWrapper;
+	private TokenValidityCache validityCache;
 
 	public AccessTokenValidator(OrcidClientContext context,
 			HttpWrapper httpWrapper) {
@@ -37,12 +42,26 @@ public class AccessTokenValidator {
 		this.httpWrapper = httpWrapper;
 	}
 
+	/** It may be null, to ask ORCID every time. */
+	public AccessTokenValidator setValidityCache(
+			TokenValidityCache validityCache) {
+		this.validityCache = validityCache;
+		return this;
+	}
+
 	public boolean isValid(AccessToken accessToken)
 			throws OrcidClientException {
 		if (accessToken == null || accessToken == NO_TOKEN) {
 			return false;
 		}
-		
+
+		if (validityCache != null) {
+			Boolean cached = validityCache.get(accessToken);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
 		try {
 			URI baseUri = new URI(context.getApiPublicUrl());
 			String requestUrl = URIUtils
@@ -55,11 +74,18 @@ public class AccessTokenValidator {
 			request.execute();
 			
 			log.debug("Access token is still valid: " + accessToken);
+			if (validityCache != null) {
+				validityCache.recordValid(accessToken);
+			}
 			return true;
 		} catch (HttpStatusCodeException e) {
 			log.info(String.format(
 					"Access token not valid: status code is %d, response is: %s",
 					e.getStatusCode(), e.getResponseContent()));
+			if (validityCache != null
+					&& TokenValidityCache.isRejection(e.getStatusCode())) {
+				validityCache.recordInvalid(accessToken);
+			}
 			return false;
 		} catch (URISyntaxException e) {
 			throw new OrcidClientException(
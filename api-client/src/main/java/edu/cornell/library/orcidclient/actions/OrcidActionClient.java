@@ -1,12 +1,25 @@
 package edu.cornell.library.orcidclient.actions;
 
+import java.nio.file.Path;
+
+import edu.cornell.library.orcidclient.actions.read.AbstractReadAction;
+import edu.cornell.library.orcidclient.actions.read.ReadCache;
+import edu.cornell.library.orcidclient.actions.read.ReadCoalescer;
 import edu.cornell.library.orcidclient.actions.read.ReadRecordAction;
 import edu.cornell.library.orcidclient.actions.read.ReadWorkDetailsAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksBulkAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksFullyAction;
 import edu.cornell.library.orcidclient.actions.read.ReadWorksSummariesAction;
 import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
 import edu.cornell.library.orcidclient.context.OrcidClientContext;
 import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
 import edu.cornell.library.orcidclient.http.HttpWrapper;
+import edu.cornell.library.orcidclient.sync.EditPlanExecutor;
+import edu.cornell.library.orcidclient.sync.EditQueue;
+import edu.cornell.library.orcidclient.sync.EditSender;
+import edu.cornell.library.orcidclient.sync.WorksSynchronizer;
 
 /**
  * So far, a facade for creating Action objects, and for testing the "liveness"
@@ -14,12 +27,70 @@ import edu.cornell.library.orcidclient.http.HttpWrapper;
  */
 public class OrcidActionClient {
 	private final OrcidClientContext context;
-	private final HttpWrapper httpWrapper;
+	private final HttpWrapper baseHttpWrapper;
+	private volatile HttpWrapper httpWrapper;
+	private final ReadCache readCache;
+	private final OrcidCodec codec;
+	private volatile ReadCoalescer readCoalescer = new ReadCoalescer();
+	private volatile TokenValidityCache validityCache;
 
 	public OrcidActionClient(OrcidClientContext context,
 			HttpWrapper httpWrapper) {
+		this(context, httpWrapper, null);
+	}
+
+	/**
+	 * The actions created by this client will share the ReadCache. The read
+	 * actions consult it, and the edit actions invalidate it. It may be null.
+	 */
+	public OrcidActionClient(OrcidClientContext context,
+			HttpWrapper httpWrapper, ReadCache readCache) {
+		this(context, httpWrapper, readCache, XmlCodec.INSTANCE);
+	}
+
+	/**
+	 * The actions created by this client will exchange messages in the format
+	 * of the codec: XmlCodec or JsonCodec.
+	 */
+	public OrcidActionClient(OrcidClientContext context,
+			HttpWrapper httpWrapper, ReadCache readCache, OrcidCodec codec) {
 		this.context = context;
+		this.baseHttpWrapper = httpWrapper;
 		this.httpWrapper = httpWrapper;
+		this.readCache = readCache;
+		this.codec = codec;
+	}
+
+	/**
+	 * Concurrent reads of the same element, by actions of this client, share a
+	 * single request. To share them among clients, give each client the same
+	 * ReadCoalescer. It may be null, to make every read separately.
+	 */
+	public OrcidActionClient setReadCoalescer(ReadCoalescer readCoalescer) {
+		this.readCoalescer = readCoalescer;
+		return this;
+	}
+
+	/**
+	 * isAccessTokenValid() will use a recent result from the cache, if there is
+	 * one. When an action of this client is refused with 401 Unauthorized, its
+	 * token is recorded in the cache as invalid. To share the results among
+	 * clients, give each client the same TokenValidityCache. It may be null,
+	 * to ask ORCID every time.
+	 *
+	 * Only the actions created after this call record their rejected tokens.
+	 */
+	public OrcidActionClient setTokenValidityCache(
+			TokenValidityCache validityCache) {
+		this.validityCache = validityCache;
+		this.httpWrapper = (validityCache == null) ? baseHttpWrapper
+				: new TokenRejectionHttpWrapper(baseHttpWrapper, validityCache);
+		return this;
+	}
+
+	/** For testing. */
+	HttpWrapper getHttpWrapper() {
+		return httpWrapper;
 	}
 
 	public void checkConnection() throws OrcidClientException {
@@ -29,27 +100,84 @@ public class OrcidActionClient {
 	public boolean isAccessTokenValid(AccessToken accessToken)
 			throws OrcidClientException {
 		return new AccessTokenValidator(context, httpWrapper)
-				.isValid(accessToken);
+				.setValidityCache(validityCache).isValid(accessToken);
 	}
 
 	public ReadRecordAction createReadRecordAction() {
-		return new ReadRecordAction(context, httpWrapper);
+		return configure(new ReadRecordAction(context, httpWrapper));
 	}
 
 	public ReadWorksSummariesAction createReadWorksSummariesAction() {
-		return new ReadWorksSummariesAction(context, httpWrapper);
+		return configure(new ReadWorksSummariesAction(context, httpWrapper));
 	}
 
 	public ReadWorkDetailsAction createReadWorkDetailsAction() {
-		return new ReadWorkDetailsAction(context, httpWrapper);
+		return configure(new ReadWorkDetailsAction(context, httpWrapper));
+	}
+
+	public ReadWorksBulkAction createReadWorksBulkAction() {
+		return configure(new ReadWorksBulkAction(context, httpWrapper));
+	}
+
+	public ReadWorksFullyAction createReadWorksFullyAction() {
+		return new ReadWorksFullyAction(createReadWorksSummariesAction(),
+				createReadWorkDetailsAction());
 	}
 
 	public ExternalIdsEditAction createEditExternalIdsAction() {
-		return new ExternalIdsEditAction(context, httpWrapper);
+		return configure(new ExternalIdsEditAction(context, httpWrapper));
 	}
 
 	public WorksEditAction createEditWorksAction() {
-		return new WorksEditAction(context, httpWrapper);
+		return configure(new WorksEditAction(context, httpWrapper));
+	}
+
+	public WorksBulkAddAction createWorksBulkAddAction() {
+		return configure(new WorksBulkAddAction(context, httpWrapper));
+	}
+
+	/**
+	 * Works whose source is our client ID are the ones it may change.
+	 */
+	public WorksSynchronizer createWorksSynchronizer() {
+		return new WorksSynchronizer(context.getClientId(),
+				createReadWorksSummariesAction(), createReadWorksBulkAction(),
+				createWorksBulkAddAction(), createEditWorksAction());
+	}
+
+	/**
+	 * Sends edits with the access token that the TokenSource holds for each
+	 * ORCID iD.
+	 */
+	public EditSender createEditSender(EditSender.TokenSource tokenSource) {
+		return new EditSender(createEditWorksAction(),
+				createEditExternalIdsAction(), createWorksBulkAddAction(),
+				tokenSource);
+	}
+
+	public EditPlanExecutor createEditPlanExecutor(
+			EditSender.TokenSource tokenSource) {
+		return new EditPlanExecutor(createEditSender(tokenSource));
+	}
+
+	public EditQueue createEditQueue(Path journal,
+			EditSender.TokenSource tokenSource, EditQueue.Settings settings)
+			throws OrcidClientException {
+		return new EditQueue(journal, createEditSender(tokenSource), settings);
+	}
+
+	private <A extends AbstractReadAction> A configure(A action) {
+		action.setReadCache(readCache);
+		action.setReadCoalescer(readCoalescer);
+		action.setCodec(codec);
+		return action;
+	}
+
+	private <A extends AbstractEditAction> A configure(A action) {
+		action.setReadCache(readCache);
+		action.setReadCoalescer(readCoalescer);
+		action.setCodec(codec);
+		return action;
 	}
 
 }
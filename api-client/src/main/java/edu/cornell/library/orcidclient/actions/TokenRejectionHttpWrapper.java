@@ -0,0 +1,57 @@
+package edu.cornell.library.orcidclient.actions;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+import edu.cornell.library.orcidclient.http.InterceptingHttpWrapper;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Watches the requests of an OrcidActionClient. When ORCID rejects the access
+ * token in a request, it is recorded as invalid in the client's
+ * TokenValidityCache.
+ *
+ * The responses and exceptions are passed along unchanged.
+ */
+class TokenRejectionHttpWrapper extends InterceptingHttpWrapper {
+	private final TokenValidityCache cache;
+
+	TokenRejectionHttpWrapper(HttpWrapper inner, TokenValidityCache cache) {
+		super(inner);
+		this.cache = cache;
+	}
+
+	@Override
+	protected <R> R intercept(RequestInfo request, Call<R> call)
+			throws IOException, HttpStatusCodeException {
+		try {
+			return call.execute();
+		} catch (HttpStatusCodeException e) {
+			checkRejected(request, e);
+			throw e;
+		}
+	}
+
+	@Override
+	protected CompletableFuture<HttpResponse> interceptAsync(
+			RequestInfo request, AsyncCall call) {
+		return call.execute().whenComplete((response, t) -> {
+			if (t != null) {
+				checkRejected(request, AsyncUtil.unwrap(t));
+			}
+		});
+	}
+
+	private void checkRejected(RequestInfo request, Throwable cause) {
+		if (cause instanceof HttpStatusCodeException && TokenValidityCache
+				.isRejection(((HttpStatusCodeException) cause).getStatusCode())) {
+			cache.recordRejected(request.getHeaders().get("Authorization"));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "TokenRejectionHttpWrapper[inner=" + inner + "]";
+	}
+}
@@ -0,0 +1,182 @@
+package edu.cornell.library.orcidclient.actions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.auth.AccessToken;
+
+/**
+ * Remembers whether access tokens were found to be valid, so the
+ * AccessTokenValidator need not ask ORCID each time.
+ *
+ * A valid result is kept for one time-to-live, and an invalid result for
+ * another, usually shorter. When ORCID rejects a token with 401 Unauthorized,
+ * the token is recorded as invalid at once, whatever the action that sent it.
+ * A 403 Forbidden is not a rejection: the token may lack the scope for one
+ * action, and still be good for others.
+ *
+ * The entries are keyed by the token string. When the limit on entries is
+ * reached, the expired entries are discarded; if that is not enough, all of
+ * them are.
+ *
+ * One instance may be shared by all of the OrcidActionClients in the
+ * application.
+ */
+public class TokenValidityCache {
+	private static final Log log = LogFactory.getLog(TokenValidityCache.class);
+
+	private final long validTtlMillis;
+	private final long invalidTtlMillis;
+	private final int maxEntries;
+	private final LongSupplier clock;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public TokenValidityCache(long validTtl, long invalidTtl, TimeUnit unit,
+			int maxEntries) {
+		this(validTtl, invalidTtl, unit, maxEntries,
+				System::currentTimeMillis);
+	}
+
+	/** The clock is replaced for testing. */
+	TokenValidityCache(long validTtl, long invalidTtl, TimeUnit unit,
+			int maxEntries, LongSupplier clock) {
+		if (validTtl <= 0) {
+			throw new IllegalArgumentException(
+					"validTtl must be positive: " + validTtl);
+		}
+		if (invalidTtl < 0) {
+			throw new IllegalArgumentException(
+					"invalidTtl must not be negative: " + invalidTtl);
+		}
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException(
+					"maxEntries must be positive: " + maxEntries);
+		}
+		this.validTtlMillis = unit.toMillis(validTtl);
+		this.invalidTtlMillis = unit.toMillis(invalidTtl);
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+	}
+
+	/**
+	 * Is this token known to be valid (true) or invalid (false)? If there is
+	 * no result, or it has expired, return null.
+	 */
+	public Boolean get(AccessToken accessToken) {
+		String key = accessToken.getToken();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (entry.expires <= clock.getAsLong()) {
+			entries.remove(key, entry);
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.valid;
+	}
+
+	public void recordValid(AccessToken accessToken) {
+		record(accessToken.getToken(), true, validTtlMillis);
+	}
+
+	/**
+	 * Does this status code show that ORCID rejected the access token itself?
+	 */
+	static boolean isRejection(int statusCode) {
+		return statusCode == 401;
+	}
+
+	public void recordInvalid(AccessToken accessToken) {
+		recordInvalid(accessToken.getToken());
+	}
+
+	/**
+	 * Record as invalid the token in this Authorization header, like
+	 * "Bearer f5af9f51-07e6-4332-8f1a-c0c11c1e3728". If the header is null,
+	 * this has no effect.
+	 */
+	public void recordRejected(String authHeader) {
+		if (authHeader == null) {
+			return;
+		}
+		String token = authHeader.substring(authHeader.lastIndexOf(' ') + 1);
+		if (!token.isEmpty()) {
+			log.debug("Access token was rejected by ORCID.");
+			recordInvalid(token);
+		}
+	}
+
+	private void recordInvalid(String token) {
+		if (invalidTtlMillis == 0) {
+			entries.remove(token);
+		} else {
+			record(token, false, invalidTtlMillis);
+		}
+	}
+
+	private void record(String token, boolean valid, long ttlMillis) {
+		long now = clock.getAsLong();
+		if (entries.size() >= maxEntries && !entries.containsKey(token)) {
+			entries.values().removeIf(entry -> entry.expires <= now);
+			if (entries.size() >= maxEntries) {
+				log.debug("TokenValidityCache is full: discarding "
+						+ entries.size() + " entries.");
+				entries.clear();
+			}
+		}
+		entries.put(token, new Entry(valid, now + ttlMillis));
+	}
+
+	/** Forget any result for this token. */
+	public void invalidate(AccessToken accessToken) {
+		entries.remove(accessToken.getToken());
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "TokenValidityCache[entries=" + entries.size() + ", hits="
+				+ hits.get() + ", misses=" + misses.get() + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private static class Entry {
+		final boolean valid;
+		final long expires;
+
+		Entry(boolean valid, long expires) {
+			this.valid = valid;
+			this.expires = expires;
+		}
+	}
+}
@@ -1,21 +1,32 @@
 package edu.cornell.library.orcidclient.actions.read;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.utils.URIUtils;
 
+import edu.cornell.library.orcidclient.actions.read.ReadCache.Validators;
 import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
 import edu.cornell.library.orcidclient.context.OrcidClientContext;
 import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
 import edu.cornell.library.orcidclient.http.HttpWrapper;
 import edu.cornell.library.orcidclient.http.HttpWrapper.GetRequest;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
-import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+import edu.cornell.library.orcidclient.http.HttpWrapper.LocalFailure;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
 
 /**
  * The basis for classes that read information from the ORCID record.
@@ -30,6 +41,9 @@ public abstract class AbstractReadAction {
 
 	private final OrcidClientContext context;
 	private final HttpWrapper httpWrapper;
+	private volatile ReadCache readCache;
+	private volatile ReadCoalescer readCoalescer;
+	private volatile OrcidCodec codec = XmlCodec.INSTANCE;
 
 	public AbstractReadAction(OrcidClientContext context,
 			HttpWrapper httpWrapper) {
@@ -37,10 +51,254 @@ public abstract class AbstractReadAction {
 		this.httpWrapper = httpWrapper;
 	}
 
+	/**
+	 * Elements are read as XML, unless a different codec is set. readXml()
+	 * always reads XML.
+	 */
+	public void setCodec(OrcidCodec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * If a ReadCache is set, elements are taken from it when possible, and
+	 * stored in it after they are read.
+	 * 
+	 * If an expired element has an ETag or a Last-Modified date, the request
+	 * is conditional. If the server responds with 304 (Not Modified), the
+	 * cached element is refreshed and returned, without reading or parsing a
+	 * response body.
+	 */
+	public void setReadCache(ReadCache readCache) {
+		this.readCache = readCache;
+	}
+
+	/**
+	 * If a ReadCoalescer is set, concurrent reads of the same element share a
+	 * single request. Share the ReadCoalescer among the actions for the
+	 * greatest effect.
+	 */
+	public void setReadCoalescer(ReadCoalescer readCoalescer) {
+		this.readCoalescer = readCoalescer;
+	}
+
+	/**
+	 * The element is decoded as the response is read, without holding the
+	 * text of the response in memory.
+	 */
 	protected <T> T readElement(AccessToken accessToken, Endpoint<T> endpoint)
 			throws OrcidClientException {
-		String xml = readXml(accessToken, endpoint.getPath());
-		return OrcidXmlUtil.unmarshall(xml, endpoint.getResultClass());
+		ReadCache.Key key = cacheKey(accessToken, endpoint);
+		T cached = getCached(key, endpoint);
+		if (cached != null) {
+			return cached;
+		}
+
+		ReadCoalescer coalescer = readCoalescer;
+		if (coalescer == null) {
+			return readThrough(accessToken, endpoint, key);
+		}
+		return coalescer.read(key, endpoint.getResultClass(),
+				() -> readThrough(accessToken, endpoint, key));
+	}
+
+	private <T> T readThrough(AccessToken accessToken, Endpoint<T> endpoint,
+			ReadCache.Key key) throws OrcidClientException {
+		long generation = getGeneration(key);
+		Validators validators = getValidators(key);
+		T element = readElement(accessToken, endpoint, key, validators,
+				generation);
+		if (element == null) {
+			// Not modified, but evicted in the meantime. Ask again.
+			element = readElement(accessToken, endpoint, key, null,
+					generation);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("Read action result: " + element);
+		}
+		return element;
+	}
+
+	/**
+	 * Return null if the element was not modified, but is no longer cached.
+	 */
+	private <T> T readElement(AccessToken accessToken, Endpoint<T> endpoint,
+			ReadCache.Key key, Validators validators, long generation)
+			throws OrcidClientException {
+		try {
+			return createConditionalRequest(accessToken, endpoint, validators)
+					.execute((response, content) -> {
+						if (isNotModified(response, validators)) {
+							return refreshCached(key, endpoint);
+						}
+						CountingInputStream counter = new CountingInputStream(
+								content);
+						T e = decode(counter, endpoint.getResultClass());
+						putCached(key, e, counter.getByteCount(), response,
+								generation);
+						return e;
+					});
+		} catch (DecodeFailure e) {
+			throw e.getCause();
+		} catch (HttpStatusCodeException e) {
+			throw new OrcidClientException("Failed to read profile.", e);
+		} catch (IOException e) {
+			throw new OrcidClientException("Failed to read profile.", e);
+		}
+	}
+
+	private <T> T decode(InputStream content, Class<T> clazz)
+			throws DecodeFailure {
+		try {
+			return codec.decode(content, clazz);
+		} catch (OrcidClientException e) {
+			throw new DecodeFailure(e);
+		}
+	}
+
+	/**
+	 * Like readElement(), but the result is delivered through a future. If the
+	 * read fails, the future fails with an OrcidClientException.
+	 */
+	protected <T> CompletableFuture<T> readElementAsync(
+			AccessToken accessToken, Endpoint<T> endpoint) {
+		ReadCache.Key key = cacheKey(accessToken, endpoint);
+		T cached = getCached(key, endpoint);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		ReadCoalescer coalescer = readCoalescer;
+		if (coalescer == null) {
+			return readThroughAsync(accessToken, endpoint, key);
+		}
+		return coalescer.readAsync(key, endpoint.getResultClass(),
+				() -> readThroughAsync(accessToken, endpoint, key));
+	}
+
+	private <T> CompletableFuture<T> readThroughAsync(AccessToken accessToken,
+			Endpoint<T> endpoint, ReadCache.Key key) {
+		long generation = getGeneration(key);
+		Validators validators = getValidators(key);
+		return readElementAsync(accessToken, endpoint, key, validators,
+				generation).thenCompose(element -> (element != null)
+						? CompletableFuture.completedFuture(element)
+						: readElementAsync(accessToken, endpoint, key, null,
+								generation));
+	}
+
+	private <T> CompletableFuture<T> readElementAsync(AccessToken accessToken,
+			Endpoint<T> endpoint, ReadCache.Key key, Validators validators,
+			long generation) {
+		try {
+			return createConditionalRequest(accessToken, endpoint, validators)
+					.executeAsync().handle((response, t) -> {
+						try {
+							if (t != null) {
+								throw AsyncUtil.unwrap(t);
+							}
+							if (isNotModified(response, validators)) {
+								return refreshCached(key, endpoint);
+							}
+							String message = response.getContentString();
+							T element = codec.decode(message,
+									endpoint.getResultClass());
+							long weight = message
+									.getBytes(StandardCharsets.UTF_8).length;
+							putCached(key, element, weight, response,
+									generation);
+							return element;
+						} catch (OrcidClientException e) {
+							throw new CompletionException(e);
+						} catch (Throwable e) {
+							throw new CompletionException(
+									new OrcidClientException(
+											"Failed to read profile.", e));
+						}
+					});
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
+		}
+	}
+
+	private GetRequest createConditionalRequest(AccessToken accessToken,
+			Endpoint<?> endpoint, Validators validators)
+			throws OrcidClientException {
+		GetRequest request = createRequest(accessToken, endpoint.getPath(),
+				codec.getMediaType());
+		if (validators != null) {
+			if (validators.getEtag() != null) {
+				request.addHeader("If-None-Match", validators.getEtag());
+			}
+			if (validators.getLastModified() != null) {
+				request.addHeader("If-Modified-Since",
+						validators.getLastModified());
+			}
+		}
+		return request;
+	}
+
+	private static boolean isNotModified(HttpResponse response,
+			Validators validators) {
+		return validators != null
+				&& response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+	}
+
+	private ReadCache.Key cacheKey(AccessToken accessToken,
+			Endpoint<?> endpoint) {
+		return new ReadCache.Key(accessToken.getOrcid(),
+				accessToken.getScope(), endpoint.getPath());
+	}
+
+	private <T> T getCached(ReadCache.Key key, Endpoint<T> endpoint) {
+		if (readCache == null) {
+			return null;
+		}
+		Object cached = readCache.get(key);
+		if (endpoint.getResultClass().isInstance(cached)) {
+			log.debug("Read from cache: " + key);
+			return endpoint.getResultClass().cast(cached);
+		}
+		return null;
+	}
+
+	/**
+	 * Take this before the request, so an edit made while the request is in
+	 * flight keeps its response out of the cache.
+	 */
+	private long getGeneration(ReadCache.Key key) {
+		return (readCache == null) ? 0
+				: readCache.getGeneration(key.getOrcid());
+	}
+
+	private Validators getValidators(ReadCache.Key key) {
+		return (readCache == null) ? null : readCache.getValidators(key);
+	}
+
+	private <T> T refreshCached(ReadCache.Key key, Endpoint<T> endpoint) {
+		if (readCache == null) {
+			return null;
+		}
+		Object cached = readCache.refresh(key);
+		log.debug("Not modified: " + key);
+		return endpoint.getResultClass().isInstance(cached)
+				? endpoint.getResultClass().cast(cached)
+				: null;
+	}
+
+	private void putCached(ReadCache.Key key, Object element, long weight,
+			HttpResponse response, long generation) throws IOException {
+		if (readCache != null) {
+			readCache.put(key, element, weight,
+					Validators.of(firstHeaderValue(response, "ETag"),
+							firstHeaderValue(response, "Last-Modified")),
+					generation);
+		}
+	}
+
+	private static String firstHeaderValue(HttpResponse response, String key)
+			throws IOException {
+		List<String> values = response.getHeaderValues(key);
+		return (values == null || values.isEmpty()) ? null : values.get(0);
 	}
 
 	/**
@@ -53,26 +311,60 @@ public abstract class AbstractReadAction {
 	 */
 	public String readXml(AccessToken accessToken, String endpointPath)
 			throws OrcidClientException {
+		try {
+			HttpResponse response = createRequest(accessToken, endpointPath,
+					XmlCodec.MEDIA_TYPE).execute();
+			String xml = response.getContentString();
+			log.debug("Read action result: " + xml);
+			return xml;
+		} catch (HttpStatusCodeException e) {
+			throw new OrcidClientException("Failed to read profile.", e);
+		} catch (IOException e) {
+			throw new OrcidClientException("Failed to read profile.", e);
+		}
+	}
+
+	/**
+	 * Like readXml(), but the result is delivered through a future. If the
+	 * read fails, the future fails with an OrcidClientException.
+	 */
+	public CompletableFuture<String> readXmlAsync(AccessToken accessToken,
+			String endpointPath) {
+		try {
+			return createRequest(accessToken, endpointPath, XmlCodec.MEDIA_TYPE)
+					.executeAsync()
+					.handle((response, t) -> {
+						try {
+							if (t != null) {
+								throw AsyncUtil.unwrap(t);
+							}
+							String xml = response.getContentString();
+							log.debug("Read action result: " + xml);
+							return xml;
+						} catch (Throwable e) {
+							throw new CompletionException(
+									new OrcidClientException(
+											"Failed to read profile.", e));
+						}
+					});
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
+		}
+	}
+
+	private GetRequest createRequest(AccessToken accessToken,
+			String endpointPath, String mediaType) throws OrcidClientException {
 		try {
 			URI baseUri = new URI(context.getApiPublicUrl());
 			String requestUrl = URIUtils
 					.resolve(baseUri, accessToken.getOrcid() + endpointPath)
 					.toString();
-			GetRequest request = httpWrapper.createGetRequest(requestUrl)
-					.addHeader("Accept", "application/vnd.orcid+xml")
+			return httpWrapper.createGetRequest(requestUrl)
+					.addHeader("Accept", mediaType)
 					.addHeader("Authorization", accessToken.toAuthHeader());
-
-			HttpResponse response = request.execute();
-			String xml = response.getContentString();
-			log.debug("Read action result: " + xml);
-			return xml;
 		} catch (URISyntaxException e) {
 			throw new OrcidClientException(
 					"API_BASE_URL is not syntactically valid.", e);
-		} catch (HttpStatusCodeException e) {
-			throw new OrcidClientException("Failed to read profile.", e);
-		} catch (IOException e) {
-			throw new OrcidClientException("Failed to read profile.", e);
 		}
 	}
 
@@ -80,6 +372,23 @@ public abstract class AbstractReadAction {
 	// Helper classes
 	// ----------------------------------------------------------------------
 
+	/**
+	 * A ContentHandler may only throw IOExceptions, so smuggle the
+	 * OrcidClientException out inside one. A LocalFailure, since the response
+	 * arrived: it should not be retried, nor blamed on the server.
+	 */
+	private static class DecodeFailure extends IOException
+			implements LocalFailure {
+		public DecodeFailure(OrcidClientException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized OrcidClientException getCause() {
+			return (OrcidClientException) super.getCause();
+		}
+	}
+
 	public abstract static class Endpoint<T> {
 		private final String path;
 		private final Class<T> resultClass;
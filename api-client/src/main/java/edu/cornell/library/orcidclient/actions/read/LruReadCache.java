@@ -0,0 +1,202 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A ReadCache in memory, with a time-to-live for each entry, and a limit on
+ * the total weight of the entries.
+ *
+ * When the limit is exceeded, the least-recently-used entries are discarded.
+ * An element that is heavier than the limit is not cached at all.
+ *
+ * An expired entry is discarded when it is found, unless it has validators. In
+ * that case it stays until it is refreshed, replaced or evicted.
+ *
+ * The generations of the ORCID iDs are kept in a fixed number of stripes, so
+ * they take the same memory however many records are read. An edit to one
+ * record may now and then keep a read of another from being cached.
+ *
+ * One instance may be shared by all of the read actions in the application.
+ */
+public class LruReadCache implements ReadCache {
+	private static final Log log = LogFactory.getLog(LruReadCache.class);
+
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final long ttlMillis;
+	private final long maxWeight;
+	private final LongSupplier clock;
+
+	/** Access-ordered, so the eldest entry is the least recently used. */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16,
+			0.75f, true);
+	private long totalWeight;
+	private final long[] generations = new long[GENERATION_STRIPES];
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private long revalidations;
+
+	public LruReadCache(long ttl, TimeUnit unit, long maxWeight) {
+		this(ttl, unit, maxWeight, System::currentTimeMillis);
+	}
+
+	/** The clock is replaced for testing. */
+	LruReadCache(long ttl, TimeUnit unit, long maxWeight, LongSupplier clock) {
+		if (ttl <= 0) {
+			throw new IllegalArgumentException("ttl must be positive: " + ttl);
+		}
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException(
+					"maxWeight must be positive: " + maxWeight);
+		}
+		this.ttlMillis = unit.toMillis(ttl);
+		this.maxWeight = maxWeight;
+		this.clock = clock;
+	}
+
+	@Override
+	public synchronized Object get(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (entry.isExpired(clock.getAsLong())) {
+			if (entry.validators == null) {
+				discard(key);
+			}
+			expirations++;
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.element;
+	}
+
+	@Override
+	public synchronized void put(Key key, Object element, long weight,
+			Validators validators, long generation) {
+		if (generation != getGeneration(key.getOrcid())) {
+			log.debug("Invalidated while reading: " + key);
+			return;
+		}
+		discard(key);
+		if (weight > maxWeight) {
+			log.debug("Too heavy to cache: " + key + ", weight=" + weight);
+			return;
+		}
+
+		entries.put(key, new Entry(element, weight, validators,
+				clock.getAsLong() + ttlMillis));
+		totalWeight += weight;
+
+		Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+		while (totalWeight > maxWeight && it.hasNext()) {
+			Map.Entry<Key, Entry> eldest = it.next();
+			totalWeight -= eldest.getValue().weight;
+			it.remove();
+			evictions++;
+		}
+	}
+
+	@Override
+	public synchronized Validators getValidators(Key key) {
+		Entry entry = entries.get(key);
+		return (entry == null) ? null : entry.validators;
+	}
+
+	@Override
+	public synchronized Object refresh(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		entries.put(key, new Entry(entry.element, entry.weight,
+				entry.validators, clock.getAsLong() + ttlMillis));
+		revalidations++;
+		return entry.element;
+	}
+
+	@Override
+	public synchronized long getGeneration(String orcid) {
+		return generations[stripe(orcid)];
+	}
+
+	private static int stripe(String orcid) {
+		return (orcid.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+	}
+
+	@Override
+	public synchronized void invalidate(String orcid) {
+		generations[stripe(orcid)]++;
+		Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, Entry> entry = it.next();
+			if (entry.getKey().getOrcid().equals(orcid)) {
+				totalWeight -= entry.getValue().weight;
+				it.remove();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		for (int i = 0; i < generations.length; i++) {
+			generations[i]++;
+		}
+		entries.clear();
+		totalWeight = 0;
+	}
+
+	@Override
+	public synchronized Stats getStats() {
+		return new Stats(hits, misses, evictions, expirations, revalidations,
+				entries.size(), totalWeight);
+	}
+
+	private void discard(Key key) {
+		Entry old = entries.remove(key);
+		if (old != null) {
+			totalWeight -= old.weight;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LruReadCache[ttlMillis=" + ttlMillis + ", maxWeight="
+				+ maxWeight + ", " + getStats() + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private static class Entry {
+		final Object element;
+		final long weight;
+		final Validators validators;
+		final long expiresAt;
+
+		Entry(Object element, long weight, Validators validators,
+				long expiresAt) {
+			this.element = element;
+			this.weight = weight;
+			this.validators = validators;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import java.util.Objects;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+
+/**
+ * A place for the read actions to keep the elements they have read, so the
+ * same element need not be read again soon after.
+ *
+ * The cached elements are shared by every caller that reads them, so they must
+ * be treated as read-only.
+ *
+ * The key includes the scope of the access token, so an element that was read
+ * with a /read-limited token is not given to a caller with a /read-public
+ * token.
+ *
+ * If the response carried an ETag or a Last-Modified header, the element may
+ * be kept after it expires. The read action can then make a conditional
+ * request, and if the server says the element has not changed, refresh it.
+ *
+ * A read that began before an edit may finish after the edit has invalidated
+ * the record. So the read action takes the generation of the record before it
+ * asks, and the cache ignores the element if the record has been invalidated
+ * since.
+ */
+public interface ReadCache {
+	/**
+	 * Get the cached element, or null if there is none, or if it has expired.
+	 */
+	Object get(Key key);
+
+	/**
+	 * Store the element. The weight is the approximate size of the response,
+	 * in bytes.
+	 *
+	 * If the record has been invalidated since getGeneration() returned this
+	 * generation, the element may be out of date, so it is not stored.
+	 */
+	void put(Key key, Object element, long weight, Validators validators,
+			long generation);
+
+	/**
+	 * Store the element, whatever the generation of the record.
+	 */
+	default void put(Key key, Object element, long weight,
+			Validators validators) {
+		put(key, element, weight, validators, getGeneration(key.getOrcid()));
+	}
+
+	/**
+	 * A number that changes whenever the elements for this ORCID iD are
+	 * invalidated or cleared.
+	 */
+	long getGeneration(String orcid);
+
+	/**
+	 * Get the validators for the cached element, even if it has expired.
+	 * Return null if there is no element, or it has no validators.
+	 */
+	Validators getValidators(Key key);
+
+	/**
+	 * The server says that the element has not changed: restart its time to
+	 * live and return it. Return null if the element is no longer cached.
+	 */
+	Object refresh(Key key);
+
+	/**
+	 * Discard all elements for this ORCID iD, in all scopes. Call this when the
+	 * record has been changed.
+	 */
+	void invalidate(String orcid);
+
+	/**
+	 * Discard all elements.
+	 */
+	void clear();
+
+	Stats getStats();
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Identifies a cached element: the ORCID iD, the scope of the token, and
+	 * the path of the endpoint, like "/record" or "/work/733535".
+	 */
+	public static final class Key {
+		private final String orcid;
+		private final ApiScope scope;
+		private final String path;
+
+		public Key(String orcid, ApiScope scope, String path) {
+			this.orcid = orcid;
+			this.scope = scope;
+			this.path = path;
+		}
+
+		public String getOrcid() {
+			return orcid;
+		}
+
+		public ApiScope getScope() {
+			return scope;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(orcid, scope, path);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (other == null || other.getClass() != this.getClass()) {
+				return false;
+			}
+			Key that = (Key) other;
+			return Objects.equals(this.orcid, that.orcid)
+					&& Objects.equals(this.scope, that.scope)
+					&& Objects.equals(this.path, that.path);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Key[orcid=%s, scope=%s, path=%s]", orcid,
+					scope, path);
+		}
+	}
+
+	/**
+	 * The headers that let us ask whether a cached element has changed.
+	 * Either may be null, but not both.
+	 */
+	public static final class Validators {
+		private final String etag;
+		private final String lastModified;
+
+		/**
+		 * Return null if there are no validators.
+		 */
+		public static Validators of(String etag, String lastModified) {
+			if (etag == null && lastModified == null) {
+				return null;
+			}
+			return new Validators(etag, lastModified);
+		}
+
+		private Validators(String etag, String lastModified) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+		/** Send as If-None-Match. */
+		public String getEtag() {
+			return etag;
+		}
+
+		/** Send as If-Modified-Since. */
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		@Override
+		public String toString() {
+			return "Validators[etag=" + etag + ", lastModified="
+					+ lastModified + "]";
+		}
+	}
+
+	/**
+	 * A snapshot of the cache statistics.
+	 */
+	public static final class Stats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final long expirations;
+		private final long revalidations;
+		private final int size;
+		private final long weight;
+
+		public Stats(long hits, long misses, long evictions, long expirations,
+				long revalidations, int size, long weight) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.expirations = expirations;
+			this.revalidations = revalidations;
+			this.size = size;
+			this.weight = weight;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		/** Entries discarded to keep the cache within its maximum weight. */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/** Entries found to be older than the TTL. */
+		public long getExpirations() {
+			return expirations;
+		}
+
+		/** Expired entries refreshed by a 304 (Not Modified) response. */
+		public long getRevalidations() {
+			return revalidations;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public long getWeight() {
+			return weight;
+		}
+
+		public double getHitRate() {
+			long requests = hits + misses;
+			return (requests == 0) ? 0.0 : (double) hits / requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Stats[hits=%s, misses=%s, hitRate=%.3f, evictions=%s, "
+							+ "expirations=%s, revalidations=%s, size=%s, "
+							+ "weight=%s]",
+					hits, misses, getHitRate(), evictions, expirations,
+					revalidations, size, weight);
+		}
+	}
+}
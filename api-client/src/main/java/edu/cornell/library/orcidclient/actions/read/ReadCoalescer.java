@@ -0,0 +1,126 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Lets concurrent reads of the same element share a single request.
+ *
+ * The first caller to ask for an element makes the request. Anyone who asks
+ * for the same element (same ORCID iD, scope and path) before that request
+ * completes waits for it, and receives the same result, or the same exception.
+ * After it completes, the next caller makes a new request.
+ *
+ * When a record is changed, invalidate() it, so a caller who asks after the
+ * change does not join a request that was sent before it. The edit actions do
+ * this, if they are given the ReadCoalescer.
+ *
+ * As with the ReadCache, the shared elements must be treated as read-only.
+ */
+public class ReadCoalescer {
+	private static final Log log = LogFactory.getLog(ReadCoalescer.class);
+
+	private final ConcurrentMap<ReadCache.Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * A read that blocks, and may throw an OrcidClientException.
+	 */
+	public interface Reader<T> {
+		T read() throws OrcidClientException;
+	}
+
+	public <T> T read(ReadCache.Key key, Class<T> resultClass, Reader<T> reader)
+			throws OrcidClientException {
+		CompletableFuture<Object> mine = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			joined(key);
+			return resultClass.cast(AsyncUtil.await(existing));
+		}
+
+		T result;
+		try {
+			result = reader.read();
+		} catch (Throwable t) {
+			// Even an Error must end the request, or the callers that joined
+			// it would wait forever, and so would every later caller.
+			finish(key, mine, null, t);
+			throw t;
+		}
+		finish(key, mine, result, null);
+		return result;
+	}
+
+	public <T> CompletableFuture<T> readAsync(ReadCache.Key key,
+			Class<T> resultClass, Supplier<CompletableFuture<T>> reader) {
+		CompletableFuture<Object> mine = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			joined(key);
+			return existing.thenApply(resultClass::cast);
+		}
+
+		CompletableFuture<T> future;
+		try {
+			future = reader.get();
+		} catch (Throwable t) {
+			future = AsyncUtil.failed(t);
+		}
+		return future.whenComplete((result, t) -> finish(key, mine, result,
+				(t == null) ? null : AsyncUtil.unwrap(t)));
+	}
+
+	/**
+	 * Stop sharing the request before completing it, so no one can join a
+	 * request that is already complete.
+	 */
+	private void finish(ReadCache.Key key, CompletableFuture<Object> mine,
+			Object result, Throwable failure) {
+		inFlight.remove(key, mine);
+		if (failure == null) {
+			mine.complete(result);
+		} else {
+			mine.completeExceptionally(failure);
+		}
+	}
+
+	/**
+	 * The record has been changed. Reads that ask from now on make a new
+	 * request. The callers who joined an earlier request still receive its
+	 * result.
+	 */
+	public void invalidate(String orcid) {
+		inFlight.keySet().removeIf(key -> key.getOrcid().equals(orcid));
+	}
+
+	private void joined(ReadCache.Key key) {
+		coalesced.incrementAndGet();
+		log.debug("Joined the request in flight: " + key);
+	}
+
+	/** How many reads were satisfied by another caller's request. */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/** How many requests are in flight now. */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	@Override
+	public String toString() {
+		return "ReadCoalescer[inFlight=" + inFlight.size() + ", coalesced="
+				+ coalesced.get() + "]";
+	}
+}
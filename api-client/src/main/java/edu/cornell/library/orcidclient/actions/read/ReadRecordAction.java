@@ -1,5 +1,7 @@
 package edu.cornell.library.orcidclient.actions.read;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.orcid.jaxb.model.record_v2.Record;
 
 import edu.cornell.library.orcidclient.auth.AccessToken;
@@ -22,6 +24,10 @@ public class ReadRecordAction extends AbstractReadAction {
 		return readElement(accessToken, RECORD);
 	}
 
+	public CompletableFuture<Record> readAsync(AccessToken accessToken) {
+		return readElementAsync(accessToken, RECORD);
+	}
+
 	public static class RecordEndpoint extends Endpoint<Record> {
 
 		protected RecordEndpoint(String path) {
@@ -1,5 +1,7 @@
 package edu.cornell.library.orcidclient.actions.read;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.orcid.jaxb.model.record_v2.Work;
 
 import edu.cornell.library.orcidclient.auth.AccessToken;
@@ -21,6 +23,11 @@ public class ReadWorkDetailsAction extends AbstractReadAction {
 		return readElement(accessToken, new WorkDetailsEndpoint(putCode));
 	}
 
+	public CompletableFuture<Work> readDetailsAsync(AccessToken accessToken,
+			String putCode) {
+		return readElementAsync(accessToken, new WorkDetailsEndpoint(putCode));
+	}
+
 	public static class WorkDetailsEndpoint extends Endpoint<Work> {
 		public WorkDetailsEndpoint(String putCode) {
 			super("/work/" + putCode, Work.class);
@@ -0,0 +1,131 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.orcid.jaxb.model.error_v2.OrcidError;
+import org.orcid.jaxb.model.record.bulk.BulkElement;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkBulk;
+
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Read many works in full from an ORCID record, up to 100 works in each
+ * request.
+ *
+ * The put codes are split into chunks, and each chunk is read from
+ * /works/{putcode,putcode,...}. The synchronous methods read the chunks one
+ * after another. The asynchronous methods may have several chunks in flight at
+ * once, which is only useful if the HttpWrapper is itself asynchronous, like
+ * the AsyncHttpWrapper.
+ *
+ * The API answers with one element for each put code: either the Work or an
+ * OrcidError, in the order requested.
+ */
+public class ReadWorksBulkAction extends AbstractReadAction {
+	public static final int MAX_PUT_CODES_PER_REQUEST = 100;
+
+	public ReadWorksBulkAction(OrcidClientContext context,
+			HttpWrapper httpWrapper) {
+		super(context, httpWrapper);
+	}
+
+	/**
+	 * Get the Works. If the API returns an error for any of the put codes,
+	 * throw an exception.
+	 */
+	public List<Work> readWorks(AccessToken accessToken, List<String> putCodes)
+			throws OrcidClientException {
+		return toWorks(readBulk(accessToken, putCodes));
+	}
+
+	/**
+	 * Get a Work or an OrcidError for each put code.
+	 */
+	public List<BulkElement> readBulk(AccessToken accessToken,
+			List<String> putCodes) throws OrcidClientException {
+		List<BulkElement> elements = new ArrayList<>();
+		for (List<String> chunk : chunk(putCodes)) {
+			elements.addAll(
+					readElement(accessToken, new WorksBulkEndpoint(chunk))
+							.getBulk());
+		}
+		return elements;
+	}
+
+	/**
+	 * Like readWorks(), but with as many as maxInFlight requests outstanding.
+	 */
+	public CompletableFuture<List<Work>> readWorksAsync(
+			AccessToken accessToken, List<String> putCodes, int maxInFlight) {
+		return readBulkAsync(accessToken, putCodes, maxInFlight)
+				.thenApply(AsyncUtil.checked(ReadWorksBulkAction::toWorks));
+	}
+
+	/**
+	 * Like readBulk(), but with as many as maxInFlight requests outstanding.
+	 */
+	public CompletableFuture<List<BulkElement>> readBulkAsync(
+			AccessToken accessToken, List<String> putCodes, int maxInFlight) {
+		return AsyncUtil
+				.boundedFanOut(chunk(putCodes), maxInFlight,
+						chunk -> readElementAsync(accessToken,
+								new WorksBulkEndpoint(chunk)))
+				.thenApply(ReadWorksBulkAction::merge);
+	}
+
+	private static List<List<String>> chunk(List<String> putCodes) {
+		List<List<String>> chunks = new ArrayList<>();
+		for (int i = 0; i < putCodes.size(); i += MAX_PUT_CODES_PER_REQUEST) {
+			chunks.add(putCodes.subList(i,
+					Math.min(i + MAX_PUT_CODES_PER_REQUEST, putCodes.size())));
+		}
+		return chunks;
+	}
+
+	private static List<BulkElement> merge(List<WorkBulk> bulks) {
+		List<BulkElement> elements = new ArrayList<>();
+		for (WorkBulk bulk : bulks) {
+			elements.addAll(bulk.getBulk());
+		}
+		return elements;
+	}
+
+	private static List<Work> toWorks(List<BulkElement> elements)
+			throws OrcidClientException {
+		List<Work> works = new ArrayList<>();
+		List<String> errors = new ArrayList<>();
+		for (BulkElement element : elements) {
+			if (element instanceof Work) {
+				works.add((Work) element);
+			} else if (element instanceof OrcidError) {
+				errors.add(((OrcidError) element).getDeveloperMessage());
+			}
+		}
+		if (!errors.isEmpty()) {
+			throw new OrcidClientException("Failed to read " + errors.size()
+					+ " of " + elements.size() + " works: " + errors);
+		}
+		return works;
+	}
+
+	public static class WorksBulkEndpoint extends Endpoint<WorkBulk> {
+		public WorksBulkEndpoint(List<String> putCodes) {
+			super("/works/" + String.join(",", putCodes), WorkBulk.class);
+			if (putCodes.isEmpty()
+					|| putCodes.size() > MAX_PUT_CODES_PER_REQUEST) {
+				throw new IllegalArgumentException(
+						"Must request between 1 and "
+								+ MAX_PUT_CODES_PER_REQUEST
+								+ " put codes, not " + putCodes.size());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.orcid.jaxb.model.record.summary_v2.WorkGroup;
+import org.orcid.jaxb.model.record.summary_v2.WorkSummary;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Read the full details of all the Works on an ORCID record.
+ *
+ * Start by getting the summaries, from which we can get the put codes. Then
+ * read the details for each put code, with as many as maxInFlight reads
+ * outstanding at once. The Works are returned in the order of the summaries.
+ *
+ * The reads overlap if the HttpWrapper is asynchronous, like the
+ * AsyncHttpWrapper. With a blocking HttpWrapper, supply an Executor, and each
+ * read will run on one of its threads. Otherwise, the reads run one after
+ * another, on the calling thread.
+ */
+public class ReadWorksFullyAction {
+	public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+	private final ReadWorksSummariesAction summariesAction;
+	private final ReadWorkDetailsAction detailsAction;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+	private Executor executor;
+
+	public ReadWorksFullyAction(OrcidClientContext context,
+			HttpWrapper httpWrapper) {
+		this(new ReadWorksSummariesAction(context, httpWrapper),
+				new ReadWorkDetailsAction(context, httpWrapper));
+	}
+
+	public ReadWorksFullyAction(ReadWorksSummariesAction summariesAction,
+			ReadWorkDetailsAction detailsAction) {
+		this.summariesAction = summariesAction;
+		this.detailsAction = detailsAction;
+	}
+
+	public ReadWorksFullyAction setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(
+					"maxInFlight must be positive: " + maxInFlight);
+		}
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	/**
+	 * Run the blocking reads on the threads of this Executor.
+	 */
+	public ReadWorksFullyAction setExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	public List<Work> readAll(AccessToken accessToken)
+			throws OrcidClientException {
+		return readDetails(accessToken,
+				summariesAction.readSummaries(accessToken));
+	}
+
+	public CompletableFuture<List<Work>> readAllAsync(
+			AccessToken accessToken) {
+		return summariesAction.readSummariesAsync(accessToken)
+				.thenCompose(works -> readDetailsAsync(accessToken, works));
+	}
+
+	/**
+	 * If you already have the summaries, read the details that go with them.
+	 */
+	public List<Work> readDetails(AccessToken accessToken, Works works)
+			throws OrcidClientException {
+		return AsyncUtil.await(readDetailsAsync(accessToken, works));
+	}
+
+	public CompletableFuture<List<Work>> readDetailsAsync(
+			AccessToken accessToken, Works works) {
+		return AsyncUtil.boundedFanOut(getPutCodes(works), maxInFlight,
+				putCode -> readOne(accessToken, putCode));
+	}
+
+	private CompletableFuture<Work> readOne(AccessToken accessToken,
+			String putCode) {
+		if (executor == null) {
+			return detailsAction.readDetailsAsync(accessToken, putCode);
+		} else {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return detailsAction.readDetails(accessToken, putCode);
+				} catch (OrcidClientException e) {
+					throw new CompletionException(e);
+				}
+			}, executor);
+		}
+	}
+
+	/**
+	 * Each WorkGroup holds one or more WorkSummaries, for different sources of
+	 * the same work. Each has its own put code.
+	 */
+	public static List<String> getPutCodes(Works works) {
+		List<String> putCodes = new ArrayList<>();
+		for (WorkGroup workGroup : works.getWorkGroup()) {
+			for (WorkSummary workSummary : workGroup.getWorkSummary()) {
+				putCodes.add(String.valueOf(workSummary.getPutCode()));
+			}
+		}
+		return putCodes;
+	}
+
+}
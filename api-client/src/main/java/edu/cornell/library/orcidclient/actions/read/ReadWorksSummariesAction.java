@@ -1,5 +1,6 @@
 package edu.cornell.library.orcidclient.actions.read;
 
+import java.util.concurrent.CompletableFuture;
 
 import org.orcid.jaxb.model.record.summary_v2.Works;
 
@@ -25,6 +26,11 @@ public class ReadWorksSummariesAction extends AbstractReadAction {
 		return readElement(accessToken, WORKS);
 	}
 
+	public CompletableFuture<Works> readSummariesAsync(
+			AccessToken accessToken) {
+		return readElementAsync(accessToken, WORKS);
+	}
+
 	public static class WorksSummaryEndpoint extends Endpoint<Works> {
 		public WorksSummaryEndpoint(String path) {
 			super(path, Works.class);
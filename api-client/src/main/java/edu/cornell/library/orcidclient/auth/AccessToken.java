@@ -1,12 +1,17 @@
 package edu.cornell.library.orcidclient.auth;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import edu.cornell.library.orcidclient.actions.ApiScope;
 import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
@@ -38,15 +43,130 @@ public class AccessToken {
 	// The factory
 	// ----------------------------------------------------------------------
 
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
 	public static AccessToken parse(String jsonString)
 			throws OrcidClientException {
-		try {
-			return new AccessToken(jsonString);
+		try (JsonParser parser = JSON_FACTORY.createParser(jsonString)) {
+			return read(parser, jsonString);
 		} catch (IOException e) {
 			throw new OrcidClientException("Failed to parse AccessToken", e);
 		}
 	}
 
+	/**
+	 * Parse a stream of access tokens, one JSON object per line, as UTF-8.
+	 * Blank lines are skipped.
+	 */
+	public static List<AccessToken> parseAll(InputStream in)
+			throws OrcidClientException {
+		List<AccessToken> tokens = new ArrayList<>();
+		int lineNumber = 0;
+		try {
+			BufferedReader reader = new BufferedReader(
+					new InputStreamReader(in, StandardCharsets.UTF_8));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (!line.trim().isEmpty()) {
+					tokens.add(parse(line));
+				}
+			}
+			return tokens;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read access tokens, at line " + lineNumber, e);
+		} catch (OrcidClientException e) {
+			throw new OrcidClientException("Failed to parse the access token "
+					+ "at line " + lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Read the fields straight from the parser, skipping any others. Every
+	 * field must be present, but only "expires_in" must have a value: a
+	 * number.
+	 */
+	private static AccessToken read(JsonParser parser, String jsonString)
+			throws IOException, OrcidClientException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new OrcidClientException(
+					"Can't parse AccessToken. JSON is not an object.");
+		}
+		String token = null;
+		String type = null;
+		String refreshToken = null;
+		Long expiresIn = null;
+		String scope = null;
+		String name = null;
+		String orcid = null;
+		boolean foundToken = false;
+		boolean foundType = false;
+		boolean foundRefreshToken = false;
+		boolean foundScope = false;
+		boolean foundName = false;
+		boolean foundOrcid = false;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+			case "access_token":
+				token = parser.getValueAsString();
+				foundToken = true;
+				break;
+			case "token_type":
+				type = parser.getValueAsString();
+				foundType = true;
+				break;
+			case "refresh_token":
+				refreshToken = parser.getValueAsString();
+				foundRefreshToken = true;
+				break;
+			case "expires_in":
+				if (!value.isNumeric()) {
+					throw new OrcidClientException("Can't parse AccessToken. "
+							+ "The value for 'expires_in' is not a number: "
+							+ parser.getText());
+				}
+				expiresIn = parser.getLongValue();
+				break;
+			case "scope":
+				scope = parser.getValueAsString();
+				foundScope = true;
+				break;
+			case "name":
+				name = parser.getValueAsString();
+				foundName = true;
+				break;
+			case "orcid":
+				orcid = parser.getValueAsString();
+				foundOrcid = true;
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+
+		require(foundToken, "access_token");
+		require(foundType, "token_type");
+		require(foundRefreshToken, "refresh_token");
+		require(expiresIn != null, "expires_in");
+		require(foundScope, "scope");
+		require(foundName, "name");
+		require(foundOrcid, "orcid");
+		return new AccessToken(jsonString, token, type, refreshToken,
+				expiresIn, ApiScope.parse(scope), name, orcid);
+	}
+
+	private static void require(boolean found, String key)
+			throws OrcidClientException {
+		if (!found) {
+			throw new OrcidClientException("Can't parse AccessToken. "
+					+ "JSON contains no value for '" + key + "'");
+		}
+	}
+
 	// ----------------------------------------------------------------------
 	// The instance
 	// ----------------------------------------------------------------------
@@ -60,34 +180,6 @@ public class AccessToken {
 	private final String name;
 	private final String orcid;
 
-	private AccessToken(String jsonString)
-			throws IOException, OrcidClientException {
-		this.jsonString = jsonString;
-
-		Map<String, Object> map = new ObjectMapper().readValue(jsonString,
-				new TypeReference<HashMap<String, Object>>() {
-					// instantiate the abstract class
-				});
-		this.token = getJsonValue(map, "access_token");
-		this.type = getJsonValue(map, "token_type");
-		this.refreshToken = getJsonValue(map, "refresh_token");
-		this.expiresIn = this.<Integer>getJsonValue(map, "expires_in");
-		this.scope = ApiScope.parse(getJsonValue(map, "scope"));
-		this.name = getJsonValue(map, "name");
-		this.orcid = getJsonValue(map, "orcid");
-	}
-
-	@SuppressWarnings("unchecked")
-	private <T> T getJsonValue(Map<String, Object> map, String key)
-			throws OrcidClientException {
-		if (!map.containsKey(key)) {
-			throw new OrcidClientException("Can't parse AccessToken. "
-					+ "JSON contains no value for '" + key + "'");
-		} else {
-			return (T) map.get(key);
-		}
-	}
-
 	private AccessToken() {
 		this.jsonString = "\"NO_JSON_STRING\"";
 		this.token = "NO_TOKEN";
@@ -0,0 +1,286 @@
+package edu.cornell.library.orcidclient.auth;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.util.FileUtil;
+
+/**
+ * A MultiUserAccessTokenCache, kept in an append-only file.
+ *
+ * Every token is held in memory, indexed by ORCID iD and scope. Adding a token
+ * appends its JSON to the file, as one line. Removing a token appends a line
+ * with "-", the ORCID iD and the scope, separated by tabs. When the file is
+ * read, the later lines win.
+ *
+ * When most of the lines in the file are obsolete, it is compacted: written
+ * again, with one line for each token, and moved over the old one.
+ *
+ * A line cut short by a crash is ignored when the file is read. Lines are
+ * written straight to the file; call sync() to force them to the disk.
+ */
+public class AccessTokenCacheLogImpl
+		implements MultiUserAccessTokenCache, Closeable {
+	private static final Log log = LogFactory
+			.getLog(AccessTokenCacheLogImpl.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final String REMOVE_PREFIX = "-\t";
+
+	public static final int DEFAULT_MIN_RECORDS_TO_COMPACT = 10000;
+
+	private final Path path;
+	private final int minRecordsToCompact;
+	private final ConcurrentMap<String, AccessToken> index = new ConcurrentHashMap<>();
+
+	/** Guarded by this. */
+	private FileOutputStream stream;
+	private Writer out;
+	private long records;
+
+	public AccessTokenCacheLogImpl(Path path) throws OrcidClientException {
+		this(path, DEFAULT_MIN_RECORDS_TO_COMPACT);
+	}
+
+	/**
+	 * The file is compacted when it holds at least minRecordsToCompact lines,
+	 * and more than twice as many lines as tokens.
+	 */
+	public AccessTokenCacheLogImpl(Path path, int minRecordsToCompact)
+			throws OrcidClientException {
+		this.path = path;
+		this.minRecordsToCompact = minRecordsToCompact;
+		load();
+		open();
+		log.info("Loaded " + index.size() + " access tokens from " + path);
+	}
+
+	private void load() throws OrcidClientException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (BufferedReader in = Files.newBufferedReader(path,
+				StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				records++;
+				try {
+					apply(line);
+				} catch (OrcidClientException | RuntimeException e) {
+					log.warn("Ignoring a damaged line in " + path + ": '"
+							+ line + "'");
+				}
+			}
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read the access tokens from " + path, e);
+		}
+	}
+
+	private void apply(String line) throws OrcidClientException {
+		if (line.startsWith(REMOVE_PREFIX)) {
+			String[] parts = line.split("\t");
+			index.remove(key(parts[1], ApiScope.parse(parts[2])));
+		} else {
+			AccessToken token = AccessToken.parse(line);
+			index.put(key(token.getOrcid(), token.getScope()), token);
+		}
+	}
+
+	private void open() throws OrcidClientException {
+		try {
+			FileUtil.endTornLine(path);
+			stream = new FileOutputStream(path.toFile(), true);
+			out = new BufferedWriter(
+					new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to open the access token file " + path, e);
+		}
+	}
+
+	private static String key(String orcid, ApiScope scope) {
+		return orcid + "\t" + scope;
+	}
+
+	// ----------------------------------------------------------------------
+	// The cache
+	// ----------------------------------------------------------------------
+
+	@Override
+	public void addAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		String line = toLine(accessToken);
+		synchronized (this) {
+			append(line);
+			index.put(key(accessToken.getOrcid(), accessToken.getScope()),
+					accessToken);
+			compactIfNeeded();
+		}
+	}
+
+	@Override
+	public AccessToken getToken(String orcid, ApiScope scope) {
+		return index.get(key(orcid, scope));
+	}
+
+	/**
+	 * Remove the token, unless it has already been replaced by another.
+	 */
+	@Override
+	public void removeAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		String key = key(accessToken.getOrcid(), accessToken.getScope());
+		synchronized (this) {
+			AccessToken current = index.get(key);
+			if (current == null
+					|| !current.getToken().equals(accessToken.getToken())) {
+				return;
+			}
+			append(REMOVE_PREFIX + accessToken.getOrcid() + "\t"
+					+ accessToken.getScope().getScope());
+			index.remove(key);
+			compactIfNeeded();
+		}
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public Iterator<AccessToken> iterator() {
+		return Collections.unmodifiableCollection(index.values()).iterator();
+	}
+
+	/** A snapshot of the tokens, in no particular order. */
+	public List<AccessToken> getAccessTokens() {
+		return new ArrayList<>(index.values());
+	}
+
+	// ----------------------------------------------------------------------
+	// The file
+	// ----------------------------------------------------------------------
+
+	private void append(String line) throws OrcidClientException {
+		try {
+			out.write(line);
+			out.write('\n');
+			out.flush();
+			records++;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to write to the access token file " + path, e);
+		}
+	}
+
+	/**
+	 * The line holds the fields of the token, in the form that ORCID sent
+	 * them, so AccessToken.parse() can read it.
+	 */
+	private static String toLine(AccessToken token)
+			throws OrcidClientException {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("access_token", token.getToken());
+		map.put("token_type", token.getType());
+		map.put("refresh_token", token.getRefreshToken());
+		map.put("expires_in", token.getExpiresIn());
+		map.put("scope", token.getScope().getScope());
+		map.put("name", token.getName());
+		map.put("orcid", token.getOrcid());
+		try {
+			return MAPPER.writeValueAsString(map);
+		} catch (JsonProcessingException e) {
+			throw new OrcidClientException("Failed to serialize " + token, e);
+		}
+	}
+
+	private void compactIfNeeded() throws OrcidClientException {
+		if (records >= minRecordsToCompact && records > 2L * index.size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrite the file with one line for each token.
+	 */
+	public synchronized void compact() throws OrcidClientException {
+		List<String> lines = new ArrayList<>();
+		for (AccessToken token : index.values()) {
+			lines.add(toLine(token));
+		}
+		long count = lines.size();
+		try {
+			try {
+				FileUtil.replaceText(path, out, tempOut -> {
+					for (String line : lines) {
+						tempOut.write(line);
+						tempOut.write('\n');
+					}
+				});
+			} finally {
+				// Closing twice does no harm.
+				out.close();
+				open();
+			}
+			log.debug("Compacted " + path + " from " + records + " lines to "
+					+ count);
+			records = count;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to compact the access token file " + path, e);
+		}
+	}
+
+	/**
+	 * Force the lines written so far to the disk.
+	 */
+	public synchronized void sync() throws OrcidClientException {
+		try {
+			out.flush();
+			stream.getFD().sync();
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to sync the access token file " + path, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	@Override
+	public String toString() {
+		return "AccessTokenCacheLogImpl[path=" + path + ", tokens="
+				+ index.size() + "]";
+	}
+}
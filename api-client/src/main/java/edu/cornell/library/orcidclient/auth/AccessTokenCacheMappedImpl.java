@@ -0,0 +1,535 @@
+package edu.cornell.library.orcidclient.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.util.FileUtil;
+
+/**
+ * A MultiUserAccessTokenCache, kept in a memory-mapped file.
+ *
+ * The file is a hash table of fixed-size slots, one for each token, keyed by
+ * ORCID iD and scope. Opening the file maps it, and reads one byte from each
+ * slot; no token is parsed until it is asked for. A lookup probes the slots in
+ * place, comparing the ORCID iD byte by byte; only the token that is found is
+ * copied onto the heap.
+ *
+ * Each slot holds the access token, refresh token, token type, expiry, scope,
+ * ORCID iD and name. The tokens must fit in their slots; a name that does not
+ * fit is shortened. The JSON that ORCID sent is not kept, so the tokens from
+ * this cache return "{}" from getJsonString().
+ *
+ * When the table is more than 70% full, it is copied into a new file, usually
+ * twice the size, which is moved over the old one.
+ *
+ * Changes are written to the mapped memory, and reach the disk when the
+ * operating system chooses, or when sync() is called.
+ */
+public class AccessTokenCacheMappedImpl
+		implements MultiUserAccessTokenCache, Closeable {
+	private static final Log log = LogFactory
+			.getLog(AccessTokenCacheMappedImpl.class);
+
+	public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	private static final long MAGIC = 0x4f52434944544f4bL; // "ORCIDTOK"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int HEADER_CAPACITY = 12;
+
+	private static final byte EMPTY = 0;
+	private static final byte LIVE = 1;
+	private static final byte REMOVED = 2;
+
+	private static final int ORCID_LENGTH = 19;
+	private static final int TOKEN_LENGTH = 63;
+	private static final int TYPE_LENGTH = 15;
+	private static final int NAME_LENGTH = 127;
+
+	private static final int STATE = 0;
+	private static final int SCOPE = 1;
+	private static final int ORCID = 2;
+	private static final int EXPIRES_IN = ORCID + ORCID_LENGTH;
+	private static final int TOKEN = EXPIRES_IN + 8;
+	private static final int REFRESH_TOKEN = TOKEN + 1 + TOKEN_LENGTH;
+	private static final int TYPE = REFRESH_TOKEN + 1 + TOKEN_LENGTH;
+	private static final int NAME = TYPE + 1 + TYPE_LENGTH;
+	private static final int SLOT_SIZE = 320;
+
+	private static final ApiScope[] SCOPES = ApiScope.values();
+
+	private final Path path;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Guarded by lock. */
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int capacity;
+	private int live;
+	private int used;
+
+	public AccessTokenCacheMappedImpl(Path path) throws OrcidClientException {
+		this(path, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * If the file does not exist, create it with room for this many slots,
+	 * rounded up to a power of two.
+	 */
+	public AccessTokenCacheMappedImpl(Path path, int initialCapacity)
+			throws OrcidClientException {
+		this.path = path;
+		try {
+			if (!Files.exists(path) || Files.size(path) == 0) {
+				create(path, Integer.highestOneBit(
+						Math.max(16, initialCapacity - 1)) << 1);
+			}
+			map();
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to open the access token file " + path, e);
+		}
+		log.info("Mapped " + live + " access tokens from " + path);
+	}
+
+	private static void create(Path file, int capacity) throws IOException {
+		try (FileChannel out = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer header = out.map(MapMode.READ_WRITE, 0,
+					fileSize(capacity));
+			header.putLong(0, MAGIC);
+			header.putInt(8, VERSION);
+			header.putInt(HEADER_CAPACITY, capacity);
+			header.force();
+		}
+	}
+
+	private static long fileSize(int capacity) {
+		return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+	}
+
+	private void map() throws IOException, OrcidClientException {
+		channel = FileChannel.open(path, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (channel.size() < HEADER_SIZE) {
+			channel.close();
+			throw new OrcidClientException(
+					"Not an access token file: " + path);
+		}
+		MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0,
+				HEADER_SIZE);
+		if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION) {
+			channel.close();
+			throw new OrcidClientException(
+					"Not an access token file, or the wrong version: " + path);
+		}
+		capacity = header.getInt(HEADER_CAPACITY);
+		if (capacity < 1 || Integer.bitCount(capacity) != 1
+				|| channel.size() != fileSize(capacity)) {
+			channel.close();
+			throw new OrcidClientException("The access token file " + path
+					+ " is the wrong size for " + capacity + " slots.");
+		}
+		buffer = channel.map(MapMode.READ_WRITE, 0, fileSize(capacity));
+
+		// Count the slots, rather than trust counts that a crash could leave
+		// wrong. This reads only one byte per slot.
+		live = 0;
+		used = 0;
+		for (int slot = 0; slot < capacity; slot++) {
+			byte state = buffer.get(slotOffset(slot) + STATE);
+			if (state != EMPTY) {
+				used++;
+			}
+			if (state == LIVE) {
+				live++;
+			}
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// The cache
+	// ----------------------------------------------------------------------
+
+	@Override
+	public AccessToken getToken(String orcid, ApiScope scope) {
+		lock.readLock().lock();
+		try {
+			int slot = find(orcid, scope);
+			return (slot < 0) ? null : read(slotOffset(slot));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void addAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		checkFits(accessToken);
+		lock.writeLock().lock();
+		try {
+			int slot = find(accessToken.getOrcid(), accessToken.getScope());
+			if (slot >= 0) {
+				// Mark the slot, so a crash while writing loses the token
+				// rather than mixing two.
+				buffer.put(slotOffset(slot) + STATE, REMOVED);
+				write(slotOffset(slot), accessToken);
+				return;
+			}
+			if (used + 1 > capacity * 7L / 10) {
+				rebuild();
+			}
+			slot = findFree(accessToken.getOrcid(), accessToken.getScope());
+			if (buffer.get(slotOffset(slot) + STATE) == EMPTY) {
+				used++;
+			}
+			live++;
+			write(slotOffset(slot), accessToken);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove the token, unless it has already been replaced by another.
+	 */
+	@Override
+	public void removeAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		lock.writeLock().lock();
+		try {
+			int slot = find(accessToken.getOrcid(), accessToken.getScope());
+			if (slot < 0 || !accessToken.getToken()
+					.equals(readString(slotOffset(slot) + TOKEN))) {
+				return;
+			}
+			buffer.put(slotOffset(slot) + STATE, REMOVED);
+			live--;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return live;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Walk the slots, reading each token as it is reached. If the table is
+	 * rebuilt meanwhile, the walk continues in the new table, so some tokens
+	 * may be missed, or seen twice.
+	 */
+	@Override
+	public Iterator<AccessToken> iterator() {
+		return new Iterator<AccessToken>() {
+			private int slot = -1;
+			private AccessToken next = advance();
+
+			private AccessToken advance() {
+				lock.readLock().lock();
+				try {
+					while (++slot < capacity) {
+						if (buffer.get(slotOffset(slot) + STATE) == LIVE) {
+							return read(slotOffset(slot));
+						}
+					}
+					return null;
+				} finally {
+					lock.readLock().unlock();
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public AccessToken next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				AccessToken current = next;
+				next = advance();
+				return current;
+			}
+		};
+	}
+
+	/** A snapshot of the tokens, in no particular order. */
+	public List<AccessToken> getAccessTokens() {
+		lock.readLock().lock();
+		try {
+			List<AccessToken> tokens = new ArrayList<>(live);
+			for (int slot = 0; slot < capacity; slot++) {
+				if (buffer.get(slotOffset(slot) + STATE) == LIVE) {
+					tokens.add(read(slotOffset(slot)));
+				}
+			}
+			return tokens;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Force the changes so far to the disk.
+	 */
+	public void sync() {
+		lock.readLock().lock();
+		try {
+			buffer.force();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			buffer.force();
+			channel.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AccessTokenCacheMappedImpl[path=" + path + ", tokens=" + live
+				+ ", capacity=" + capacity + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// The hash table
+	// ----------------------------------------------------------------------
+
+	private static int hash(String orcid, ApiScope scope) {
+		int h = scope.ordinal();
+		for (int i = 0; i < orcid.length(); i++) {
+			h = 31 * h + orcid.charAt(i);
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static int slotOffset(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	/**
+	 * The slot that holds this token, or -1.
+	 */
+	private int find(String orcid, ApiScope scope) {
+		if (orcid == null || orcid.length() != ORCID_LENGTH || scope == null) {
+			return -1;
+		}
+		int mask = capacity - 1;
+		int slot = hash(orcid, scope) & mask;
+		for (int i = 0; i < capacity; i++) {
+			int offset = slotOffset(slot);
+			byte state = buffer.get(offset + STATE);
+			if (state == EMPTY) {
+				return -1;
+			}
+			if (state == LIVE && matches(offset, orcid, scope)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * The first slot in the probe sequence that is empty or removed. There is
+	 * always one, because the table is never full.
+	 */
+	private int findFree(String orcid, ApiScope scope) {
+		int mask = capacity - 1;
+		int slot = hash(orcid, scope) & mask;
+		while (buffer.get(slotOffset(slot) + STATE) == LIVE) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private boolean matches(int offset, String orcid, ApiScope scope) {
+		if (buffer.get(offset + SCOPE) != scope.ordinal()) {
+			return false;
+		}
+		for (int i = 0; i < ORCID_LENGTH; i++) {
+			if (buffer.get(offset + ORCID + i) != orcid.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copy the live tokens into a new file, and move it over this one. The new
+	 * file has twice as many slots, unless removed tokens were taking up much
+	 * of the room.
+	 */
+	private void rebuild() throws OrcidClientException {
+		int newCapacity = (live + 1 > capacity * 7L / 20) ? capacity * 2
+				: capacity;
+		if (fileSize(newCapacity) > Integer.MAX_VALUE) {
+			throw new OrcidClientException(
+					"The access token file " + path + " is full.");
+		}
+		try {
+			buffer.force();
+			FileUtil.replace(path, channel,
+					temp -> copyLiveTokens(temp, newCapacity));
+			map();
+			log.debug("Rebuilt " + path + " with " + capacity + " slots.");
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to rebuild the access token file " + path, e);
+		}
+	}
+
+	/**
+	 * Closing the new cache forces its file to the disk.
+	 */
+	private void copyLiveTokens(Path temp, int newCapacity)
+			throws IOException {
+		create(temp, newCapacity);
+		try (AccessTokenCacheMappedImpl bigger = new AccessTokenCacheMappedImpl(
+				temp, newCapacity)) {
+			for (int slot = 0; slot < capacity; slot++) {
+				if (buffer.get(slotOffset(slot) + STATE) == LIVE) {
+					bigger.addAccessToken(read(slotOffset(slot)));
+				}
+			}
+		} catch (OrcidClientException e) {
+			throw new IOException(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// The slots
+	// ----------------------------------------------------------------------
+
+	private static void checkFits(AccessToken token)
+			throws OrcidClientException {
+		if (token.getOrcid() == null
+				|| token.getOrcid().length() != ORCID_LENGTH) {
+			throw new OrcidClientException(
+					"Not a valid ORCID iD: '" + token.getOrcid() + "'");
+		}
+		if (token.getScope() == null) {
+			throw new OrcidClientException("The token has no scope: " + token);
+		}
+		checkLength("access token", token.getToken(), TOKEN_LENGTH);
+		checkLength("refresh token", token.getRefreshToken(), TOKEN_LENGTH);
+		checkLength("token type", token.getType(), TYPE_LENGTH);
+	}
+
+	private static void checkLength(String what, String value, int max)
+			throws OrcidClientException {
+		if (value != null
+				&& value.getBytes(StandardCharsets.UTF_8).length > max) {
+			throw new OrcidClientException("The " + what
+					+ " is too long to store: more than " + max + " bytes.");
+		}
+	}
+
+	/**
+	 * The state is written last, so a slot is not live until it is complete.
+	 */
+	private void write(int offset, AccessToken token) {
+		buffer.put(offset + SCOPE, (byte) token.getScope().ordinal());
+		for (int i = 0; i < ORCID_LENGTH; i++) {
+			buffer.put(offset + ORCID + i, (byte) token.getOrcid().charAt(i));
+		}
+		buffer.putLong(offset + EXPIRES_IN, token.getExpiresIn());
+		writeString(offset + TOKEN, token.getToken(), TOKEN_LENGTH);
+		writeString(offset + REFRESH_TOKEN, token.getRefreshToken(),
+				TOKEN_LENGTH);
+		writeString(offset + TYPE, token.getType(), TYPE_LENGTH);
+		writeString(offset + NAME, shorten(token.getName()), NAME_LENGTH);
+		buffer.put(offset + STATE, LIVE);
+	}
+
+	/**
+	 * A length byte, then the UTF-8 bytes. A null is stored as length 255.
+	 */
+	private void writeString(int offset, String value, int max) {
+		if (value == null) {
+			buffer.put(offset, (byte) 0xFF);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.put(offset, (byte) bytes.length);
+		for (int i = 0; i < bytes.length && i < max; i++) {
+			buffer.put(offset + 1 + i, bytes[i]);
+		}
+	}
+
+	private static String shorten(String name) {
+		if (name == null) {
+			return null;
+		}
+		String s = name;
+		while (s.getBytes(StandardCharsets.UTF_8).length > NAME_LENGTH) {
+			s = s.substring(0, s.length() - 1);
+		}
+		return s;
+	}
+
+	private AccessToken read(int offset) {
+		String orcid = readAscii(offset + ORCID, ORCID_LENGTH);
+		ApiScope scope = SCOPES[buffer.get(offset + SCOPE)];
+		return new AccessToken("{}", readString(offset + TOKEN),
+				readString(offset + TYPE), readString(offset + REFRESH_TOKEN),
+				buffer.getLong(offset + EXPIRES_IN), scope,
+				readString(offset + NAME), orcid);
+	}
+
+	private String readString(int offset) {
+		int length = buffer.get(offset) & 0xFF;
+		if (length == 0xFF) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(offset + 1 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private String readAscii(int offset, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) buffer.get(offset + i);
+		}
+		return new String(chars);
+	}
+}
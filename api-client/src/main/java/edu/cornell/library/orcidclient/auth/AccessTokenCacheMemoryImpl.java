@@ -0,0 +1,60 @@
+package edu.cornell.library.orcidclient.auth;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * A MultiUserAccessTokenCache that is held only in memory.
+ *
+ * The tokens are in a ConcurrentHashMap, so threads that work with different
+ * ORCID records do not wait for each other. Each change locks only the entry
+ * it changes.
+ */
+public class AccessTokenCacheMemoryImpl implements MultiUserAccessTokenCache {
+	private final ConcurrentMap<String, AccessToken> index = new ConcurrentHashMap<>();
+
+	private static String key(String orcid, ApiScope scope) {
+		return orcid + "\t" + scope;
+	}
+
+	@Override
+	public void addAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		index.put(key(accessToken.getOrcid(), accessToken.getScope()),
+				accessToken);
+	}
+
+	@Override
+	public AccessToken getToken(String orcid, ApiScope scope) {
+		return index.get(key(orcid, scope));
+	}
+
+	@Override
+	public void removeAccessToken(AccessToken accessToken)
+			throws OrcidClientException {
+		index.computeIfPresent(
+				key(accessToken.getOrcid(), accessToken.getScope()),
+				(key, current) -> current.getToken()
+						.equals(accessToken.getToken()) ? null : current);
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public Iterator<AccessToken> iterator() {
+		return Collections.unmodifiableCollection(index.values()).iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "AccessTokenCacheMemoryImpl[tokens=" + index.size() + "]";
+	}
+}
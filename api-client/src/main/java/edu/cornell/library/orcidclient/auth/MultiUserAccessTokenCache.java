@@ -0,0 +1,94 @@
+package edu.cornell.library.orcidclient.auth;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * Store access tokens for many ORCID records, and retrieve them by ORCID iD
+ * and scope.
+ *
+ * Unlike AccessTokenCache, which holds the tokens of a single user, this is
+ * meant for batch jobs that work on behalf of many researchers. Use forOrcid()
+ * where an AccessTokenCache is needed.
+ *
+ * Iterating over the cache sees the tokens in no particular order. It does not
+ * fail if the cache is changed meanwhile, but may or may not see the changes.
+ */
+public interface MultiUserAccessTokenCache extends Iterable<AccessToken> {
+	/**
+	 * Add this access token to the cache, replacing any previous access token
+	 * with the same ORCID iD and scope.
+	 */
+	void addAccessToken(AccessToken accessToken) throws OrcidClientException;
+
+	/**
+	 * Get the access token for this ORCID iD and scope, if one is available.
+	 * Otherwise, return null.
+	 */
+	AccessToken getToken(String orcid, ApiScope scope)
+			throws OrcidClientException;
+
+	/**
+	 * Get the access tokens for these ORCID iDs and this scope. The map holds
+	 * only the iDs that have tokens, in the order they were given.
+	 */
+	default Map<String, AccessToken> getTokens(Collection<String> orcids,
+			ApiScope scope) throws OrcidClientException {
+		Map<String, AccessToken> tokens = new LinkedHashMap<>();
+		for (String orcid : orcids) {
+			AccessToken token = getToken(orcid, scope);
+			if (token != null) {
+				tokens.put(orcid, token);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Remove this access token from the cache. If it has been replaced by
+	 * another token for the same ORCID iD and scope, or if the cache does not
+	 * contain it, this has no effect.
+	 */
+	void removeAccessToken(AccessToken accessToken) throws OrcidClientException;
+
+	/** How many tokens are in the cache. */
+	int size();
+
+	/**
+	 * An AccessTokenCache that holds only the tokens of this ORCID iD, for
+	 * code that works on behalf of one user. Its tokens are kept in this
+	 * cache. A token for a different ORCID iD cannot be added to it.
+	 */
+	default AccessTokenCache forOrcid(String orcid) {
+		MultiUserAccessTokenCache cache = this;
+		return new AccessTokenCache() {
+			@Override
+			public void addAccessToken(AccessToken accessToken)
+					throws OrcidClientException {
+				if (!orcid.equals(accessToken.getOrcid())) {
+					throw new OrcidClientException("This cache holds tokens for "
+							+ orcid + ", not for " + accessToken.getOrcid());
+				}
+				cache.addAccessToken(accessToken);
+			}
+
+			@Override
+			public AccessToken getToken(ApiScope scope)
+					throws OrcidClientException {
+				return cache.getToken(orcid, scope);
+			}
+
+			@Override
+			public void removeAccessToken(AccessToken accessToken)
+					throws OrcidClientException {
+				if (orcid.equals(accessToken.getOrcid())) {
+					cache.removeAccessToken(accessToken);
+				}
+			}
+		};
+	}
+}
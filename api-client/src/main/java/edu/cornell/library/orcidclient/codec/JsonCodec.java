@@ -0,0 +1,103 @@
+package edu.cornell.library.orcidclient.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * The JSON format, using Jackson.
+ * 
+ * The orcid-model classes are annotated for JAXB, so Jackson reads those
+ * annotations to get the names of the fields: "put-code", "external-ids", and
+ * so on. Where a class has Jackson annotations, they take precedence. The enums
+ * use them, to appear as "JOURNAL_ARTICLE" rather than "journal-article", as
+ * the API expects.
+ * 
+ * Unknown fields are ignored, so a newer API version won't break the reads.
+ */
+public class JsonCodec implements OrcidCodec {
+	private static final Log log = LogFactory.getLog(JsonCodec.class);
+
+	public static final JsonCodec INSTANCE = new JsonCodec();
+
+	public static final String MEDIA_TYPE = "application/vnd.orcid+json";
+
+	/** Thread-safe, once configured. */
+	private final ObjectMapper mapper;
+
+	private JsonCodec() {
+		mapper = new ObjectMapper();
+		mapper.setAnnotationIntrospector(AnnotationIntrospector.pair(
+				new JacksonAnnotationIntrospector(),
+				new JaxbAnnotationIntrospector(mapper.getTypeFactory())));
+		mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+				false);
+		mapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+	}
+
+	@Override
+	public String getMediaType() {
+		return MEDIA_TYPE;
+	}
+
+	@Override
+	public <T> T decode(String message, Class<T> clazz)
+			throws OrcidClientException {
+		try {
+			T element = mapper.readValue(message, clazz);
+			if (log.isDebugEnabled()) {
+				log.debug("decode string=" + message + "\n, message="
+						+ element);
+			}
+			return element;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to decode the message '" + message + "'", e);
+		}
+	}
+
+	@Override
+	public <T> T decode(InputStream in, Class<T> clazz)
+			throws OrcidClientException {
+		try {
+			T element = mapper.readValue(in, clazz);
+			if (log.isDebugEnabled()) {
+				log.debug("decode stream, message=" + element);
+			}
+			return element;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to decode the message stream as "
+							+ clazz.getName(),
+					e);
+		}
+	}
+
+	@Override
+	public String encode(Object element) throws OrcidClientException {
+		try {
+			return mapper.writeValueAsString(element);
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to encode the JSON for '" + element + "'", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "JsonCodec";
+	}
+}
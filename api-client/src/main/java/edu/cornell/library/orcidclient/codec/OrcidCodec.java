@@ -0,0 +1,28 @@
+package edu.cornell.library.orcidclient.codec;
+
+import java.io.InputStream;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * Converts the orcid-model classes to and from one of the message formats
+ * that the ORCID API accepts.
+ * 
+ * The actions use the XmlCodec unless told otherwise.
+ */
+public interface OrcidCodec {
+	/**
+	 * The media type to use in Accept and Content-Type headers.
+	 */
+	String getMediaType();
+
+	<T> T decode(String message, Class<T> clazz) throws OrcidClientException;
+
+	/**
+	 * Decode the message as it is read from the stream. The stream is not
+	 * closed.
+	 */
+	<T> T decode(InputStream in, Class<T> clazz) throws OrcidClientException;
+
+	String encode(Object element) throws OrcidClientException;
+}
@@ -0,0 +1,46 @@
+package edu.cornell.library.orcidclient.codec;
+
+import java.io.InputStream;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * The XML format, using JAXB through OrcidXmlUtil.
+ */
+public class XmlCodec implements OrcidCodec {
+	public static final XmlCodec INSTANCE = new XmlCodec();
+
+	public static final String MEDIA_TYPE = "application/vnd.orcid+xml";
+
+	private XmlCodec() {
+		// Use the instance.
+	}
+
+	@Override
+	public String getMediaType() {
+		return MEDIA_TYPE;
+	}
+
+	@Override
+	public <T> T decode(String message, Class<T> clazz)
+			throws OrcidClientException {
+		return OrcidXmlUtil.unmarshall(message, clazz);
+	}
+
+	@Override
+	public <T> T decode(InputStream in, Class<T> clazz)
+			throws OrcidClientException {
+		return OrcidXmlUtil.unmarshall(in, clazz);
+	}
+
+	@Override
+	public String encode(Object element) throws OrcidClientException {
+		return OrcidXmlUtil.marshall(element);
+	}
+
+	@Override
+	public String toString() {
+		return "XmlCodec";
+	}
+}
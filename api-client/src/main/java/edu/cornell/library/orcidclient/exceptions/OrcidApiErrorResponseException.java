@@ -4,9 +4,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.orcid.jaxb.model.error_v2.OrcidError;
 
+import edu.cornell.library.orcidclient.codec.JsonCodec;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
 import edu.cornell.library.orcidclient.http.HttpWrapper;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
-import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
 
 /**
  * Indicates that the API returned an error response.
@@ -27,7 +29,7 @@ public class OrcidApiErrorResponseException extends OrcidClientException {
 
 		String content = cause.getResponseContent();
 		try {
-			OrcidError error = OrcidXmlUtil.unmarshall(content,
+			OrcidError error = codecFor(content).decode(content,
 					OrcidError.class);
 			this.developerMessage = error.getDeveloperMessage();
 			this.errorCode = error.getErrorCode().intValue();
@@ -38,6 +40,17 @@ public class OrcidApiErrorResponseException extends OrcidClientException {
 		}
 	}
 
+	/**
+	 * The error comes back as XML or JSON, depending on the request.
+	 */
+	private static OrcidCodec codecFor(String content) {
+		if (content != null && content.trim().startsWith("{")) {
+			return JsonCodec.INSTANCE;
+		} else {
+			return XmlCodec.INSTANCE;
+		}
+	}
+
 	@Override
 	public synchronized HttpStatusCodeException getCause() {
 		return (HttpStatusCodeException) super.getCause();
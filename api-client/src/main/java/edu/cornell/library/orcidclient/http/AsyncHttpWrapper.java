@@ -0,0 +1,347 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Consts;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicNameValuePair;
+
+import edu.cornell.library.orcidclient.http.PooledHttpWrapper.FallbackKeepAliveStrategy;
+import edu.cornell.library.orcidclient.http.PooledHttpWrapper.Settings;
+
+/**
+ * Use the non-blocking client of HttpComponents to implement HttpWrapper.
+ *
+ * executeAsync() does not tie up the calling thread: the request is handed to
+ * a small pool of I/O dispatch threads, and the future completes when the
+ * response has arrived. execute() simply waits for the future.
+ *
+ * The future is completed on the completion Executor, not on the I/O thread,
+ * so the stages that depend on it (unmarshalling a response, for example) do
+ * not hold up the other connections served by that thread. By default, this
+ * is the common ForkJoinPool.
+ *
+ * The Settings are the same as for the PooledHttpWrapper, except that
+ * maxIdleTime, connectionTimeToLive and validateAfterInactivity are not
+ * applied to the non-blocking client. Those settings are ignored.
+ *
+ * Like the PooledHttpWrapper, a single instance should be shared for the life
+ * of the application, and closed on shutdown.
+ */
+public class AsyncHttpWrapper implements HttpWrapper, Closeable {
+	private static final Log log = LogFactory.getLog(AsyncHttpWrapper.class);
+
+	private final CloseableHttpAsyncClient httpClient;
+	private final Executor completionExecutor;
+
+	public AsyncHttpWrapper() {
+		this(new Settings());
+	}
+
+	public AsyncHttpWrapper(Settings settings) {
+		this(settings, ForkJoinPool.commonPool());
+	}
+
+	public AsyncHttpWrapper(Settings settings, Executor completionExecutor) {
+		this.completionExecutor = completionExecutor;
+
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(settings.connectTimeout)
+				.setSocketTimeout(settings.socketTimeout)
+				.setConnectionRequestTimeout(
+						settings.connectionRequestTimeout)
+				.build();
+
+		IOReactorConfig reactorConfig = IOReactorConfig.custom()
+				.setIoThreadCount(settings.ioThreadCount)
+				.setConnectTimeout(settings.connectTimeout)
+				.setSoTimeout(settings.socketTimeout)
+				.setSoKeepAlive(true)
+				.setTcpNoDelay(settings.tcpNoDelay).build();
+
+		this.httpClient = HttpAsyncClients.custom() //
+				.setDefaultIOReactorConfig(reactorConfig) //
+				.setDefaultRequestConfig(requestConfig) //
+				.setMaxConnTotal(settings.maxTotal) //
+				.setMaxConnPerRoute(settings.maxPerRoute) //
+				.setKeepAliveStrategy(
+						new FallbackKeepAliveStrategy(settings.keepAlive)) //
+				.build();
+		this.httpClient.start();
+		log.debug("Created with " + settings);
+	}
+
+	@Override
+	public AsyncGetRequest createGetRequest(String url) {
+		return new AsyncGetRequest(url);
+	}
+
+	@Override
+	public AsyncPostRequest createPostRequest(String url) {
+		return new AsyncPostRequest(url);
+	}
+
+	@Override
+	public AsyncPutRequest createPutRequest(String url) {
+		return new AsyncPutRequest(url);
+	}
+
+	@Override
+	public AsyncDeleteRequest createDeleteRequest(String url) {
+		return new AsyncDeleteRequest(url);
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The behavior that is common to all request types.
+	 */
+	private abstract class AsyncRequest {
+		protected final String url;
+		protected final Map<String, String> headers = new LinkedHashMap<>();
+
+		public AsyncRequest(String url) {
+			this.url = url;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		protected abstract HttpRequestBase createInnerRequest();
+
+		public CompletableFuture<HttpResponse> executeAsync() {
+			HttpRequestBase request = createInnerRequest();
+			for (String headerName : headers.keySet()) {
+				request.addHeader(headerName, headers.get(headerName));
+			}
+
+			CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+			httpClient.execute(request,
+					new ResponseCallback(future, completionExecutor));
+			return future;
+		}
+
+		public HttpResponse execute()
+				throws IOException, HttpStatusCodeException {
+			try {
+				return executeAsync().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for " + url);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof HttpStatusCodeException) {
+					throw (HttpStatusCodeException) cause;
+				} else if (cause instanceof IOException) {
+					throw (IOException) cause;
+				} else {
+					throw new IOException(cause);
+				}
+			}
+		}
+	}
+
+	public class AsyncGetRequest extends AsyncRequest implements GetRequest {
+		public AsyncGetRequest(String url) {
+			super(url);
+		}
+
+		@Override
+		public AsyncGetRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		protected HttpRequestBase createInnerRequest() {
+			return new HttpGet(url);
+		}
+	}
+
+	public class AsyncPostRequest extends AsyncRequest implements PostRequest {
+		private final Map<String, String> formFields = new LinkedHashMap<>();
+		private String bodyString;
+
+		public AsyncPostRequest(String url) {
+			super(url);
+		}
+
+		@Override
+		public AsyncPostRequest addFormField(String key, String value) {
+			formFields.put(key, value);
+			return this;
+		}
+
+		@Override
+		public AsyncPostRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public AsyncPostRequest setBodyString(String body) {
+			this.bodyString = body;
+			return this;
+		}
+
+		/**
+		 * Like the BasePostRequest, a body string replaces any form fields.
+		 */
+		@Override
+		protected HttpRequestBase createInnerRequest() {
+			HttpPost post = new HttpPost(url);
+			if (bodyString != null) {
+				setBody(post, bodyString);
+			} else {
+				List<NameValuePair> pairs = new ArrayList<>();
+				for (String fieldName : formFields.keySet()) {
+					pairs.add(new BasicNameValuePair(fieldName,
+							formFields.get(fieldName)));
+				}
+				post.setEntity(
+						new UrlEncodedFormEntity(pairs, Consts.ISO_8859_1));
+			}
+			return post;
+		}
+	}
+
+	public class AsyncPutRequest extends AsyncRequest implements PutRequest {
+		private String bodyString;
+
+		public AsyncPutRequest(String url) {
+			super(url);
+		}
+
+		@Override
+		public AsyncPutRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public AsyncPutRequest setBodyString(String body) {
+			this.bodyString = body;
+			return this;
+		}
+
+		@Override
+		protected HttpRequestBase createInnerRequest() {
+			HttpPut put = new HttpPut(url);
+			if (bodyString != null) {
+				setBody(put, bodyString);
+			}
+			return put;
+		}
+	}
+
+	public class AsyncDeleteRequest extends AsyncRequest
+			implements DeleteRequest {
+		public AsyncDeleteRequest(String url) {
+			super(url);
+		}
+
+		@Override
+		public AsyncDeleteRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		protected HttpRequestBase createInnerRequest() {
+			return new HttpDelete(url);
+		}
+	}
+
+	/**
+	 * Use the same content type as the Fluent requests do. An explicit
+	 * Content-Type header will override it.
+	 */
+	private static void setBody(HttpEntityEnclosingRequestBase request,
+			String body) {
+		request.setEntity(
+				new StringEntity(body, ContentType.APPLICATION_FORM_URLENCODED));
+	}
+
+	/**
+	 * Complete the future when the response arrives, by handing it off to the
+	 * completion Executor. If the Executor refuses, complete it here, rather
+	 * than leave it incomplete.
+	 */
+	private static class ResponseCallback
+			implements FutureCallback<org.apache.http.HttpResponse> {
+		private final CompletableFuture<HttpResponse> future;
+		private final Executor completionExecutor;
+
+		public ResponseCallback(CompletableFuture<HttpResponse> future,
+				Executor completionExecutor) {
+			this.future = future;
+			this.completionExecutor = completionExecutor;
+		}
+
+		@Override
+		public void completed(org.apache.http.HttpResponse innerResponse) {
+			handOff(() -> {
+				try {
+					future.complete(new BaseHttpResponse(innerResponse));
+				} catch (IOException | HttpStatusCodeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		}
+
+		@Override
+		public void failed(Exception e) {
+			handOff(() -> future.completeExceptionally(e));
+		}
+
+		@Override
+		public void cancelled() {
+			handOff(() -> future.cancel(false));
+		}
+
+		private void handOff(Runnable completion) {
+			try {
+				completionExecutor.execute(completion);
+			} catch (RejectedExecutionException e) {
+				log.warn("Completion executor refused the response: " + e);
+				completion.run();
+			}
+		}
+	}
+}
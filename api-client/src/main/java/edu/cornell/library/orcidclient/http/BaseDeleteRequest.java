@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
 
 import edu.cornell.library.orcidclient.http.HttpWrapper.DeleteRequest;
@@ -13,10 +14,16 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
  * Use the Fluent library of HttpComponents to implement HttpWrapper.
  */
 public class BaseDeleteRequest implements DeleteRequest {
+	private final Executor executor;
 	private final String url;
 	private final Map<String, String> headers = new HashMap<>();
 
 	public BaseDeleteRequest(String url) {
+		this(Executor.newInstance(), url);
+	}
+
+	public BaseDeleteRequest(Executor executor, String url) {
+		this.executor = executor;
 		this.url = url;
 	}
 
@@ -39,6 +46,6 @@ public class BaseDeleteRequest implements DeleteRequest {
 			request = request.addHeader(headerName, headers.get(headerName));
 		}
 
-		return new BaseHttpResponse(request.execute());
+		return new BaseHttpResponse(executor.execute(request));
 	}
 }
@@ -4,8 +4,10 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
 
+import edu.cornell.library.orcidclient.http.HttpWrapper.ContentHandler;
 import edu.cornell.library.orcidclient.http.HttpWrapper.GetRequest;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
@@ -14,10 +16,16 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
  * Use the Fluent library of HttpComponents to implement HttpWrapper.
  */
 public class BaseGetRequest implements GetRequest {
+	private final Executor executor;
 	private final String url;
 	private final Map<String, String> headers = new HashMap<>();
 
 	public BaseGetRequest(String url) {
+		this(Executor.newInstance(), url);
+	}
+
+	public BaseGetRequest(Executor executor, String url) {
+		this.executor = executor;
 		this.url = url;
 	}
 
@@ -34,12 +42,25 @@ public class BaseGetRequest implements GetRequest {
 
 	@Override
 	public HttpResponse execute() throws IOException, HttpStatusCodeException {
+		return new BaseHttpResponse(executor.execute(createRequest()));
+	}
+
+	/**
+	 * The handler reads directly from the connection.
+	 */
+	@Override
+	public <T> T execute(ContentHandler<T> handler)
+			throws IOException, HttpStatusCodeException {
+		return BaseHttpResponse.handleStreaming(executor.execute(createRequest()),
+				handler);
+	}
+
+	private Request createRequest() {
 		Request request = Request.Get(url);
 		for (String headerName : headers.keySet()) {
 			request = request.addHeader(headerName, headers.get(headerName));
 		}
-
-		return new BaseHttpResponse(request.execute());
+		return request;
 	}
 
 }
@@ -1,12 +1,14 @@
 package edu.cornell.library.orcidclient.http;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+import org.apache.commons.io.input.ClosedInputStream;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.StatusLine;
@@ -15,6 +17,7 @@ import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.fluent.Response;
 import org.apache.http.util.EntityUtils;
 
+import edu.cornell.library.orcidclient.http.HttpWrapper.ContentHandler;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
 import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
 
@@ -30,17 +33,93 @@ public class BaseHttpResponse implements HttpResponse {
 	public BaseHttpResponse(Response response)
 			throws IOException, HttpStatusCodeException {
 		response.handleResponse(new BaseResponseHandler());
+		checkStatusCode();
+	}
+
+	/**
+	 * For a response that has already been received, like the ones from the
+	 * asynchronous client.
+	 */
+	public BaseHttpResponse(org.apache.http.HttpResponse innerResponse)
+			throws IOException, HttpStatusCodeException {
+		readInnerResponse(innerResponse);
+		checkStatusCode();
+	}
+
+	/**
+	 * For a response whose content is passed to a ContentHandler.
+	 */
+	private BaseHttpResponse() {
+		// Fields are set by the StreamingResponseHandler.
+	}
+
+	/**
+	 * Pass the content of the response to the handler as it arrives, instead
+	 * of reading it into a String. An error response is read as usual, and
+	 * the handler is not called.
+	 */
+	static <T> T handleStreaming(Response response, ContentHandler<T> handler)
+			throws IOException, HttpStatusCodeException {
+		try {
+			return response
+					.handleResponse(new StreamingResponseHandler<>(handler));
+		} catch (StatusCodeFailure e) {
+			throw e.getCause();
+		}
+	}
+
+	private void readInnerResponse(org.apache.http.HttpResponse innerResponse)
+			throws IOException {
+		readStatusAndHeaders(innerResponse);
+
+		HttpEntity entity = innerResponse.getEntity();
+		if (entity == null) {
+			contentString = "";
+		} else {
+			contentString = EntityUtils.toString(entity);
+		}
+	}
+
+	private void readStatusAndHeaders(
+			org.apache.http.HttpResponse innerResponse) {
+		StatusLine statusLine = innerResponse.getStatusLine();
+		statusCode = statusLine.getStatusCode();
+		reasonPhrase = statusLine.getReasonPhrase();
+
+		// Header names are not case-sensitive.
+		Map<String, List<String>> headers = new TreeMap<>(
+				String.CASE_INSENSITIVE_ORDER);
+		for (Header header : innerResponse.getAllHeaders()) {
+			String name = header.getName();
+			if (!headers.containsKey(name)) {
+				headers.put(name, new ArrayList<>());
+			}
+			headers.get(name).add(header.getValue());
+		}
+		headerValues = headers;
+	}
+
+	private void checkStatusCode() throws HttpStatusCodeException {
 		if (statusCode >= 400) {
 			throw new HttpStatusCodeException(reasonPhrase, statusCode,
-					contentString);
+					contentString, headerValues);
 		}
 	}
 
 	@Override
 	public String getContentString() throws IOException {
+		if (contentString == null) {
+			throw new IOException(
+					"The content of this response was passed to a ContentHandler.");
+		}
 		return contentString;
 	}
 
+	@Override
+	public int getStatusCode() {
+		return statusCode;
+	}
+
 	@Override
 	public List<String> getHeaderValues(String key) throws IOException {
 		if (headerValues.containsKey(key)) {
@@ -54,27 +133,55 @@ public class BaseHttpResponse implements HttpResponse {
 		@Override
 		public Object handleResponse(org.apache.http.HttpResponse innerResponse)
 				throws ClientProtocolException, IOException {
-			StatusLine statusLine = innerResponse.getStatusLine();
-			statusCode = statusLine.getStatusCode();
-			reasonPhrase = statusLine.getReasonPhrase();
-
-			Map<String, List<String>> headers = new HashMap<>();
-			for (Header header : innerResponse.getAllHeaders()) {
-				String name = header.getName();
-				if (!headers.containsKey(name)) {
-					headers.put(name, new ArrayList<>());
+			readInnerResponse(innerResponse);
+			return "";
+		}
+	}
+
+	private static class StreamingResponseHandler<T>
+			implements ResponseHandler<T> {
+		private final ContentHandler<T> handler;
+
+		public StreamingResponseHandler(ContentHandler<T> handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public T handleResponse(org.apache.http.HttpResponse innerResponse)
+				throws ClientProtocolException, IOException {
+			BaseHttpResponse response = new BaseHttpResponse();
+			response.readStatusAndHeaders(innerResponse);
+			if (response.statusCode >= 400) {
+				response.readInnerResponse(innerResponse);
+				try {
+					response.checkStatusCode();
+				} catch (HttpStatusCodeException e) {
+					throw new StatusCodeFailure(e);
 				}
-				headers.get(name).add(header.getValue());
 			}
-			headerValues = headers;
 
 			HttpEntity entity = innerResponse.getEntity();
 			if (entity == null) {
-				contentString = "";
-			} else {
-				contentString = EntityUtils.toString(entity);
+				return handler.handle(response, ClosedInputStream.CLOSED_INPUT_STREAM);
 			}
-			return "";
+			try (InputStream content = entity.getContent()) {
+				return handler.handle(response, content);
+			}
+		}
+	}
+
+	/**
+	 * A ResponseHandler may only throw IOExceptions, so smuggle the
+	 * HttpStatusCodeException out inside one.
+	 */
+	private static class StatusCodeFailure extends IOException {
+		public StatusCodeFailure(HttpStatusCodeException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized HttpStatusCodeException getCause() {
+			return (HttpStatusCodeException) super.getCause();
 		}
 	}
 }
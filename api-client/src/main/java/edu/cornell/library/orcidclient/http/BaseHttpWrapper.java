@@ -1,28 +1,43 @@
 package edu.cornell.library.orcidclient.http;
 
+import org.apache.http.client.fluent.Executor;
+
 /**
  * Use the Fluent library of HttpComponents to implement HttpWrapper.
+ *
+ * By default, requests go through the Fluent library's shared HttpClient. To
+ * control pooling, keep-alive and timeouts, supply an Executor that wraps a
+ * configured HttpClient, or use a PooledHttpWrapper.
  */
 public class BaseHttpWrapper implements HttpWrapper {
+	private final Executor executor;
+
+	public BaseHttpWrapper() {
+		this(Executor.newInstance());
+	}
+
+	public BaseHttpWrapper(Executor executor) {
+		this.executor = executor;
+	}
 
 	@Override
 	public GetRequest createGetRequest(String url) {
-		return new BaseGetRequest(url);
+		return new BaseGetRequest(executor, url);
 	}
 
 	@Override
 	public PostRequest createPostRequest(String url) {
-		return new BasePostRequest(url);
+		return new BasePostRequest(executor, url);
 	}
 
 	@Override
 	public PutRequest createPutRequest(String url) {
-		return  new BasePutRequest(url);
+		return new BasePutRequest(executor, url);
 	}
 
 	@Override
 	public DeleteRequest createDeleteRequest(String url) {
-		return  new BaseDeleteRequest(url);
+		return new BaseDeleteRequest(executor, url);
 	}
-	
+
 }
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.http.client.fluent.Form;
+import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
 import org.apache.http.entity.ContentType;
 
@@ -15,12 +16,18 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.PostRequest;
  * Use the Fluent library of HttpComponents to implement HttpWrapper.
  */
 public class BasePostRequest implements PostRequest {
+	private final Executor executor;
 	private final String url;
 	private final Map<String, String> formFields = new HashMap<>();
 	private final Map<String, String> headers = new HashMap<>();
 	private String bodyString;
 
 	public BasePostRequest(String url) {
+		this(Executor.newInstance(), url);
+	}
+
+	public BasePostRequest(Executor executor, String url) {
+		this.executor = executor;
 		this.url = url;
 	}
 
@@ -66,6 +73,6 @@ public class BasePostRequest implements PostRequest {
 					ContentType.APPLICATION_FORM_URLENCODED);
 		}
 
-		return new BaseHttpResponse(request.execute());
+		return new BaseHttpResponse(executor.execute(request));
 	}
 }
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
 import org.apache.http.entity.ContentType;
 
@@ -14,11 +15,17 @@ import edu.cornell.library.orcidclient.http.HttpWrapper.PutRequest;
  * Use the Fluent library of HttpComponents to implement HttpWrapper.
  */
 public class BasePutRequest implements PutRequest {
+	private final Executor executor;
 	private final String url;
 	private final Map<String, String> headers = new HashMap<>();
 	private String bodyString;
 
 	public BasePutRequest(String url) {
+		this(Executor.newInstance(), url);
+	}
+
+	public BasePutRequest(Executor executor, String url) {
+		this.executor = executor;
 		this.url = url;
 	}
 
@@ -52,6 +59,6 @@ public class BasePutRequest implements PutRequest {
 					ContentType.APPLICATION_FORM_URLENCODED);
 		}
 
-		return new BaseHttpResponse(request.execute());
+		return new BaseHttpResponse(executor.execute(request));
 	}
 }
@@ -0,0 +1,265 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Watches the outcomes of the requests to one endpoint, and stops sending
+ * requests when too many of them fail, or are too slow.
+ *
+ * CLOSED: requests are allowed. The last windowSize outcomes are remembered.
+ * If enough of them failed, or were slow, the breaker opens.
+ *
+ * OPEN: requests are refused, until openDuration has passed. Then the breaker
+ * is half-open.
+ *
+ * HALF_OPEN: a few probe requests are allowed. If they all succeed, the
+ * breaker closes. If any fails, it opens again.
+ *
+ * Each change of state starts a new generation, and tryAcquire() returns the
+ * current one as a permit. An outcome is counted only in the generation that
+ * permitted its request, so a request that started before the breaker opened
+ * is not mistaken for a probe.
+ */
+public class CircuitBreaker {
+	private static final Log log = LogFactory.getLog(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/** Returned by tryAcquire() when the request is refused. */
+	public static final long REFUSED = -1;
+
+	private final String name;
+	private final Settings settings;
+	private final LongSupplier nanoClock;
+
+	private State state = State.CLOSED;
+	private long generation;
+	private long openedAt;
+	private int probesStarted;
+	private int probesSucceeded;
+
+	/** Ring buffers of the recent outcomes. */
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int next;
+	private int count;
+
+	private long timesOpened;
+	private long refused;
+
+	public CircuitBreaker(String name, Settings settings) {
+		this(name, settings, System::nanoTime);
+	}
+
+	/** The clock is replaced for testing. */
+	CircuitBreaker(String name, Settings settings, LongSupplier nanoClock) {
+		this.name = name;
+		this.settings = settings;
+		this.nanoClock = nanoClock;
+		this.failed = new boolean[settings.windowSize];
+		this.slow = new boolean[settings.windowSize];
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * May a request be sent now? If not, return REFUSED. If so, return a
+	 * permit, and the outcome must be recorded with it.
+	 */
+	public synchronized long tryAcquire() {
+		if (state == State.OPEN) {
+			long elapsed = nanoClock.getAsLong() - openedAt;
+			if (elapsed < TimeUnit.MILLISECONDS
+					.toNanos(settings.openDuration)) {
+				refused++;
+				return REFUSED;
+			}
+			transition(State.HALF_OPEN);
+			probesStarted = 0;
+			probesSucceeded = 0;
+		}
+		if (state == State.HALF_OPEN) {
+			if (probesStarted >= settings.halfOpenProbes) {
+				refused++;
+				return REFUSED;
+			}
+			probesStarted++;
+		}
+		return generation;
+	}
+
+	/**
+	 * Record the outcome of a request that was allowed by tryAcquire(). If
+	 * the state has changed since the permit was issued, it is ignored.
+	 */
+	public synchronized void record(long permit, boolean failure,
+			long elapsedNanos) {
+		if (permit != generation) {
+			return;
+		}
+		boolean tooSlow = elapsedNanos > TimeUnit.MILLISECONDS
+				.toNanos(settings.slowCallDuration);
+		switch (state) {
+		case HALF_OPEN:
+			if (failure || tooSlow) {
+				open();
+			} else if (++probesSucceeded >= settings.halfOpenProbes) {
+				transition(State.CLOSED);
+				count = 0;
+				next = 0;
+			}
+			break;
+		case CLOSED:
+			failed[next] = failure;
+			slow[next] = tooSlow;
+			next = (next + 1) % failed.length;
+			count = Math.min(count + 1, failed.length);
+			if (count >= settings.minimumCalls
+					&& (rate(failed) >= settings.failureRateThreshold
+							|| rate(slow) >= settings.slowCallRateThreshold)) {
+				open();
+			}
+			break;
+		default:
+			// No permits are issued while open.
+			break;
+		}
+	}
+
+	private double rate(boolean[] outcomes) {
+		if (count == 0) {
+			return 0.0;
+		}
+		int hits = 0;
+		for (int i = 0; i < count; i++) {
+			if (outcomes[i]) {
+				hits++;
+			}
+		}
+		return (double) hits / count;
+	}
+
+	private void open() {
+		transition(State.OPEN);
+		openedAt = nanoClock.getAsLong();
+		timesOpened++;
+	}
+
+	private void transition(State newState) {
+		if (state != newState) {
+			log.warn("Circuit breaker '" + name + "': " + state + " -> "
+					+ newState);
+			state = newState;
+			generation++;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/** The fraction of recent requests that failed, while closed. */
+	public synchronized double getFailureRate() {
+		return rate(failed);
+	}
+
+	/** The fraction of recent requests that were slow, while closed. */
+	public synchronized double getSlowCallRate() {
+		return rate(slow);
+	}
+
+	/** How many times the breaker has opened. */
+	public synchronized long getTimesOpened() {
+		return timesOpened;
+	}
+
+	/** How many requests have been refused. */
+	public synchronized long getRefusedCount() {
+		return refused;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(
+				"CircuitBreaker[name=%s, state=%s, failureRate=%.2f, "
+						+ "slowCallRate=%.2f, timesOpened=%d, refused=%d]",
+				name, state, rate(failed), rate(slow), timesOpened, refused);
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The thresholds for the breaker. All times are in milliseconds.
+	 */
+	public static class Settings {
+		int windowSize = 20;
+		int minimumCalls = 10;
+		double failureRateThreshold = 0.5;
+		long slowCallDuration = 10000;
+		double slowCallRateThreshold = 0.8;
+		long openDuration = 30000;
+		int halfOpenProbes = 2;
+
+		/** How many recent outcomes to consider. */
+		public Settings setWindowSize(int windowSize) {
+			this.windowSize = windowSize;
+			return this;
+		}
+
+		/** Don't open until at least this many outcomes are known. */
+		public Settings setMinimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+			return this;
+		}
+
+		/** Open when this fraction of the recent requests failed. */
+		public Settings setFailureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+			return this;
+		}
+
+		/** A request that takes longer than this is slow. */
+		public Settings setSlowCallDuration(long slowCallDuration) {
+			this.slowCallDuration = slowCallDuration;
+			return this;
+		}
+
+		/** Open when this fraction of the recent requests was slow. */
+		public Settings setSlowCallRateThreshold(double slowCallRateThreshold) {
+			this.slowCallRateThreshold = slowCallRateThreshold;
+			return this;
+		}
+
+		/** How long to refuse requests before probing. */
+		public Settings setOpenDuration(long openDuration) {
+			this.openDuration = openDuration;
+			return this;
+		}
+
+		/** How many probes must succeed to close the breaker. */
+		public Settings setHalfOpenProbes(int halfOpenProbes) {
+			this.halfOpenProbes = halfOpenProbes;
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return "Settings[windowSize=" + windowSize + ", minimumCalls="
+					+ minimumCalls + ", failureRateThreshold="
+					+ failureRateThreshold + ", slowCallDuration="
+					+ slowCallDuration + ", slowCallRateThreshold="
+					+ slowCallRateThreshold + ", openDuration=" + openDuration
+					+ ", halfOpenProbes=" + halfOpenProbes + "]";
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Keep a CircuitBreaker for each base URL, and refuse requests while it is
+ * open, rather than waiting for an ailing server to time out.
+ *
+ * The base URLs are typically those of the OrcidClientContext:
+ *
+ * <pre>
+ * new CircuitBreakerHttpWrapper(inner, settings, context.getApiPublicUrl(),
+ * 		context.getApiMemberUrl(), context.getAccessTokenRequestUrl());
+ * </pre>
+ *
+ * A request is governed by the breaker for the longest base URL that it starts
+ * with. Requests to other URLs are passed through.
+ *
+ * A refused request fails with a CircuitOpenException. An IOException, a 5xx
+ * status, or a response slower than the threshold counts as a failure. Other
+ * error statuses are the caller's problem, not the server's, and so is a
+ * LocalFailure, like a response that could not be decoded.
+ */
+public class CircuitBreakerHttpWrapper extends InterceptingHttpWrapper {
+	private final Map<String, CircuitBreaker> breakers;
+
+	public CircuitBreakerHttpWrapper(HttpWrapper inner,
+			CircuitBreaker.Settings settings, String... baseUrls) {
+		super(inner);
+		Map<String, CircuitBreaker> map = new LinkedHashMap<>();
+		for (String baseUrl : baseUrls) {
+			map.put(baseUrl, new CircuitBreaker(baseUrl, settings));
+		}
+		this.breakers = Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * The breakers, by base URL, for monitoring.
+	 */
+	public Map<String, CircuitBreaker> getBreakers() {
+		return breakers;
+	}
+
+	private CircuitBreaker breakerFor(RequestInfo request) {
+		CircuitBreaker found = null;
+		int foundLength = -1;
+		for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+			String baseUrl = entry.getKey();
+			if (request.getUrl().startsWith(baseUrl)
+					&& baseUrl.length() > foundLength) {
+				found = entry.getValue();
+				foundLength = baseUrl.length();
+			}
+		}
+		return found;
+	}
+
+	@Override
+	protected <R> R intercept(RequestInfo request, Call<R> call)
+			throws IOException, HttpStatusCodeException {
+		CircuitBreaker breaker = breakerFor(request);
+		if (breaker == null) {
+			return call.execute();
+		}
+		long permit = breaker.tryAcquire();
+		if (permit == CircuitBreaker.REFUSED) {
+			throw new CircuitOpenException(breaker, request);
+		}
+
+		long start = System.nanoTime();
+		boolean failure = true;
+		try {
+			R result = call.execute();
+			failure = false;
+			return result;
+		} catch (HttpStatusCodeException e) {
+			failure = isServerError(e);
+			throw e;
+		} catch (IOException e) {
+			failure = !(e instanceof LocalFailure);
+			throw e;
+		} finally {
+			breaker.record(permit, failure, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	protected CompletableFuture<HttpResponse> interceptAsync(
+			RequestInfo request, AsyncCall call) {
+		CircuitBreaker breaker = breakerFor(request);
+		if (breaker == null) {
+			return call.execute();
+		}
+		long permit = breaker.tryAcquire();
+		if (permit == CircuitBreaker.REFUSED) {
+			return AsyncUtil.failed(new CircuitOpenException(breaker, request));
+		}
+
+		long start = System.nanoTime();
+		CompletableFuture<HttpResponse> future;
+		try {
+			future = call.execute();
+		} catch (RuntimeException e) {
+			breaker.record(permit, true, System.nanoTime() - start);
+			return AsyncUtil.failed(e);
+		}
+		return future.whenComplete((response, t) -> {
+			Throwable cause = (t == null) ? null : AsyncUtil.unwrap(t);
+			boolean failure = (cause != null)
+					&& !(cause instanceof LocalFailure)
+					&& !(cause instanceof HttpStatusCodeException
+							&& !isServerError((HttpStatusCodeException) cause));
+			breaker.record(permit, failure, System.nanoTime() - start);
+		});
+	}
+
+	private static boolean isServerError(HttpStatusCodeException e) {
+		return e.getStatusCode() >= 500;
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerHttpWrapper[" + breakers.values() + ", inner="
+				+ inner + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The request was not sent, because the breaker is open.
+	 *
+	 * An IOException, so the actions treat it like any other failure to reach
+	 * the server. A LocalFailure, so it is not retried.
+	 */
+	public static class CircuitOpenException extends IOException
+			implements LocalFailure {
+		private final CircuitBreaker.State state;
+
+		public CircuitOpenException(CircuitBreaker breaker,
+				RequestInfo request) {
+			super("Circuit breaker for '" + breaker.getName() + "' is "
+					+ breaker.getState() + "; refused " + request);
+			this.state = breaker.getState();
+		}
+
+		public CircuitBreaker.State getState() {
+			return state;
+		}
+	}
+}
@@ -1,10 +1,21 @@
 package edu.cornell.library.orcidclient.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A simple abstraction of HTTP GET and POST requests and responses.
+ * 
+ * Each request may be executed synchronously, or asynchronously. Unless an
+ * implementation says otherwise, executeAsync() simply calls execute() on the
+ * calling thread, and returns a future that is already complete.
  */
 public interface HttpWrapper {
 	GetRequest createGetRequest(String url);
@@ -21,6 +32,26 @@ public interface HttpWrapper {
 		GetRequest addHeader(String key, String value);
 
 		HttpResponse execute() throws IOException, HttpStatusCodeException;
+
+		default CompletableFuture<HttpResponse> executeAsync() {
+			return executeNow(this::execute);
+		}
+
+		/**
+		 * Execute the request, and pass the content to the handler as a
+		 * stream. An implementation that can read directly from the
+		 * connection should override this. By default, the content is read
+		 * into a String, as with execute().
+		 * 
+		 * If the status code indicates an error, the handler is not called.
+		 */
+		default <T> T execute(ContentHandler<T> handler)
+				throws IOException, HttpStatusCodeException {
+			HttpResponse response = execute();
+			byte[] bytes = response.getContentString()
+					.getBytes(StandardCharsets.UTF_8);
+			return handler.handle(response, new ByteArrayInputStream(bytes));
+		}
 	}
 
 	interface PostRequest {
@@ -33,6 +64,10 @@ public interface HttpWrapper {
 		PostRequest setBodyString(String body);
 
 		HttpResponse execute() throws IOException, HttpStatusCodeException;
+
+		default CompletableFuture<HttpResponse> executeAsync() {
+			return executeNow(this::execute);
+		}
 	}
 
 	interface PutRequest {
@@ -43,6 +78,10 @@ public interface HttpWrapper {
 		PutRequest setBodyString(String body);
 
 		HttpResponse execute() throws IOException, HttpStatusCodeException;
+
+		default CompletableFuture<HttpResponse> executeAsync() {
+			return executeNow(this::execute);
+		}
 	}
 
 	interface DeleteRequest {
@@ -51,12 +90,63 @@ public interface HttpWrapper {
 		DeleteRequest addHeader(String key, String value);
 
 		HttpResponse execute() throws IOException, HttpStatusCodeException;
+
+		default CompletableFuture<HttpResponse> executeAsync() {
+			return executeNow(this::execute);
+		}
 	}
 
 	interface HttpResponse {
 		String getContentString() throws IOException;
 
 		List<String> getHeaderValues(String key) throws IOException;
+
+		/**
+		 * Error codes cause an HttpStatusCodeException, so this is only
+		 * interesting for codes like 304 (Not Modified). An implementation
+		 * that can't tell should say 200.
+		 */
+		default int getStatusCode() {
+			return 200;
+		}
+	}
+
+	/**
+	 * Consumes the content of a response as a stream. The response provides
+	 * the headers; its content has been (or is being) delivered by the
+	 * stream, so don't ask for it again.
+	 */
+	interface ContentHandler<T> {
+		T handle(HttpResponse response, InputStream content)
+				throws IOException;
+	}
+
+	interface Execution {
+		HttpResponse execute() throws IOException, HttpStatusCodeException;
+	}
+
+	/**
+	 * Run the execution on this thread, and return the result (or the
+	 * exception) as a completed future.
+	 */
+	static CompletableFuture<HttpResponse> executeNow(Execution execution) {
+		CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+		try {
+			future.complete(execution.execute());
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Marks an IOException that was not caused by the server or the network:
+	 * the request was refused before it was sent, or a ContentHandler could
+	 * not use a response that arrived intact. Trying again will not help, and
+	 * it says nothing about the health of the server.
+	 */
+	interface LocalFailure {
+		// Only a marker.
 	}
 
 	public static class HttpWrapperException extends Exception {
@@ -76,6 +166,7 @@ public interface HttpWrapper {
 	public static class HttpStatusCodeException extends HttpWrapperException {
 		private final int statusCode;
 		private final String responseContent;
+		private final Map<String, List<String>> headers;
 
 		public HttpStatusCodeException(String message, int statusCode) {
 			this(message, statusCode, "");
@@ -83,9 +174,21 @@ public interface HttpWrapper {
 		
 		public HttpStatusCodeException(String message, int statusCode,
 				String responseContent) {
+			this(message, statusCode, responseContent,
+					Collections.emptyMap());
+		}
+
+		/**
+		 * The headers may be needed to decide what to do next: Retry-After on
+		 * a 429 (Too Many Requests), for example.
+		 */
+		public HttpStatusCodeException(String message, int statusCode,
+				String responseContent, Map<String, List<String>> headers) {
 			super(message + ": statusCode=" + statusCode);
 			this.statusCode = statusCode;
 			this.responseContent = responseContent;
+			this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			this.headers.putAll(headers);
 		}
 
 		public int getStatusCode() {
@@ -95,6 +198,11 @@ public interface HttpWrapper {
 		public String getResponseContent() {
 			return responseContent;
 		}
+
+		public List<String> getHeaderValues(String key) {
+			List<String> values = headers.get(key);
+			return (values == null) ? Collections.emptyList() : values;
+		}
 	}
 
 }
@@ -0,0 +1,291 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An HttpWrapper that passes each request to another HttpWrapper, and lets a
+ * subclass act around each execution: to delay it, repeat it, or refuse it.
+ *
+ * The requests record their headers, form fields and body. Each time the
+ * request is executed, a fresh request is created from the inner wrapper, so
+ * the subclass may execute it as many times as it likes.
+ *
+ * These wrappers may be stacked, like this:
+ *
+ * <pre>
+ * new RetryingHttpWrapper(new RateLimitingHttpWrapper(new PooledHttpWrapper(), ...), ...)
+ * </pre>
+ */
+public abstract class InterceptingHttpWrapper implements HttpWrapper {
+	protected final HttpWrapper inner;
+
+	public InterceptingHttpWrapper(HttpWrapper inner) {
+		this.inner = inner;
+	}
+
+	/**
+	 * Execute the call, in whatever way the subclass requires. The call may
+	 * return a response, or the result of a ContentHandler.
+	 */
+	protected abstract <R> R intercept(RequestInfo request, Call<R> call)
+			throws IOException, HttpStatusCodeException;
+
+	/**
+	 * Like intercept(), but without blocking the calling thread.
+	 */
+	protected abstract CompletableFuture<HttpResponse> interceptAsync(
+			RequestInfo request, AsyncCall call);
+
+	@Override
+	public GetRequest createGetRequest(String url) {
+		return new InterceptedGetRequest(url);
+	}
+
+	@Override
+	public PostRequest createPostRequest(String url) {
+		return new InterceptedPostRequest(url);
+	}
+
+	@Override
+	public PutRequest createPutRequest(String url) {
+		return new InterceptedPutRequest(url);
+	}
+
+	@Override
+	public DeleteRequest createDeleteRequest(String url) {
+		return new InterceptedDeleteRequest(url);
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	public enum Method {
+		GET, POST, PUT, DELETE;
+
+		/** May the request be repeated without changing the outcome? */
+		public boolean isIdempotent() {
+			return this != POST;
+		}
+	}
+
+	/**
+	 * One execution of the request.
+	 */
+	public interface Call<R> {
+		R execute() throws IOException, HttpStatusCodeException;
+	}
+
+	/**
+	 * One execution of the request, without blocking.
+	 */
+	public interface AsyncCall {
+		CompletableFuture<HttpResponse> execute();
+	}
+
+	/**
+	 * What the subclass may know about the request.
+	 */
+	public static class RequestInfo {
+		private final Method method;
+		private final String url;
+		private final Map<String, String> headers;
+
+		public RequestInfo(Method method, String url,
+				Map<String, String> headers) {
+			this.method = method;
+			this.url = url;
+			this.headers = Collections
+					.unmodifiableMap(new LinkedHashMap<>(headers));
+		}
+
+		public Method getMethod() {
+			return method;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public Map<String, String> getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public String toString() {
+			return method + " " + url;
+		}
+	}
+
+	/**
+	 * The behavior that is common to all request types.
+	 */
+	private abstract class InterceptedRequest {
+		protected final Method method;
+		protected final String url;
+		protected final Map<String, String> headers = new LinkedHashMap<>();
+
+		public InterceptedRequest(Method method, String url) {
+			this.method = method;
+			this.url = url;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		protected RequestInfo info() {
+			return new RequestInfo(method, url, headers);
+		}
+
+		public HttpResponse execute()
+				throws IOException, HttpStatusCodeException {
+			return intercept(info(), () -> createInnerRequest().call.execute());
+		}
+
+		public CompletableFuture<HttpResponse> executeAsync() {
+			return interceptAsync(info(),
+					() -> createInnerRequest().asyncCall.execute());
+		}
+
+		protected abstract Executable createInnerRequest();
+	}
+
+	/**
+	 * The inner request types have no common ancestor.
+	 */
+	private static class Executable {
+		final Call<HttpResponse> call;
+		final AsyncCall asyncCall;
+
+		Executable(Call<HttpResponse> call, AsyncCall asyncCall) {
+			this.call = call;
+			this.asyncCall = asyncCall;
+		}
+	}
+
+	private class InterceptedGetRequest extends InterceptedRequest
+			implements GetRequest {
+		public InterceptedGetRequest(String url) {
+			super(Method.GET, url);
+		}
+
+		@Override
+		public GetRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public <T> T execute(ContentHandler<T> handler)
+				throws IOException, HttpStatusCodeException {
+			return intercept(info(), () -> createGetRequest().execute(handler));
+		}
+
+		private GetRequest createGetRequest() {
+			GetRequest request = inner.createGetRequest(url);
+			headers.forEach(request::addHeader);
+			return request;
+		}
+
+		@Override
+		protected Executable createInnerRequest() {
+			GetRequest request = createGetRequest();
+			return new Executable(request::execute, request::executeAsync);
+		}
+	}
+
+	private class InterceptedPostRequest extends InterceptedRequest
+			implements PostRequest {
+		private final Map<String, String> formFields = new LinkedHashMap<>();
+		private String bodyString;
+
+		public InterceptedPostRequest(String url) {
+			super(Method.POST, url);
+		}
+
+		@Override
+		public PostRequest addFormField(String key, String value) {
+			formFields.put(key, value);
+			return this;
+		}
+
+		@Override
+		public PostRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public PostRequest setBodyString(String body) {
+			this.bodyString = body;
+			return this;
+		}
+
+		@Override
+		protected Executable createInnerRequest() {
+			PostRequest request = inner.createPostRequest(url);
+			headers.forEach(request::addHeader);
+			formFields.forEach(request::addFormField);
+			if (bodyString != null) {
+				request.setBodyString(bodyString);
+			}
+			return new Executable(request::execute, request::executeAsync);
+		}
+	}
+
+	private class InterceptedPutRequest extends InterceptedRequest
+			implements PutRequest {
+		private String bodyString;
+
+		public InterceptedPutRequest(String url) {
+			super(Method.PUT, url);
+		}
+
+		@Override
+		public PutRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public PutRequest setBodyString(String body) {
+			this.bodyString = body;
+			return this;
+		}
+
+		@Override
+		protected Executable createInnerRequest() {
+			PutRequest request = inner.createPutRequest(url);
+			headers.forEach(request::addHeader);
+			if (bodyString != null) {
+				request.setBodyString(bodyString);
+			}
+			return new Executable(request::execute, request::executeAsync);
+		}
+	}
+
+	private class InterceptedDeleteRequest extends InterceptedRequest
+			implements DeleteRequest {
+		public InterceptedDeleteRequest(String url) {
+			super(Method.DELETE, url);
+		}
+
+		@Override
+		public DeleteRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		protected Executable createInnerRequest() {
+			DeleteRequest request = inner.createDeleteRequest(url);
+			headers.forEach(request::addHeader);
+			return new Executable(request::execute, request::executeAsync);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * A BaseHttpWrapper whose requests share a pool of keep-alive connections.
+ *
+ * A long-running application should create one instance, use it for all of
+ * its ORCID requests, and close it on shutdown. Warm connections are re-used,
+ * so a long series of requests to the same host pays for the TCP and TLS
+ * handshakes only once per pooled connection.
+ */
+public class PooledHttpWrapper extends BaseHttpWrapper implements Closeable {
+	private static final Log log = LogFactory.getLog(PooledHttpWrapper.class);
+
+	private final CloseableHttpClient httpClient;
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	public PooledHttpWrapper() {
+		this(new Settings());
+	}
+
+	public PooledHttpWrapper(Settings settings) {
+		this(settings, createConnectionManager(settings));
+	}
+
+	private PooledHttpWrapper(Settings settings,
+			PoolingHttpClientConnectionManager connectionManager) {
+		this(connectionManager, createHttpClient(settings, connectionManager));
+	}
+
+	private PooledHttpWrapper(
+			PoolingHttpClientConnectionManager connectionManager,
+			CloseableHttpClient httpClient) {
+		super(Executor.newInstance(httpClient));
+		this.connectionManager = connectionManager;
+		this.httpClient = httpClient;
+		log.debug("Created: " + this);
+	}
+
+	private static PoolingHttpClientConnectionManager createConnectionManager(
+			Settings settings) {
+		PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(
+				settings.connectionTimeToLive, TimeUnit.MILLISECONDS);
+		cm.setMaxTotal(settings.maxTotal);
+		cm.setDefaultMaxPerRoute(settings.maxPerRoute);
+		cm.setValidateAfterInactivity(settings.validateAfterInactivity);
+		cm.setDefaultSocketConfig(SocketConfig.custom()
+				.setTcpNoDelay(settings.tcpNoDelay)
+				.setSoKeepAlive(true)
+				.setSoTimeout(settings.socketTimeout).build());
+		return cm;
+	}
+
+	private static CloseableHttpClient createHttpClient(Settings settings,
+			PoolingHttpClientConnectionManager connectionManager) {
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(settings.connectTimeout)
+				.setSocketTimeout(settings.socketTimeout)
+				.setConnectionRequestTimeout(
+						settings.connectionRequestTimeout)
+				.build();
+
+		return HttpClients.custom() //
+				.setConnectionManager(connectionManager) //
+				.setDefaultRequestConfig(requestConfig) //
+				.setKeepAliveStrategy(
+						new FallbackKeepAliveStrategy(settings.keepAlive)) //
+				.evictExpiredConnections() //
+				.evictIdleConnections(settings.maxIdleTime,
+						TimeUnit.MILLISECONDS) //
+				.build();
+	}
+
+	/**
+	 * How many connections are leased, available, or awaited, in the pool as a
+	 * whole.
+	 */
+	public String getPoolStats() {
+		return connectionManager.getTotalStats().toString();
+	}
+
+	/** For testing. */
+	PoolingHttpClientConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+
+	@Override
+	public String toString() {
+		return "PooledHttpWrapper[" + getPoolStats() + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * If the server says how long to keep the connection alive, believe it.
+	 * Otherwise, use the default.
+	 */
+	static class FallbackKeepAliveStrategy
+			implements ConnectionKeepAliveStrategy {
+		private final long keepAlive;
+
+		public FallbackKeepAliveStrategy(long keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		@Override
+		public long getKeepAliveDuration(org.apache.http.HttpResponse response,
+				org.apache.http.protocol.HttpContext context) {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+					.getKeepAliveDuration(response, context);
+			return (duration > 0) ? duration : keepAlive;
+		}
+	}
+
+	/**
+	 * The configuration for the pool. All times are in milliseconds.
+	 */
+	public static class Settings {
+		// Package access, so the AsyncHttpWrapper can use the same settings.
+		int maxTotal = 50;
+		int maxPerRoute = 20;
+		int connectTimeout = 5000;
+		int socketTimeout = 30000;
+		int connectionRequestTimeout = 10000;
+		long keepAlive = 60000;
+		long maxIdleTime = 30000;
+		long connectionTimeToLive = -1;
+		int validateAfterInactivity = 2000;
+		boolean tcpNoDelay = true;
+		int ioThreadCount = Runtime.getRuntime().availableProcessors();
+
+		/** The most connections in the pool, for all hosts together. */
+		public Settings setMaxTotal(int maxTotal) {
+			this.maxTotal = maxTotal;
+			return this;
+		}
+
+		/** The most connections in the pool for any one host. */
+		public Settings setMaxPerRoute(int maxPerRoute) {
+			this.maxPerRoute = maxPerRoute;
+			return this;
+		}
+
+		/** How long to wait while opening a connection. */
+		public Settings setConnectTimeout(int connectTimeout) {
+			this.connectTimeout = connectTimeout;
+			return this;
+		}
+
+		/** How long to wait for data while reading a response. */
+		public Settings setSocketTimeout(int socketTimeout) {
+			this.socketTimeout = socketTimeout;
+			return this;
+		}
+
+		/** How long to wait for a connection when the pool is exhausted. */
+		public Settings setConnectionRequestTimeout(
+				int connectionRequestTimeout) {
+			this.connectionRequestTimeout = connectionRequestTimeout;
+			return this;
+		}
+
+		/**
+		 * How long to keep a connection alive, if the server doesn't specify.
+		 */
+		public Settings setKeepAlive(long keepAlive) {
+			this.keepAlive = keepAlive;
+			return this;
+		}
+
+		/**
+		 * Close connections that have been idle for this long. Not used by the
+		 * AsyncHttpWrapper.
+		 */
+		public Settings setMaxIdleTime(long maxIdleTime) {
+			this.maxIdleTime = maxIdleTime;
+			return this;
+		}
+
+		/**
+		 * Never re-use a connection that is older than this. A negative value
+		 * means no limit. Not used by the AsyncHttpWrapper.
+		 */
+		public Settings setConnectionTimeToLive(long connectionTimeToLive) {
+			this.connectionTimeToLive = connectionTimeToLive;
+			return this;
+		}
+
+		/**
+		 * Check that a pooled connection is still open, if it has been idle for
+		 * this long. Not used by the AsyncHttpWrapper.
+		 */
+		public Settings setValidateAfterInactivity(
+				int validateAfterInactivity) {
+			this.validateAfterInactivity = validateAfterInactivity;
+			return this;
+		}
+
+		/** Disable Nagle's algorithm? */
+		public Settings setTcpNoDelay(boolean tcpNoDelay) {
+			this.tcpNoDelay = tcpNoDelay;
+			return this;
+		}
+
+		/**
+		 * How many I/O dispatch threads? Only used by the AsyncHttpWrapper.
+		 */
+		public Settings setIoThreadCount(int ioThreadCount) {
+			this.ioThreadCount = ioThreadCount;
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Settings[maxTotal=%s, maxPerRoute=%s, "
+					+ "connectTimeout=%s, socketTimeout=%s, "
+					+ "connectionRequestTimeout=%s, keepAlive=%s, "
+					+ "maxIdleTime=%s, connectionTimeToLive=%s, "
+					+ "validateAfterInactivity=%s, tcpNoDelay=%s, "
+					+ "ioThreadCount=%s]", maxTotal, maxPerRoute,
+					connectTimeout, socketTimeout, connectionRequestTimeout,
+					keepAlive, maxIdleTime, connectionTimeToLive,
+					validateAfterInactivity, tcpNoDelay, ioThreadCount);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds a TokenBucket for each client ID, so every RateLimitingHttpWrapper for
+ * the same client shares the same quota.
+ *
+ * ORCID allows each client 24 requests per second, with bursts of up to 40.
+ */
+public class RateLimiter {
+	public static final double ORCID_PERMITS_PER_SECOND = 24.0;
+	public static final int ORCID_BURST = 40;
+
+	private final double permitsPerSecond;
+	private final int burst;
+	private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+	public RateLimiter() {
+		this(ORCID_PERMITS_PER_SECOND, ORCID_BURST);
+	}
+
+	public RateLimiter(double permitsPerSecond, int burst) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+	}
+
+	public TokenBucket getBucket(String clientId) {
+		return buckets.computeIfAbsent(clientId,
+				id -> new TokenBucket(permitsPerSecond, burst));
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimiter[permitsPerSecond=" + permitsPerSecond + ", burst="
+				+ burst + ", buckets=" + buckets + "]";
+	}
+}
@@ -0,0 +1,162 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Pace the requests to stay within the client's quota, rather than running
+ * into it.
+ *
+ * Each request waits for a permit from the client's TokenBucket. If the server
+ * still responds with 429 (Too Many Requests), or with 503 (Service
+ * Unavailable) and a Retry-After header, the bucket is paused for as long as
+ * the server asks, and the request is queued to try again. Since the server
+ * did not process the request, this is safe even for a POST.
+ *
+ * After maxThrottleRetries, the 429 is passed to the caller.
+ */
+public class RateLimitingHttpWrapper extends InterceptingHttpWrapper {
+	private static final Log log = LogFactory
+			.getLog(RateLimitingHttpWrapper.class);
+
+	public static final int DEFAULT_MAX_THROTTLE_RETRIES = 5;
+
+	/** If the server doesn't say how long to wait, wait this long. */
+	public static final long DEFAULT_RETRY_AFTER_MILLIS = 1000;
+
+	private final TokenBucket bucket;
+	private volatile int maxThrottleRetries = DEFAULT_MAX_THROTTLE_RETRIES;
+
+	/**
+	 * Use the ORCID quota, not shared with any other wrapper.
+	 */
+	public RateLimitingHttpWrapper(HttpWrapper inner, String clientId) {
+		this(inner, new RateLimiter(), clientId);
+	}
+
+	/**
+	 * Share the quota with the other wrappers that use this RateLimiter for
+	 * this client ID.
+	 */
+	public RateLimitingHttpWrapper(HttpWrapper inner, RateLimiter rateLimiter,
+			String clientId) {
+		super(inner);
+		this.bucket = rateLimiter.getBucket(clientId);
+	}
+
+	public RateLimitingHttpWrapper setMaxThrottleRetries(
+			int maxThrottleRetries) {
+		this.maxThrottleRetries = maxThrottleRetries;
+		return this;
+	}
+
+	@Override
+	protected <R> R intercept(RequestInfo request, Call<R> call)
+			throws IOException, HttpStatusCodeException {
+		for (int retries = 0;; retries++) {
+			acquirePermit(request);
+			try {
+				return call.execute();
+			} catch (HttpStatusCodeException e) {
+				if (!isThrottled(e) || retries >= maxThrottleRetries) {
+					throw e;
+				}
+				pause(request, e);
+			}
+		}
+	}
+
+	private void acquirePermit(RequestInfo request)
+			throws InterruptedIOException {
+		for (long wait = bucket.tryAcquire(); wait > 0; wait = bucket
+				.tryAcquire()) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting to send " + request);
+			}
+		}
+	}
+
+	@Override
+	protected CompletableFuture<HttpResponse> interceptAsync(
+			RequestInfo request, AsyncCall call) {
+		return attemptAsync(request, call, 0);
+	}
+
+	private CompletableFuture<HttpResponse> attemptAsync(RequestInfo request,
+			AsyncCall call, int retries) {
+		long wait = bucket.tryAcquire();
+		if (wait > 0) {
+			return AsyncUtil.afterDelay(wait, TimeUnit.NANOSECONDS,
+					() -> attemptAsync(request, call, retries));
+		}
+		return call.execute().handle((response, t) -> {
+			if (t == null) {
+				return CompletableFuture.completedFuture(response);
+			}
+			Throwable cause = AsyncUtil.unwrap(t);
+			if (cause instanceof HttpStatusCodeException
+					&& isThrottled((HttpStatusCodeException) cause)
+					&& retries < maxThrottleRetries) {
+				pause(request, (HttpStatusCodeException) cause);
+				return attemptAsync(request, call, retries + 1);
+			}
+			return AsyncUtil.<HttpResponse>failed(cause);
+		}).thenCompose(Function.identity());
+	}
+
+	private static boolean isThrottled(HttpStatusCodeException e) {
+		int status = e.getStatusCode();
+		return status == 429 || (status == HttpStatus.SC_SERVICE_UNAVAILABLE
+				&& !e.getHeaderValues("Retry-After").isEmpty());
+	}
+
+	private void pause(RequestInfo request, HttpStatusCodeException e) {
+		long millis = retryAfterMillis(e, DEFAULT_RETRY_AFTER_MILLIS);
+		log.warn("Throttled (" + e.getStatusCode() + ") on " + request
+				+ ", pausing for " + millis + " ms");
+		bucket.pause(millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * The Retry-After header may hold a number of seconds, or an HTTP date.
+	 */
+	static long retryAfterMillis(HttpStatusCodeException e,
+			long defaultMillis) {
+		List<String> values = e.getHeaderValues("Retry-After");
+		if (values.isEmpty()) {
+			return defaultMillis;
+		}
+		String value = values.get(0).trim();
+		try {
+			return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+		} catch (NumberFormatException nfe) {
+			Date date = DateUtils.parseDate(value);
+			if (date == null) {
+				log.warn("Can't parse Retry-After: '" + value + "'");
+				return defaultMillis;
+			}
+			return Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimitingHttpWrapper[" + bucket + ", inner=" + inner + "]";
+	}
+}
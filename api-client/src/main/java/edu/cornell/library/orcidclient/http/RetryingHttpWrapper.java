@@ -0,0 +1,239 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Try again when a request fails with an IOException, or with one of the
+ * retryable status codes (by default, 500, 502, 503 and 504). An interruption
+ * is not retried, nor is a LocalFailure, like a response that could not be
+ * decoded, or a request that a circuit breaker refused.
+ *
+ * The wait between attempts grows exponentially, with random jitter, so many
+ * clients that failed together don't all return together. If the server sends
+ * a Retry-After header, the wait is at least that long. No attempt is started
+ * if the wait would exceed the deadline for the request as a whole.
+ *
+ * GET, PUT and DELETE are idempotent, so they are retried. A POST is retried
+ * only if the settings say so, since a POST that failed with a timeout may
+ * have been processed anyway, and adding a work twice creates a duplicate.
+ */
+public class RetryingHttpWrapper extends InterceptingHttpWrapper {
+	private static final Log log = LogFactory.getLog(RetryingHttpWrapper.class);
+
+	private final Settings settings;
+
+	public RetryingHttpWrapper(HttpWrapper inner) {
+		this(inner, new Settings());
+	}
+
+	public RetryingHttpWrapper(HttpWrapper inner, Settings settings) {
+		super(inner);
+		this.settings = settings;
+	}
+
+	@Override
+	protected <R> R intercept(RequestInfo request, Call<R> call)
+			throws IOException, HttpStatusCodeException {
+		long start = System.nanoTime();
+		for (int attempt = 1;; attempt++) {
+			try {
+				return call.execute();
+			} catch (HttpStatusCodeException | IOException e) {
+				long delay = delayBeforeRetry(request, e, attempt, start);
+				if (delay < 0) {
+					throw e;
+				}
+				sleep(request, delay);
+			}
+		}
+	}
+
+	private static void sleep(RequestInfo request, long millis)
+			throws InterruptedIOException {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting to retry " + request);
+		}
+	}
+
+	@Override
+	protected CompletableFuture<HttpResponse> interceptAsync(
+			RequestInfo request, AsyncCall call) {
+		return attemptAsync(request, call, 1, System.nanoTime());
+	}
+
+	private CompletableFuture<HttpResponse> attemptAsync(RequestInfo request,
+			AsyncCall call, int attempt, long start) {
+		return call.execute().handle((response, t) -> {
+			if (t == null) {
+				return CompletableFuture.completedFuture(response);
+			}
+			Throwable cause = AsyncUtil.unwrap(t);
+			long delay = delayBeforeRetry(request, cause, attempt, start);
+			if (delay < 0) {
+				return AsyncUtil.<HttpResponse>failed(cause);
+			}
+			return AsyncUtil.afterDelay(delay, TimeUnit.MILLISECONDS,
+					() -> attemptAsync(request, call, attempt + 1, start));
+		}).thenCompose(Function.identity());
+	}
+
+	/**
+	 * How many milliseconds to wait before the next attempt, or -1 if there
+	 * should be no next attempt.
+	 */
+	private long delayBeforeRetry(RequestInfo request, Throwable failure,
+			int attempt, long start) {
+		if (!isRetryable(request, failure) || attempt >= settings.maxAttempts) {
+			return -1;
+		}
+
+		long delay = backoff(attempt);
+		if (failure instanceof HttpStatusCodeException) {
+			delay = Math.max(delay, RateLimitingHttpWrapper.retryAfterMillis(
+					(HttpStatusCodeException) failure, 0));
+		}
+
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		if (elapsed + delay > settings.deadline) {
+			log.warn("No time to retry " + request + " after " + elapsed
+					+ " ms: " + failure);
+			return -1;
+		}
+
+		log.info("Attempt " + attempt + " of " + request + " failed, retrying in "
+				+ delay + " ms: " + failure);
+		return delay;
+	}
+
+	private boolean isRetryable(RequestInfo request, Throwable failure) {
+		if (!request.getMethod().isIdempotent() && !settings.retryPost) {
+			return false;
+		}
+		if (failure instanceof HttpStatusCodeException) {
+			return settings.retryableStatusCodes.contains(
+					((HttpStatusCodeException) failure).getStatusCode());
+		}
+		return failure instanceof IOException
+				&& !(failure instanceof InterruptedIOException)
+				&& !(failure instanceof LocalFailure);
+	}
+
+	/**
+	 * Exponential backoff, with the last part of it replaced by a random
+	 * amount.
+	 */
+	private long backoff(int attempt) {
+		double exponential = settings.initialBackoff
+				* Math.pow(settings.multiplier, attempt - 1);
+		long capped = (long) Math.min(exponential, settings.maxBackoff);
+		long jitter = (long) (capped * settings.jitter);
+		if (jitter <= 0) {
+			return capped;
+		}
+		return capped - jitter
+				+ ThreadLocalRandom.current().nextLong(jitter + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "RetryingHttpWrapper[" + settings + ", inner=" + inner + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The retry policy. All times are in milliseconds.
+	 */
+	public static class Settings {
+		int maxAttempts = 3;
+		long initialBackoff = 200;
+		long maxBackoff = 10000;
+		double multiplier = 2.0;
+		double jitter = 0.5;
+		long deadline = 30000;
+		boolean retryPost = false;
+		Set<Integer> retryableStatusCodes = new HashSet<>(
+				Arrays.asList(500, 502, 503, 504));
+
+		/** How many times to try, including the first. */
+		public Settings setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/** The wait before the second attempt, before jitter. */
+		public Settings setInitialBackoff(long initialBackoff) {
+			this.initialBackoff = initialBackoff;
+			return this;
+		}
+
+		/** The wait never grows longer than this. */
+		public Settings setMaxBackoff(long maxBackoff) {
+			this.maxBackoff = maxBackoff;
+			return this;
+		}
+
+		/** Each wait is this many times as long as the one before. */
+		public Settings setMultiplier(double multiplier) {
+			this.multiplier = multiplier;
+			return this;
+		}
+
+		/**
+		 * The fraction of each wait that is random: 0.0 for none, 1.0 for
+		 * anything between zero and the full wait.
+		 */
+		public Settings setJitter(double jitter) {
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * Don't start another attempt if it would begin this long after the
+		 * first one.
+		 */
+		public Settings setDeadline(long deadline) {
+			this.deadline = deadline;
+			return this;
+		}
+
+		/** Retry POST requests also. */
+		public Settings setRetryPost(boolean retryPost) {
+			this.retryPost = retryPost;
+			return this;
+		}
+
+		public Settings setRetryableStatusCodes(Integer... codes) {
+			this.retryableStatusCodes = new HashSet<>(Arrays.asList(codes));
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return "Settings[maxAttempts=" + maxAttempts + ", initialBackoff="
+					+ initialBackoff + ", maxBackoff=" + maxBackoff
+					+ ", multiplier=" + multiplier + ", jitter=" + jitter
+					+ ", deadline=" + deadline + ", retryPost=" + retryPost
+					+ ", retryableStatusCodes=" + retryableStatusCodes + "]";
+		}
+	}
+}
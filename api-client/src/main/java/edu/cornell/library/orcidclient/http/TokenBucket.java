@@ -0,0 +1,95 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Permits accumulate at a steady rate, up to a limit. Each request takes one
+ * permit. If none is available, the request must wait.
+ *
+ * The bucket may be paused, as when the server says to Retry-After a while.
+ * No permits are available until the pause is over.
+ */
+public class TokenBucket {
+	private final double permitsPerNano;
+	private final double capacity;
+	private final LongSupplier nanoClock;
+
+	private double available;
+	private long lastRefill;
+	private long pausedUntil;
+
+	/**
+	 * The bucket starts full, so the first requests may go out in a burst.
+	 */
+	public TokenBucket(double permitsPerSecond, int burst) {
+		this(permitsPerSecond, burst, System::nanoTime);
+	}
+
+	/** The clock is replaced for testing. */
+	TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException(
+					"permitsPerSecond must be positive: " + permitsPerSecond);
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException(
+					"burst must be at least 1: " + burst);
+		}
+		this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.capacity = burst;
+		this.nanoClock = nanoClock;
+		this.available = burst;
+		this.lastRefill = nanoClock.getAsLong();
+		this.pausedUntil = lastRefill;
+	}
+
+	/**
+	 * Take a permit if one is available, and return 0. Otherwise, return the
+	 * number of nanoseconds to wait before trying again.
+	 */
+	public synchronized long tryAcquire() {
+		long now = nanoClock.getAsLong();
+		if (now - pausedUntil < 0) {
+			return pausedUntil - now;
+		}
+		refill(now);
+		if (available >= 1) {
+			available -= 1;
+			return 0;
+		}
+		return Math.max(1, (long) Math.ceil((1 - available) / permitsPerNano));
+	}
+
+	/**
+	 * No permits until the delay has passed. The permits that would have
+	 * accumulated are lost, so the requests resume at the steady rate. A
+	 * shorter pause does not cancel a longer one.
+	 */
+	public synchronized void pause(long delay, TimeUnit unit) {
+		long now = nanoClock.getAsLong();
+		long until = now + unit.toNanos(delay);
+		if (until - pausedUntil > 0) {
+			pausedUntil = until;
+			available = 0;
+			lastRefill = until;
+		}
+	}
+
+	private void refill(long now) {
+		long elapsed = now - lastRefill;
+		if (elapsed > 0) {
+			available = Math.min(capacity,
+					available + elapsed * permitsPerNano);
+			lastRefill = now;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(
+				"TokenBucket[permitsPerSecond=%.1f, burst=%.0f, available=%.2f]",
+				permitsPerNano * TimeUnit.SECONDS.toNanos(1), capacity,
+				available);
+	}
+}
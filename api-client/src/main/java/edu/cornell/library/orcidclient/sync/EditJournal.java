@@ -0,0 +1,211 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.sync.EditPlan.Operation;
+import edu.cornell.library.orcidclient.util.FileUtil;
+
+/**
+ * The append-only file behind an EditQueue.
+ *
+ * Each operation is recorded when it is queued, like "+17 {...}", and again
+ * when it is finished, like "-17". The operations that were queued but not
+ * finished are pending.
+ *
+ * Before an ADD is sent, it is marked, like "~17", and the mark is synced. If
+ * it is refused and will be tried again, it is recorded again, which clears
+ * the mark. An ADD that is still marked when the journal is read may have been
+ * applied, so it must not be sent again.
+ *
+ * Lines are written straight to the file, so they survive if the JVM dies.
+ * They survive if the machine dies only after sync(), which the queue calls
+ * periodically, so many lines share the cost of one fsync.
+ *
+ * A line cut short by a crash is ignored when the journal is read.
+ */
+class EditJournal implements Closeable {
+	private static final Log log = LogFactory.getLog(EditJournal.class);
+
+	private final Path path;
+	private FileChannel channel;
+	private boolean dirty;
+
+	EditJournal(Path path) throws OrcidClientException {
+		this.path = path;
+		try {
+			FileUtil.endTornLine(path);
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read the edit journal at " + path, e);
+		}
+		this.channel = open(path);
+	}
+
+	private static FileChannel open(Path path) throws OrcidClientException {
+		try {
+			return FileChannel.open(path, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to open the edit journal at " + path, e);
+		}
+	}
+
+	/**
+	 * The pending operations in the journal, by sequence number, in order.
+	 */
+	static Map<Long, Operation> readPending(Path path)
+			throws OrcidClientException {
+		return read(path).pending;
+	}
+
+	static Contents read(Path path) throws OrcidClientException {
+		Contents contents = new Contents();
+		Map<Long, Operation> pending = contents.pending;
+		Set<Long> sending = contents.sending;
+		if (!Files.exists(path)) {
+			return contents;
+		}
+		try (BufferedReader in = Files.newBufferedReader(path,
+				StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				try {
+					if (line.startsWith("+")) {
+						int space = line.indexOf(' ');
+						Long seq = Long.valueOf(line.substring(1, space));
+						pending.put(seq,
+								EditPlan.fromLine(line.substring(space + 1)));
+						sending.remove(seq);
+					} else if (line.startsWith("-")) {
+						Long seq = Long.valueOf(line.substring(1));
+						pending.remove(seq);
+						sending.remove(seq);
+					} else if (line.startsWith("~")) {
+						Long seq = Long.valueOf(line.substring(1));
+						if (pending.containsKey(seq)) {
+							sending.add(seq);
+						}
+					}
+				} catch (OrcidClientException | RuntimeException e) {
+					log.warn("Ignoring a damaged line in " + path + ": '"
+							+ line + "'");
+				}
+			}
+			return contents;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read the edit journal at " + path, e);
+		}
+	}
+
+	synchronized void append(long seq, Operation op)
+			throws OrcidClientException {
+		write("+" + seq + " " + EditPlan.toLine(op) + "\n");
+	}
+
+	synchronized void markSending(long seq) throws OrcidClientException {
+		write("~" + seq + "\n");
+	}
+
+	synchronized void finish(long seq) throws OrcidClientException {
+		write("-" + seq + "\n");
+	}
+
+	private void write(String line) throws OrcidClientException {
+		try {
+			ByteBuffer buffer = ByteBuffer
+					.wrap(line.getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			dirty = true;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to write to the edit journal at " + path, e);
+		}
+	}
+
+	/**
+	 * Force the lines written so far to the disk.
+	 */
+	synchronized void sync() throws OrcidClientException {
+		if (!dirty) {
+			return;
+		}
+		try {
+			channel.force(false);
+			dirty = false;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to sync the edit journal at " + path, e);
+		}
+	}
+
+	synchronized long size() throws OrcidClientException {
+		try {
+			return channel.size();
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to size the edit journal at " + path, e);
+		}
+	}
+
+	/**
+	 * Replace the journal with one that holds only these pending operations.
+	 */
+	synchronized void rewrite(Map<Long, Operation> pending)
+			throws OrcidClientException {
+		StringBuilder lines = new StringBuilder();
+		for (Map.Entry<Long, Operation> entry : pending.entrySet()) {
+			lines.append("+").append(entry.getKey()).append(" ")
+					.append(EditPlan.toLine(entry.getValue())).append("\n");
+		}
+		try {
+			FileUtil.replaceText(path, channel,
+					out -> out.write(lines.toString()));
+			channel = open(path);
+			dirty = false;
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to rewrite the edit journal at " + path, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (dirty) {
+			channel.force(false);
+		}
+		channel.close();
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * What a journal holds: the pending operations, and which of them were
+	 * being sent.
+	 */
+	static class Contents {
+		final Map<Long, Operation> pending = new LinkedHashMap<>();
+		final Set<Long> sending = new HashSet<>();
+	}
+}
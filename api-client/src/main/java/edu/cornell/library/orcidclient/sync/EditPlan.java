@@ -0,0 +1,327 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.orcid.jaxb.model.record_v2.PersonExternalIdentifier;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * A list of edits to ORCID records, which can be reviewed before anything is
+ * sent, saved to a file, and executed later by an EditPlanExecutor.
+ *
+ * Each Operation adds, updates or removes one element (a Work or a
+ * PersonExternalIdentifier) on one ORCID record. An add or update carries the
+ * element as XML, with a digest of its content, so a plan can be checked for
+ * damage, and two plans can be compared.
+ *
+ * The file holds one JSON object for each operation, one per line, and is
+ * compressed with GZIP.
+ *
+ * Build a plan by hand, or from WorksSynchronizer.Plan.addTo().
+ */
+public class EditPlan {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.setSerializationInclusion(Include.NON_NULL);
+
+	public enum Kind {
+		ADD, UPDATE, REMOVE
+	}
+
+	/**
+	 * The kinds of elements that can be edited, with the URL path of each.
+	 */
+	public enum ElementType {
+		WORK("work", Work.class),
+		EXTERNAL_ID("external-identifiers", PersonExternalIdentifier.class);
+
+		private final String path;
+		private final Class<?> elementClass;
+
+		private ElementType(String path, Class<?> elementClass) {
+			this.path = path;
+			this.elementClass = elementClass;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public Class<?> getElementClass() {
+			return elementClass;
+		}
+	}
+
+	private final List<Operation> operations;
+
+	private EditPlan(List<Operation> operations) {
+		this.operations = Collections
+				.unmodifiableList(new ArrayList<>(operations));
+	}
+
+	public List<Operation> getOperations() {
+		return operations;
+	}
+
+	public int size() {
+		return operations.size();
+	}
+
+	/**
+	 * How many writes will be sent to each ORCID record, in order by ORCID iD.
+	 */
+	public Map<String, Integer> getWriteCounts() {
+		Map<String, Integer> counts = new TreeMap<>();
+		for (Operation op : operations) {
+			counts.merge(op.orcid, 1, Integer::sum);
+		}
+		return counts;
+	}
+
+	/**
+	 * How many operations of each kind.
+	 */
+	public Map<Kind, Integer> getKindCounts() {
+		Map<Kind, Integer> counts = new EnumMap<>(Kind.class);
+		for (Operation op : operations) {
+			counts.merge(op.kind, 1, Integer::sum);
+		}
+		return counts;
+	}
+
+	/**
+	 * Identifies the plan, so progress through one plan is not mistaken for
+	 * progress through another.
+	 */
+	public String getId() throws OrcidClientException {
+		StringBuilder sb = new StringBuilder();
+		for (Operation op : operations) {
+			sb.append(toLine(op)).append('\n');
+		}
+		return ElementDigest.sha256(sb.toString());
+	}
+
+	public void writeTo(Path path) throws OrcidClientException {
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(
+				new GZIPOutputStream(Files.newOutputStream(path)),
+				StandardCharsets.UTF_8))) {
+			for (Operation op : operations) {
+				out.write(toLine(op));
+				out.write('\n');
+			}
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to write the edit plan to " + path, e);
+		}
+	}
+
+	public static EditPlan readFrom(Path path) throws OrcidClientException {
+		List<Operation> operations = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(path)),
+				StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (!line.isEmpty()) {
+					operations.add(fromLine(line));
+				}
+			}
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read the edit plan from " + path, e);
+		}
+		return new EditPlan(operations);
+	}
+
+	static String toLine(Operation op) throws OrcidClientException {
+		try {
+			return MAPPER.writeValueAsString(new OperationJson(op));
+		} catch (IOException e) {
+			throw new OrcidClientException("Failed to serialize " + op, e);
+		}
+	}
+
+	static Operation fromLine(String line) throws OrcidClientException {
+		try {
+			OperationJson json = MAPPER.readValue(line, OperationJson.class);
+			return new Operation(Kind.valueOf(json.op), json.orcid,
+					ElementType.valueOf(json.type), json.putCode, json.digest,
+					json.body);
+		} catch (IOException | RuntimeException e) {
+			throw new OrcidClientException(
+					"Invalid line in the edit plan: '" + line + "'", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EditPlan[operations=" + operations.size() + ", kinds="
+				+ getKindCounts() + ", records=" + getWriteCounts().size()
+				+ "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * One edit. An ADD has no put code, and a REMOVE has no body or digest.
+	 */
+	public static class Operation {
+		private final Kind kind;
+		private final String orcid;
+		private final ElementType type;
+		private final String putCode;
+		private final String digest;
+		private final String body;
+
+		Operation(Kind kind, String orcid, ElementType type, String putCode,
+				String digest, String body) {
+			this.kind = kind;
+			this.orcid = orcid;
+			this.type = type;
+			this.putCode = putCode;
+			this.digest = digest;
+			this.body = body;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public String getOrcid() {
+			return orcid;
+		}
+
+		public ElementType getType() {
+			return type;
+		}
+
+		public String getPutCode() {
+			return putCode;
+		}
+
+		public String getDigest() {
+			return digest;
+		}
+
+		/** The element as XML. */
+		public String getBody() {
+			return body;
+		}
+
+		/**
+		 * Decode the body, and confirm that it still matches the digest.
+		 */
+		public Object getElement() throws OrcidClientException {
+			if (body == null) {
+				return null;
+			}
+			Object element = XmlCodec.INSTANCE.decode(body,
+					type.getElementClass());
+			if (!ElementDigest.of(element).equals(digest)) {
+				throw new OrcidClientException(
+						"The element does not match its digest: " + this);
+			}
+			return element;
+		}
+
+		@Override
+		public String toString() {
+			return kind + " " + orcid + "/" + type.getPath()
+					+ ((putCode == null) ? "" : "/" + putCode);
+		}
+	}
+
+	/**
+	 * The form of an Operation in the file.
+	 */
+	static class OperationJson {
+		public String op;
+		public String orcid;
+		public String type;
+		public String putCode;
+		public String digest;
+		public String body;
+
+		public OperationJson() {
+			// For Jackson.
+		}
+
+		OperationJson(Operation operation) {
+			this.op = operation.kind.name();
+			this.orcid = operation.orcid;
+			this.type = operation.type.name();
+			this.putCode = operation.putCode;
+			this.digest = operation.digest;
+			this.body = operation.body;
+		}
+	}
+
+	public static class Builder {
+		private final List<Operation> operations = new ArrayList<>();
+
+		public Builder add(String orcid, Work work)
+				throws OrcidClientException {
+			return addElement(Kind.ADD, orcid, ElementType.WORK, null, work);
+		}
+
+		public Builder add(String orcid, PersonExternalIdentifier externalId)
+				throws OrcidClientException {
+			return addElement(Kind.ADD, orcid, ElementType.EXTERNAL_ID, null,
+					externalId);
+		}
+
+		public Builder update(String orcid, String putCode, Work work)
+				throws OrcidClientException {
+			return addElement(Kind.UPDATE, orcid, ElementType.WORK, putCode,
+					work);
+		}
+
+		public Builder update(String orcid, String putCode,
+				PersonExternalIdentifier externalId)
+				throws OrcidClientException {
+			return addElement(Kind.UPDATE, orcid, ElementType.EXTERNAL_ID,
+					putCode, externalId);
+		}
+
+		public Builder remove(String orcid, ElementType type, String putCode) {
+			operations.add(new Operation(Kind.REMOVE, orcid, type, putCode,
+					null, null));
+			return this;
+		}
+
+		private Builder addElement(Kind kind, String orcid, ElementType type,
+				String putCode, Object element) throws OrcidClientException {
+			operations.add(new Operation(kind, orcid, type, putCode,
+					ElementDigest.of(element),
+					XmlCodec.INSTANCE.encode(element)));
+			return this;
+		}
+
+		public EditPlan build() {
+			return new EditPlan(operations);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.sync.EditPlan.Operation;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+import edu.cornell.library.orcidclient.util.FileUtil;
+
+/**
+ * Send the operations of an EditPlan, keeping track of progress in a file, so
+ * an interrupted run can be resumed.
+ *
+ * The progress file starts with the ID of the plan. Each operation that
+ * succeeds is appended to it, with the put code of any element that was
+ * added. When the same plan is executed again with the same progress file,
+ * the operations that succeeded before are skipped, and failed operations are
+ * retried.
+ *
+ * An operation that succeeded just before a crash may not have been recorded.
+ * It is sent again when the plan is resumed, so an ADD may be repeated, and
+ * the element added twice.
+ *
+ * A failed operation does not stop the others; it is reported in the Report.
+ */
+public class EditPlanExecutor {
+	private static final Log log = LogFactory.getLog(EditPlanExecutor.class);
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+	private static final String PLAN_PREFIX = "plan ";
+	private static final String DONE_PREFIX = "done ";
+	private static final Pattern DONE_LINE = Pattern
+			.compile("done (\\d+)( \\S+)?");
+
+	private final EditSender sender;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	public EditPlanExecutor(EditSender sender) {
+		this.sender = sender;
+	}
+
+	public EditPlanExecutor setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(
+					"maxInFlight must be positive: " + maxInFlight);
+		}
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	/**
+	 * Execute the plan, recording progress in the file. If the file exists,
+	 * it must be from an earlier run of the same plan.
+	 */
+	public Report execute(EditPlan plan, Path progressFile)
+			throws OrcidClientException {
+		String planId = plan.getId();
+		String existing = readExisting(progressFile);
+		Set<Integer> done = readProgress(existing, progressFile, planId);
+
+		List<Integer> pending = new ArrayList<>();
+		for (int i = 0; i < plan.size(); i++) {
+			if (!done.contains(i)) {
+				pending.add(i);
+			}
+		}
+		log.info("Executing " + plan + ": " + done.size()
+				+ " operations done already, " + pending.size() + " to go.");
+
+		Report report = new Report(done.size());
+		try (BufferedWriter progress = openProgress(progressFile, planId,
+				existing)) {
+			List<Operation> ops = plan.getOperations();
+			AsyncUtil.await(AsyncUtil.boundedFanOut(pending, maxInFlight,
+					index -> sender.send(ops.get(index))
+							.handle((putCode, t) -> {
+								if (t == null) {
+									recordDone(progress, index, putCode);
+									report.succeeded(putCode);
+								} else {
+									report.failed(ops.get(index) + " failed: "
+											+ AsyncUtil.unwrap(t).getMessage());
+								}
+								return null;
+							})));
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to write progress to " + progressFile, e);
+		}
+		log.info("Executed " + plan + ": " + report);
+		return report;
+	}
+
+	private static String readExisting(Path progressFile)
+			throws OrcidClientException {
+		if (!Files.exists(progressFile)) {
+			return "";
+		}
+		try {
+			return new String(Files.readAllBytes(progressFile),
+					StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to read progress from " + progressFile, e);
+		}
+	}
+
+	/**
+	 * Only complete lines count. A last line with no line end was cut short by
+	 * a crash: "done 12" might have become "done 1".
+	 */
+	private static Set<Integer> readProgress(String existing,
+			Path progressFile, String planId) throws OrcidClientException {
+		Set<Integer> done = new HashSet<>();
+		List<String> lines = new ArrayList<>(
+				Arrays.asList(existing.split("\n", -1)));
+		String last = lines.remove(lines.size() - 1);
+		if (!last.isEmpty()) {
+			log.warn("Ignoring incomplete progress line: '" + last + "'");
+		}
+		if (lines.isEmpty()) {
+			return done;
+		}
+
+		if (!stripCr(lines.get(0)).equals(PLAN_PREFIX + planId)) {
+			throw new OrcidClientException("The progress file " + progressFile
+					+ " is for a different plan.");
+		}
+		for (String line : lines.subList(1, lines.size())) {
+			Matcher m = DONE_LINE.matcher(stripCr(line));
+			if (m.matches()) {
+				done.add(Integer.valueOf(m.group(1)));
+			} else {
+				log.warn("Ignoring progress line: '" + line + "'");
+			}
+		}
+		return done;
+	}
+
+	private static String stripCr(String line) {
+		return line.endsWith("\r") ? line.substring(0, line.length() - 1)
+				: line;
+	}
+
+	/**
+	 * If the file has no complete line, not even the plan ID, start it again.
+	 * If its last line was cut short, end that line, so the next line is not
+	 * joined to it.
+	 */
+	private static BufferedWriter openProgress(Path progressFile,
+			String planId, String existing) throws IOException {
+		boolean isNew = existing.indexOf('\n') < 0;
+		if (!isNew) {
+			FileUtil.endTornLine(progressFile);
+		}
+		BufferedWriter writer = Files.newBufferedWriter(progressFile,
+				StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				isNew ? StandardOpenOption.TRUNCATE_EXISTING
+						: StandardOpenOption.APPEND);
+		if (isNew) {
+			writer.write(PLAN_PREFIX + planId + "\n");
+			writer.flush();
+		}
+		return writer;
+	}
+
+	private static void recordDone(BufferedWriter progress, int index,
+			String putCode) {
+		synchronized (progress) {
+			try {
+				progress.write(DONE_PREFIX + index
+						+ ((putCode == null) ? "" : " " + putCode) + "\n");
+				progress.flush();
+			} catch (IOException e) {
+				log.error("Failed to record progress on operation " + index,
+						e);
+			}
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * How this run went. Operations done by an earlier run are counted as
+	 * skipped.
+	 */
+	public static class Report {
+		private final int skipped;
+		private int succeeded;
+		private final List<String> addedPutCodes = new ArrayList<>();
+		private final List<String> failures = new ArrayList<>();
+
+		Report(int skipped) {
+			this.skipped = skipped;
+		}
+
+		synchronized void succeeded(String putCode) {
+			succeeded++;
+			if (putCode != null) {
+				addedPutCodes.add(putCode);
+			}
+		}
+
+		synchronized void failed(String message) {
+			failures.add(message);
+		}
+
+		public int getSkipped() {
+			return skipped;
+		}
+
+		public synchronized int getSucceeded() {
+			return succeeded;
+		}
+
+		/** The put codes of the elements added by this run. */
+		public synchronized List<String> getAddedPutCodes() {
+			return Collections.unmodifiableList(new ArrayList<>(addedPutCodes));
+		}
+
+		public synchronized List<String> getFailures() {
+			return Collections.unmodifiableList(new ArrayList<>(failures));
+		}
+
+		public synchronized boolean isComplete() {
+			return failures.isEmpty();
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "Report[skipped=" + skipped + ", succeeded=" + succeeded
+					+ ", failed=" + failures.size() + "]";
+		}
+	}
+}
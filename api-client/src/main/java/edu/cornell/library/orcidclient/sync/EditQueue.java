@@ -0,0 +1,668 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.sync.EditPlan.ElementType;
+import edu.cornell.library.orcidclient.sync.EditPlan.Kind;
+import edu.cornell.library.orcidclient.sync.EditPlan.Operation;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Accept edits to ORCID records and send them in the background, so the
+ * caller need not wait for ORCID.
+ *
+ * Each edit is written to a journal file before submit() returns. A worker
+ * thread sends the edits in batches, adding the works for an ORCID record in
+ * bulk, and removes each edit from the journal when it is finished. If the
+ * JVM stops, the edits still in the journal are sent when a queue is next
+ * created on the same file.
+ *
+ * The journal is forced to disk every few milliseconds, rather than on each
+ * submit. Call sync() to force it sooner.
+ *
+ * Edits to the same element are sent in the order they were submitted. While
+ * an edit waits to be sent, a later edit to the same element takes its place:
+ * only the latest version of an updated element is sent, an update followed by
+ * a removal sends only the removal, and adding the same element twice sends it
+ * once. To give edits a chance to be combined this way, set a coalescing
+ * window; each edit then waits that long before it is sent. An edit that has
+ * not been sent can also be withdrawn with cancel(), so an element that is
+ * added and then deleted costs nothing.
+ *
+ * An edit that fails because ORCID could not be reached, or was overloaded, is
+ * tried again after a delay that doubles each time. An ADD is tried again only
+ * if ORCID refused it as overloaded or unavailable; after a timeout it may
+ * have been applied, so it is not repeated. An edit that fails for any other
+ * reason, or too many times, is dropped from the journal and listed by
+ * getFailures().
+ *
+ * For the same reason, an ADD that was being sent when the JVM stopped is not
+ * sent again when the journal is replayed. It is listed by getFailures().
+ */
+public class EditQueue implements AutoCloseable {
+	private static final Log log = LogFactory.getLog(EditQueue.class);
+
+	private final Path journalPath;
+	private final EditJournal journal;
+	private final EditSender sender;
+	private final Settings settings;
+	private final Thread worker;
+	private final ScheduledExecutorService syncer;
+
+	/** Guarded by this. */
+	private final Map<Long, Entry> pending = new LinkedHashMap<>();
+	private final List<Failure> failures = new ArrayList<>();
+	private long nextSeq;
+	private long coalesced;
+	private boolean closed;
+
+	public EditQueue(Path journalPath, EditSender sender, Settings settings)
+			throws OrcidClientException {
+		this.journalPath = journalPath;
+		this.sender = sender;
+		this.settings = settings;
+
+		EditJournal.Contents contents = EditJournal.read(journalPath);
+		Map<Long, Operation> replayed = new LinkedHashMap<>();
+		for (Map.Entry<Long, Operation> e : contents.pending.entrySet()) {
+			Operation op = e.getValue();
+			if (contents.sending.contains(e.getKey())) {
+				log.error(op + " was being sent when the queue stopped. "
+						+ "It may have been applied, so it is not sent again.");
+				failures.add(new Failure(op, new OrcidClientException(op
+						+ " was being sent when the queue stopped, "
+						+ "and may have been applied.")));
+			} else {
+				replayed.put(e.getKey(), op);
+			}
+		}
+		this.journal = new EditJournal(journalPath);
+		journal.rewrite(replayed);
+		for (Map.Entry<Long, Operation> e : replayed.entrySet()) {
+			pending.put(e.getKey(), new Entry(e.getKey(), e.getValue()));
+			nextSeq = Math.max(nextSeq, e.getKey() + 1);
+		}
+		if (!replayed.isEmpty()) {
+			log.info("Replayed " + replayed.size() + " pending edits from "
+					+ journalPath);
+		}
+
+		this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "orcid-edit-queue-sync");
+			thread.setDaemon(true);
+			return thread;
+		});
+		syncer.scheduleWithFixedDelay(this::syncQuietly,
+				settings.syncIntervalMillis, settings.syncIntervalMillis,
+				TimeUnit.MILLISECONDS);
+
+		this.worker = new Thread(this::drain, "orcid-edit-queue");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Record the edit in the journal, and return. The future holds the put
+	 * code of an added element, or null, when the edit has been sent. If the
+	 * edit is combined with another, the future completes when the combined
+	 * edit is sent.
+	 */
+	public CompletableFuture<String> submit(Operation op)
+			throws OrcidClientException {
+		synchronized (this) {
+			if (closed) {
+				throw new OrcidClientException(
+						"The edit queue is closed: " + journalPath);
+			}
+			CompletableFuture<String> future = new CompletableFuture<>();
+			Entry earlier = findCoalescable(op);
+			if (earlier != null) {
+				if (op.getKind() != Kind.ADD) {
+					journal.append(earlier.seq, op);
+					log.debug("Replaced " + earlier.op + " with " + op);
+					earlier.op = op;
+				}
+				earlier.futures.put(future, op);
+				coalesced++;
+				return future;
+			}
+
+			Entry entry = new Entry(nextSeq++, op);
+			entry.notBefore = System.currentTimeMillis()
+					+ settings.coalesceWindowMillis;
+			entry.futures.put(future, op);
+			journal.append(entry.seq, op);
+			pending.put(entry.seq, entry);
+			notifyAll();
+			return future;
+		}
+	}
+
+	/**
+	 * Find a waiting edit that the new one can replace or join. The edit is
+	 * the last one pending for the same element, and not being sent.
+	 *
+	 * An update or removal replaces an update; a removal joins a removal. An
+	 * update that follows a removal stands alone, and will fail. An add joins
+	 * a waiting add of the same content to the same record.
+	 */
+	private Entry findCoalescable(Operation op) {
+		Entry found = null;
+		for (Entry entry : pending.values()) {
+			if (isSameElement(entry.op, op)) {
+				found = entry;
+			}
+		}
+		if (found == null || found.sending) {
+			return null;
+		}
+		Kind before = found.op.getKind();
+		Kind after = op.getKind();
+		if (after == Kind.ADD) {
+			return found;
+		}
+		if (before == Kind.UPDATE || after == Kind.REMOVE) {
+			return found;
+		}
+		return null;
+	}
+
+	private static boolean isSameElement(Operation a, Operation b) {
+		if (!a.getOrcid().equals(b.getOrcid()) || a.getType() != b.getType()
+				|| a.getKind() == Kind.ADD != (b.getKind() == Kind.ADD)) {
+			return false;
+		}
+		if (b.getKind() == Kind.ADD) {
+			return a.getDigest().equals(b.getDigest());
+		}
+		return a.getPutCode().equals(b.getPutCode());
+	}
+
+	/**
+	 * Withdraw an edit that has not been sent yet, and cancel its future.
+	 * Return false if it is being sent, or is finished.
+	 *
+	 * If the edit was combined with others, only this future is cancelled, and
+	 * the others are still sent. But if this edit had replaced the others,
+	 * they are withdrawn with it.
+	 */
+	public synchronized boolean cancel(CompletableFuture<String> future)
+			throws OrcidClientException {
+		for (Entry entry : pending.values()) {
+			if (entry.sending || !entry.futures.containsKey(future)) {
+				continue;
+			}
+			Operation submitted = entry.futures.remove(future);
+			future.cancel(false);
+			if (entry.futures.isEmpty() || (submitted == entry.op
+					&& submitted.getKind() != Kind.ADD)) {
+				pending.remove(entry.seq);
+				journal.finish(entry.seq);
+				for (CompletableFuture<String> f : entry.futures.keySet()) {
+					f.cancel(false);
+				}
+				notifyAll();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Submit each operation of the plan, in order.
+	 */
+	public List<CompletableFuture<String>> submitAll(EditPlan plan)
+			throws OrcidClientException {
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (Operation op : plan.getOperations()) {
+			futures.add(submit(op));
+		}
+		return futures;
+	}
+
+	/**
+	 * Force the journal to disk now, so the edits submitted so far will
+	 * survive a crash of the machine.
+	 */
+	public void sync() throws OrcidClientException {
+		journal.sync();
+	}
+
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/** How many edits were combined with one already waiting. */
+	public synchronized long getCoalescedCount() {
+		return coalesced;
+	}
+
+	/** The edits that were dropped without succeeding. */
+	public synchronized List<Failure> getFailures() {
+		return Collections.unmodifiableList(new ArrayList<>(failures));
+	}
+
+	/**
+	 * Wait until there are no pending edits. Return false if the time runs
+	 * out first.
+	 */
+	public synchronized boolean awaitEmpty(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!pending.isEmpty()) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Stop sending, once the current batch is finished. The pending edits stay
+	 * in the journal, and their futures fail.
+	 */
+	@Override
+	public void close() throws OrcidClientException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		syncer.shutdown();
+
+		synchronized (this) {
+			for (Entry entry : pending.values()) {
+				entry.fail(new OrcidClientException(
+						"The edit queue was closed before " + entry.op
+								+ " was sent. It remains in the journal."));
+			}
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			throw new OrcidClientException(
+					"Failed to close the edit journal at " + journalPath, e);
+		}
+	}
+
+	private void syncQuietly() {
+		try {
+			journal.sync();
+		} catch (OrcidClientException e) {
+			log.error("Failed to sync the edit journal", e);
+		}
+	}
+
+	private void drain() {
+		List<Entry> batch;
+		while ((batch = nextBatch()) != null) {
+			try {
+				send(batch);
+				compactIfNeeded();
+			} catch (OrcidClientException | RuntimeException e) {
+				log.error("Failed to process a batch of edits", e);
+			}
+		}
+	}
+
+	/**
+	 * Wait for edits that are ready to send, and take up to a batch of them.
+	 * An edit is not ready while waiting to retry, or while an earlier edit to
+	 * the same element is pending. Return null when the queue is closed.
+	 */
+	private synchronized List<Entry> nextBatch() {
+		while (!closed) {
+			long now = System.currentTimeMillis();
+			long wakeAt = Long.MAX_VALUE;
+			List<Entry> batch = new ArrayList<>();
+			Set<String> blocked = new HashSet<>();
+			for (Entry entry : pending.values()) {
+				if (batch.size() >= settings.batchSize) {
+					break;
+				}
+				String key = entry.key();
+				if (key != null && !blocked.add(key)) {
+					continue;
+				}
+				if (entry.notBefore > now) {
+					wakeAt = Math.min(wakeAt, entry.notBefore);
+					continue;
+				}
+				batch.add(entry);
+			}
+			if (!batch.isEmpty()) {
+				for (Entry entry : batch) {
+					entry.sending = true;
+				}
+				return batch;
+			}
+			try {
+				if (wakeAt == Long.MAX_VALUE) {
+					wait();
+				} else {
+					wait(Math.max(1, wakeAt - now));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Send the batch, and wait for all of it to finish. Works added to the
+	 * same ORCID record go in one bulk request.
+	 */
+	private void send(List<Entry> batch) throws OrcidClientException {
+		markAdds(batch);
+
+		Map<String, List<Entry>> bulkAdds = new LinkedHashMap<>();
+		List<Entry> singles = new ArrayList<>();
+		for (Entry entry : batch) {
+			if (entry.op.getKind() == Kind.ADD
+					&& entry.op.getType() == ElementType.WORK) {
+				bulkAdds.computeIfAbsent(entry.op.getOrcid(),
+						k -> new ArrayList<>()).add(entry);
+			} else {
+				singles.add(entry);
+			}
+		}
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Map.Entry<String, List<Entry>> group : bulkAdds.entrySet()) {
+			List<Entry> entries = group.getValue();
+			if (entries.size() == 1) {
+				singles.add(entries.get(0));
+				continue;
+			}
+			List<Operation> ops = new ArrayList<>();
+			for (Entry entry : entries) {
+				ops.add(entry.op);
+			}
+			List<CompletableFuture<String>> results = sender
+					.sendBulkAdds(group.getKey(), ops);
+			for (int i = 0; i < entries.size(); i++) {
+				Entry entry = entries.get(i);
+				futures.add(results.get(i).handle((putCode, t) -> {
+					finished(entry, putCode, t);
+					return null;
+				}));
+			}
+		}
+		futures.add(AsyncUtil.boundedFanOut(singles, settings.maxInFlight,
+				entry -> sender.send(entry.op).handle((putCode, t) -> {
+					finished(entry, putCode, t);
+					return (Void) null;
+				})).thenApply(list -> null));
+
+		AsyncUtil.await(CompletableFuture
+				.allOf(futures.toArray(new CompletableFuture<?>[0])));
+	}
+
+	/**
+	 * Mark the ADDs in the journal, and sync it, before any of them is sent.
+	 * If that fails, send nothing.
+	 */
+	private void markAdds(List<Entry> batch) throws OrcidClientException {
+		try {
+			boolean marked = false;
+			for (Entry entry : batch) {
+				if (entry.op.getKind() == Kind.ADD) {
+					journal.markSending(entry.seq);
+					marked = true;
+				}
+			}
+			if (marked) {
+				journal.sync();
+			}
+		} catch (OrcidClientException e) {
+			synchronized (this) {
+				for (Entry entry : batch) {
+					entry.sending = false;
+				}
+			}
+			throw e;
+		}
+	}
+
+	private synchronized void finished(Entry entry, String putCode,
+			Throwable t) {
+		try {
+			entry.sending = false;
+			if (t == null) {
+				forget(entry);
+				for (CompletableFuture<String> f : entry.futures.keySet()) {
+					f.complete(putCode);
+				}
+				return;
+			}
+
+			Throwable cause = AsyncUtil.unwrap(t);
+			entry.attempts++;
+			if (EditSender.isTransient(entry.op, cause)
+					&& entry.attempts < settings.maxAttempts) {
+				long delay = Math.min(settings.maxBackoffMillis,
+						settings.initialBackoffMillis << Math
+								.min(entry.attempts - 1, 30));
+				entry.notBefore = System.currentTimeMillis() + delay;
+				if (entry.op.getKind() == Kind.ADD) {
+					unmark(entry);
+				}
+				log.warn(entry.op + " failed (attempt " + entry.attempts
+						+ "), will retry in " + delay + " ms: "
+						+ cause.getMessage());
+				return;
+			}
+
+			log.error(entry.op + " failed after " + entry.attempts
+					+ " attempts: " + cause.getMessage());
+			forget(entry);
+			failures.add(new Failure(entry.op, cause));
+			entry.fail(cause);
+		} finally {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * The ADD was refused, so it was not applied. Record it again, to clear
+	 * the mark.
+	 */
+	private void unmark(Entry entry) {
+		try {
+			journal.append(entry.seq, entry.op);
+		} catch (OrcidClientException e) {
+			log.error("Failed to record that " + entry.op + " was refused. "
+					+ "It will not be sent again after a restart.", e);
+		}
+	}
+
+	private void forget(Entry entry) {
+		pending.remove(entry.seq);
+		try {
+			journal.finish(entry.seq);
+		} catch (OrcidClientException e) {
+			log.error("Failed to record that " + entry.op
+					+ " is finished. It may be sent again after a restart.", e);
+		}
+	}
+
+	private synchronized void compactIfNeeded() throws OrcidClientException {
+		if (journal.size() > settings.compactBytes) {
+			Map<Long, Operation> ops = new LinkedHashMap<>();
+			for (Entry entry : pending.values()) {
+				ops.put(entry.seq, entry.op);
+			}
+			journal.rewrite(ops);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private static class Entry {
+		final long seq;
+		/** Each future, and the edit that its caller submitted. */
+		final Map<CompletableFuture<String>, Operation> futures =
+				new LinkedHashMap<>();
+		Operation op;
+		int attempts;
+		long notBefore;
+		boolean sending;
+
+		Entry(long seq, Operation op) {
+			this.seq = seq;
+			this.op = op;
+		}
+
+		void fail(Throwable cause) {
+			for (CompletableFuture<String> f : futures.keySet()) {
+				f.completeExceptionally(cause);
+			}
+		}
+
+		/**
+		 * Edits with the same key must be sent in order. An added element has
+		 * no put code yet, so nothing can follow it.
+		 */
+		String key() {
+			if (op.getPutCode() == null) {
+				return null;
+			}
+			return op.getOrcid() + "/" + op.getType().getPath() + "/"
+					+ op.getPutCode();
+		}
+	}
+
+	/**
+	 * An edit that was dropped, and why.
+	 */
+	public static class Failure {
+		private final Operation operation;
+		private final Throwable cause;
+
+		Failure(Operation operation, Throwable cause) {
+			this.operation = operation;
+			this.cause = cause;
+		}
+
+		public Operation getOperation() {
+			return operation;
+		}
+
+		public Throwable getCause() {
+			return cause;
+		}
+
+		@Override
+		public String toString() {
+			return operation + " failed: " + cause.getMessage();
+		}
+	}
+
+	public static class Settings {
+		private int batchSize = 20;
+		private int maxInFlight = 4;
+		private long syncIntervalMillis = 100;
+		private int maxAttempts = 10;
+		private long initialBackoffMillis = 1000;
+		private long maxBackoffMillis = 300000;
+		private long compactBytes = 1024 * 1024;
+		private long coalesceWindowMillis = 0;
+
+		/** The most edits to take from the queue at once. */
+		public Settings setBatchSize(int batchSize) {
+			this.batchSize = positive("batchSize", batchSize);
+			return this;
+		}
+
+		/** The most requests in flight at once, not counting bulk adds. */
+		public Settings setMaxInFlight(int maxInFlight) {
+			this.maxInFlight = positive("maxInFlight", maxInFlight);
+			return this;
+		}
+
+		/** How often to force the journal to disk. */
+		public Settings setSyncIntervalMillis(long syncIntervalMillis) {
+			this.syncIntervalMillis = positive("syncIntervalMillis",
+					syncIntervalMillis);
+			return this;
+		}
+
+		/** How many times to try an edit that fails transiently. */
+		public Settings setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = positive("maxAttempts", maxAttempts);
+			return this;
+		}
+
+		public Settings setBackoffMillis(long initial, long max) {
+			this.initialBackoffMillis = positive("initial backoff", initial);
+			this.maxBackoffMillis = Math.max(initial, max);
+			return this;
+		}
+
+		/**
+		 * How long each edit waits before it is sent, so later edits to the
+		 * same element can replace it. Zero sends each edit as soon as
+		 * possible; edits are still combined while they wait for a worker.
+		 */
+		public Settings setCoalesceWindowMillis(long coalesceWindowMillis) {
+			if (coalesceWindowMillis < 0) {
+				throw new IllegalArgumentException(
+						"coalesceWindowMillis must not be negative: "
+								+ coalesceWindowMillis);
+			}
+			this.coalesceWindowMillis = coalesceWindowMillis;
+			return this;
+		}
+
+		/** Rewrite the journal when it grows larger than this. */
+		public Settings setCompactBytes(long compactBytes) {
+			this.compactBytes = positive("compactBytes", compactBytes);
+			return this;
+		}
+
+		private static int positive(String name, int value) {
+			if (value < 1) {
+				throw new IllegalArgumentException(
+						name + " must be positive: " + value);
+			}
+			return value;
+		}
+
+		private static long positive(String name, long value) {
+			if (value < 1) {
+				throw new IllegalArgumentException(
+						name + " must be positive: " + value);
+			}
+			return value;
+		}
+	}
+}
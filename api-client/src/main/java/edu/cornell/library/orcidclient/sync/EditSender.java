@@ -0,0 +1,173 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.orcid.jaxb.model.record_v2.PersonExternalIdentifier;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.ExternalIdsEditAction;
+import edu.cornell.library.orcidclient.actions.WorksBulkAddAction;
+import edu.cornell.library.orcidclient.actions.WorksEditAction;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.auth.MultiUserAccessTokenCache;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.CircuitBreakerHttpWrapper.CircuitOpenException;
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.sync.EditPlan.ElementType;
+import edu.cornell.library.orcidclient.sync.EditPlan.Kind;
+import edu.cornell.library.orcidclient.sync.EditPlan.Operation;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Send EditPlan operations through the edit actions, with the access token
+ * for each ORCID record.
+ */
+public class EditSender {
+	/**
+	 * Where to find the access token for each ORCID record.
+	 */
+	public interface TokenSource {
+		/** Return null if there is no token for this ORCID iD. */
+		AccessToken getAccessToken(String orcid) throws OrcidClientException;
+
+		/** Find the tokens with this scope in a MultiUserAccessTokenCache. */
+		static TokenSource from(MultiUserAccessTokenCache cache,
+				ApiScope scope) {
+			return orcid -> cache.getToken(orcid, scope);
+		}
+	}
+
+	private final WorksEditAction worksAction;
+	private final ExternalIdsEditAction externalIdsAction;
+	private final WorksBulkAddAction bulkAddAction;
+	private final TokenSource tokenSource;
+
+	public EditSender(WorksEditAction worksAction,
+			ExternalIdsEditAction externalIdsAction,
+			WorksBulkAddAction bulkAddAction, TokenSource tokenSource) {
+		this.worksAction = worksAction;
+		this.externalIdsAction = externalIdsAction;
+		this.bulkAddAction = bulkAddAction;
+		this.tokenSource = tokenSource;
+	}
+
+	/**
+	 * Send one operation. The future holds the put code of an added element,
+	 * or null.
+	 */
+	public CompletableFuture<String> send(Operation op) {
+		try {
+			AccessToken token = tokenFor(op.getOrcid());
+			Object element = op.getElement();
+			boolean isWork = op.getType() == ElementType.WORK;
+			switch (op.getKind()) {
+			case ADD:
+				return isWork ? worksAction.addAsync(token, (Work) element)
+						: externalIdsAction.addAsync(token,
+								(PersonExternalIdentifier) element);
+			case UPDATE:
+				return (isWork
+						? worksAction.updateAsync(token, (Work) element,
+								op.getPutCode())
+						: externalIdsAction.updateAsync(token,
+								(PersonExternalIdentifier) element,
+								op.getPutCode())).thenApply(v -> null);
+			default:
+				return (isWork ? worksAction.removeAsync(token, op.getPutCode())
+						: externalIdsAction.removeAsync(token, op.getPutCode()))
+								.thenApply(v -> null);
+			}
+		} catch (OrcidClientException | RuntimeException e) {
+			return AsyncUtil.failed(e);
+		}
+	}
+
+	/**
+	 * Send Work ADD operations for a single ORCID record in bulk. The result
+	 * has a future for each operation, in order.
+	 */
+	public List<CompletableFuture<String>> sendBulkAdds(String orcid,
+			List<Operation> ops) {
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (int i = 0; i < ops.size(); i++) {
+			futures.add(new CompletableFuture<>());
+		}
+		try {
+			AccessToken token = tokenFor(orcid);
+			List<Work> works = new ArrayList<>();
+			for (Operation op : ops) {
+				works.add((Work) op.getElement());
+			}
+			bulkAddAction.addAllAsync(token, works, 1)
+					.whenComplete((outcomes, t) -> {
+						for (int i = 0; i < futures.size(); i++) {
+							if (t != null) {
+								futures.get(i).completeExceptionally(
+										AsyncUtil.unwrap(t));
+							} else {
+								complete(futures.get(i), outcomes.get(i));
+							}
+						}
+					});
+		} catch (OrcidClientException | RuntimeException e) {
+			for (CompletableFuture<String> future : futures) {
+				future.completeExceptionally(e);
+			}
+		}
+		return futures;
+	}
+
+	private static void complete(CompletableFuture<String> future,
+			WorksBulkAddAction.Outcome outcome) {
+		if (outcome.isSuccess()) {
+			future.complete(outcome.getPutCode());
+		} else if (outcome.getException() != null) {
+			future.completeExceptionally(outcome.getException());
+		} else {
+			future.completeExceptionally(new OrcidClientException(
+					"Failed to add work: " + outcome.getErrorMessage()));
+		}
+	}
+
+	private AccessToken tokenFor(String orcid) throws OrcidClientException {
+		AccessToken token = tokenSource.getAccessToken(orcid);
+		if (token == null) {
+			throw new OrcidClientException("No access token for " + orcid);
+		}
+		return token;
+	}
+
+	/**
+	 * Might the operation succeed if tried again later? Only if it failed to
+	 * reach the server, or the server was overloaded or failing.
+	 *
+	 * An ADD is not safe to repeat: after a timeout, it may have been applied
+	 * anyway. So it is tried again only if the server refused it with 429 (Too
+	 * Many Requests) or 503 (Service Unavailable), or if it was never sent
+	 * because the circuit was open.
+	 */
+	public static boolean isTransient(Operation op, Throwable failure) {
+		boolean isAdd = op.getKind() == Kind.ADD;
+		for (Throwable t = AsyncUtil.unwrap(failure); t != null; t = t
+				.getCause()) {
+			if (t instanceof HttpStatusCodeException) {
+				int status = ((HttpStatusCodeException) t).getStatusCode();
+				if (isAdd) {
+					return status == 429 || status == 503;
+				}
+				return status == 429 || status >= 500;
+			}
+			if (t instanceof CircuitOpenException) {
+				return true;
+			}
+			if (t instanceof IOException) {
+				return !isAdd;
+			}
+		}
+		return false;
+	}
+}
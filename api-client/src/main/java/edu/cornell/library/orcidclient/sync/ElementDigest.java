@@ -0,0 +1,93 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.orcid.jaxb.model.record_v2.PersonExternalIdentifier;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * A digest of the content of a Work or a PersonExternalIdentifier, to tell
+ * whether two elements say the same thing.
+ *
+ * The fields that ORCID manages are ignored: the put code, path, source,
+ * visibility, and the created and last-modified dates. So an element that we
+ * built compares equal to the same element as read back from the record.
+ */
+public final class ElementDigest {
+	private ElementDigest() {
+		// No instances.
+	}
+
+	/**
+	 * The SHA-256 of the Work's XML, as hex. The Work is not modified.
+	 */
+	public static String of(Work work) throws OrcidClientException {
+		Work copy = copy(work, Work.class);
+		copy.setPutCode(null);
+		copy.setPath(null);
+		copy.setSource(null);
+		copy.setVisibility(null);
+		copy.setCreatedDate(null);
+		copy.setLastModifiedDate(null);
+		return sha256(XmlCodec.INSTANCE.encode(copy));
+	}
+
+	/**
+	 * The SHA-256 of the external ID's XML, as hex. The external ID is not
+	 * modified.
+	 */
+	public static String of(PersonExternalIdentifier externalId)
+			throws OrcidClientException {
+		PersonExternalIdentifier copy = copy(externalId,
+				PersonExternalIdentifier.class);
+		copy.setPutCode(null);
+		copy.setPath(null);
+		copy.setSource(null);
+		copy.setVisibility(null);
+		copy.setCreatedDate(null);
+		copy.setLastModifiedDate(null);
+		copy.setDisplayIndex(null);
+		return sha256(XmlCodec.INSTANCE.encode(copy));
+	}
+
+	/**
+	 * Either of the above.
+	 */
+	public static String of(Object element) throws OrcidClientException {
+		if (element instanceof Work) {
+			return of((Work) element);
+		}
+		if (element instanceof PersonExternalIdentifier) {
+			return of((PersonExternalIdentifier) element);
+		}
+		throw new OrcidClientException(
+				"Can't compute a digest for " + element);
+	}
+
+	/** A deep copy, by way of XML. */
+	static <T> T copy(T element, Class<T> clazz)
+			throws OrcidClientException {
+		return XmlCodec.INSTANCE.decode(XmlCodec.INSTANCE.encode(element),
+				clazz);
+	}
+
+	static String sha256(String text) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256")
+					.digest(text.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+						.append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every JVM has SHA-256", e);
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package edu.cornell.library.orcidclient.sync;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.orcid.jaxb.model.error_v2.OrcidError;
+import org.orcid.jaxb.model.record.bulk.BulkElement;
+import org.orcid.jaxb.model.record.summary_v2.WorkGroup;
+import org.orcid.jaxb.model.record.summary_v2.WorkSummary;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.ExternalID;
+import org.orcid.jaxb.model.record_v2.ExternalIDs;
+import org.orcid.jaxb.model.record_v2.Relationship;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkTitle;
+import org.orcid.jaxb.model.record_v2.WorkType;
+
+import edu.cornell.library.orcidclient.actions.WorksBulkAddAction;
+import edu.cornell.library.orcidclient.actions.WorksEditAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksBulkAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksSummariesAction;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+
+/**
+ * Make the works on an ORCID record match the works we want there.
+ *
+ * Only the works that our client added are considered: a work from another
+ * source is never updated or removed.
+ *
+ * A desired work matches a work on the record if they share an external ID
+ * with a relationship of SELF (compared without regard to case). A desired work
+ * with no such IDs matches on its type and title instead.
+ *
+ * The plan:
+ * <ul>
+ * <li>A desired work with no match is added.</li>
+ * <li>A desired work with a match is compared to the full work on the record.
+ * If the content differs, the work is updated. If not, nothing is sent.</li>
+ * <li>A work on the record with no desired match is removed. So is any
+ * duplicate of a work that was matched already.</li>
+ * </ul>
+ *
+ * The adds are sent in bulk. The updates and removes are sent with as many as
+ * maxInFlight requests outstanding. A failure does not stop the other edits;
+ * it is reported in the Result.
+ */
+public class WorksSynchronizer {
+	private static final Log log = LogFactory.getLog(WorksSynchronizer.class);
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+	private final String clientId;
+	private final ReadWorksSummariesAction summariesAction;
+	private final ReadWorksBulkAction bulkReadAction;
+	private final WorksBulkAddAction bulkAddAction;
+	private final WorksEditAction editAction;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	/**
+	 * @param clientId
+	 *            Works whose source is this client ID belong to us.
+	 */
+	public WorksSynchronizer(String clientId,
+			ReadWorksSummariesAction summariesAction,
+			ReadWorksBulkAction bulkReadAction,
+			WorksBulkAddAction bulkAddAction, WorksEditAction editAction) {
+		this.clientId = clientId;
+		this.summariesAction = summariesAction;
+		this.bulkReadAction = bulkReadAction;
+		this.bulkAddAction = bulkAddAction;
+		this.editAction = editAction;
+	}
+
+	public WorksSynchronizer setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(
+					"maxInFlight must be positive: " + maxInFlight);
+		}
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	/**
+	 * Plan the edits, and apply them.
+	 */
+	public Result synchronize(AccessToken accessToken,
+			Collection<Work> desired) throws OrcidClientException {
+		return apply(accessToken, plan(accessToken, desired));
+	}
+
+	/**
+	 * Read the record and decide what to change, without changing it.
+	 */
+	public Plan plan(AccessToken accessToken, Collection<Work> desired)
+			throws OrcidClientException {
+		List<WorkSummary> ours = ourSummaries(
+				summariesAction.readSummaries(accessToken));
+
+		Map<String, WorkSummary> byKey = new HashMap<>();
+		for (WorkSummary summary : ours) {
+			for (String key : matchKeys(summary.getExternalIdentifiers(),
+					summary.getType(), summary.getTitle())) {
+				byKey.putIfAbsent(key, summary);
+			}
+		}
+
+		List<Work> adds = new ArrayList<>();
+		Map<String, Work> matched = new LinkedHashMap<>();
+		Set<WorkSummary> claimed = Collections
+				.newSetFromMap(new IdentityHashMap<>());
+		for (Work work : desired) {
+			WorkSummary match = findMatch(work, byKey, claimed);
+			if (match == null) {
+				adds.add(work);
+			} else {
+				claimed.add(match);
+				matched.put(String.valueOf(match.getPutCode()), work);
+			}
+		}
+
+		List<String> removes = new ArrayList<>();
+		for (WorkSummary summary : ours) {
+			if (!claimed.contains(summary)) {
+				removes.add(String.valueOf(summary.getPutCode()));
+			}
+		}
+
+		Map<String, Work> updates = changedWorks(accessToken, matched);
+		Plan plan = new Plan(adds, updates, removes,
+				matched.size() - updates.size());
+		log.debug("Planned for " + accessToken.getOrcid() + ": " + plan);
+		return plan;
+	}
+
+	private List<WorkSummary> ourSummaries(Works works) {
+		List<WorkSummary> ours = new ArrayList<>();
+		for (WorkGroup group : works.getWorkGroup()) {
+			for (WorkSummary summary : group.getWorkSummary()) {
+				if (clientId.equals(sourceOf(summary))) {
+					ours.add(summary);
+				}
+			}
+		}
+		return ours;
+	}
+
+	/**
+	 * The client ID of the source, or the ORCID iD if the source is a person.
+	 * An ORCID iD never matches a client ID.
+	 */
+	private static String sourceOf(WorkSummary summary) {
+		if (summary.getSource() == null) {
+			return null;
+		}
+		return summary.getSource().retrieveSourcePath();
+	}
+
+	private static WorkSummary findMatch(Work work,
+			Map<String, WorkSummary> byKey, Set<WorkSummary> claimed) {
+		for (String key : matchKeys(work.getExternalIdentifiers(),
+				work.getWorkType(), work.getWorkTitle())) {
+			WorkSummary summary = byKey.get(key);
+			if (summary != null && !claimed.contains(summary)) {
+				return summary;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The SELF external IDs, like "doi:10.1000/xyz123", or if there are none,
+	 * the type and title, like "title:journal_article:an example".
+	 */
+	static List<String> matchKeys(ExternalIDs externalIds, WorkType type,
+			WorkTitle title) {
+		List<String> keys = new ArrayList<>();
+		if (externalIds != null) {
+			for (ExternalID id : externalIds.getExternalIdentifier()) {
+				if (id.getRelationship() == null
+						|| id.getRelationship() == Relationship.SELF) {
+					keys.add(normalize(id.getType()) + ":"
+							+ normalize(id.getValue()));
+				}
+			}
+		}
+		if (keys.isEmpty() && title != null && title.getTitle() != null) {
+			keys.add("title:" + ((type == null) ? "" : type.value()) + ":"
+					+ normalize(title.getTitle().getContent()));
+		}
+		return keys;
+	}
+
+	private static String normalize(String s) {
+		return (s == null) ? "" : s.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Read the matched works in full, and keep the ones whose content
+	 * differs from what we want.
+	 */
+	private Map<String, Work> changedWorks(AccessToken accessToken,
+			Map<String, Work> matched) throws OrcidClientException {
+		Map<String, Work> changed = new LinkedHashMap<>();
+		if (matched.isEmpty()) {
+			return changed;
+		}
+
+		List<String> putCodes = new ArrayList<>(matched.keySet());
+		List<BulkElement> current = bulkReadAction.readBulk(accessToken,
+				putCodes);
+		for (int i = 0; i < putCodes.size(); i++) {
+			Work wanted = matched.get(putCodes.get(i));
+			BulkElement element = (i < current.size()) ? current.get(i) : null;
+			if (!(element instanceof Work)) {
+				log.warn("Can't compare work " + putCodes.get(i) + ": "
+						+ describe(element));
+				changed.put(putCodes.get(i), wanted);
+			} else if (!ElementDigest.of(wanted)
+					.equals(ElementDigest.of((Work) element))) {
+				changed.put(putCodes.get(i), wanted);
+			}
+		}
+		return changed;
+	}
+
+	private static String describe(BulkElement element) {
+		if (element instanceof OrcidError) {
+			return ((OrcidError) element).getDeveloperMessage();
+		}
+		return String.valueOf(element);
+	}
+
+	/**
+	 * Send the edits in the plan.
+	 */
+	public Result apply(AccessToken accessToken, Plan plan)
+			throws OrcidClientException {
+		Result result = new Result();
+
+		for (WorksBulkAddAction.Outcome outcome : bulkAddAction
+				.addAll(accessToken, plan.getAdds())) {
+			if (outcome.isSuccess()) {
+				result.added++;
+			} else {
+				result.failures.add("Add failed: " + outcome.getErrorMessage());
+			}
+		}
+
+		List<String> updateFailures = AsyncUtil.await(AsyncUtil.boundedFanOut(
+				new ArrayList<>(plan.getUpdates().entrySet()), maxInFlight,
+				entry -> failureOf("Update " + entry.getKey(),
+						updateAsync(accessToken, entry.getValue(),
+								entry.getKey()))));
+		result.updated = record(result, updateFailures);
+
+		List<String> removeFailures = AsyncUtil
+				.await(AsyncUtil.boundedFanOut(plan.getRemoves(), maxInFlight,
+						putCode -> failureOf("Remove " + putCode,
+								editAction.removeAsync(accessToken, putCode))));
+		result.removed = record(result, removeFailures);
+
+		log.info("Synchronized " + accessToken.getOrcid() + ": " + result);
+		return result;
+	}
+
+	/**
+	 * The edit action sets the put code on the work it sends, so send a copy,
+	 * and leave the caller's work as it was.
+	 */
+	private CompletableFuture<Void> updateAsync(AccessToken accessToken,
+			Work work, String putCode) {
+		try {
+			return editAction.updateAsync(accessToken,
+					ElementDigest.copy(work, Work.class), putCode);
+		} catch (OrcidClientException e) {
+			return AsyncUtil.failed(e);
+		}
+	}
+
+	/**
+	 * A future that completes with null on success, or a message on failure,
+	 * so one failure doesn't stop the fan-out.
+	 */
+	private static CompletableFuture<String> failureOf(String what,
+			CompletableFuture<Void> future) {
+		return future.handle((v, t) -> (t == null) ? null
+				: what + " failed: " + AsyncUtil.unwrap(t).getMessage());
+	}
+
+	private static int record(Result result, List<String> failures) {
+		int succeeded = 0;
+		for (String failure : failures) {
+			if (failure == null) {
+				succeeded++;
+			} else {
+				result.failures.add(failure);
+			}
+		}
+		return succeeded;
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The edits that would make the record match. Updates are keyed by put
+	 * code.
+	 */
+	public static class Plan {
+		private final List<Work> adds;
+		private final Map<String, Work> updates;
+		private final List<String> removes;
+		private final int unchanged;
+
+		public Plan(List<Work> adds, Map<String, Work> updates,
+				List<String> removes, int unchanged) {
+			this.adds = Collections.unmodifiableList(new ArrayList<>(adds));
+			this.updates = Collections
+					.unmodifiableMap(new LinkedHashMap<>(updates));
+			this.removes = Collections
+					.unmodifiableList(new ArrayList<>(removes));
+			this.unchanged = unchanged;
+		}
+
+		public List<Work> getAdds() {
+			return adds;
+		}
+
+		public Map<String, Work> getUpdates() {
+			return updates;
+		}
+
+		public List<String> getRemoves() {
+			return removes;
+		}
+
+		/** How many desired works are on the record already, as desired. */
+		public int getUnchanged() {
+			return unchanged;
+		}
+
+		public boolean isEmpty() {
+			return adds.isEmpty() && updates.isEmpty() && removes.isEmpty();
+		}
+
+		/**
+		 * Add these edits to an EditPlan, to be saved and executed later.
+		 */
+		public EditPlan.Builder addTo(EditPlan.Builder builder, String orcid)
+				throws OrcidClientException {
+			for (Work work : adds) {
+				builder.add(orcid, work);
+			}
+			for (Map.Entry<String, Work> entry : updates.entrySet()) {
+				builder.update(orcid, entry.getKey(), entry.getValue());
+			}
+			for (String putCode : removes) {
+				builder.remove(orcid, EditPlan.ElementType.WORK, putCode);
+			}
+			return builder;
+		}
+
+		@Override
+		public String toString() {
+			return "Plan[adds=" + adds.size() + ", updates=" + updates.size()
+					+ ", removes=" + removes.size() + ", unchanged="
+					+ unchanged + "]";
+		}
+	}
+
+	/**
+	 * How many edits succeeded, and why the others failed.
+	 */
+	public static class Result {
+		private int added;
+		private int updated;
+		private int removed;
+		private final List<String> failures = new ArrayList<>();
+
+		public int getAdded() {
+			return added;
+		}
+
+		public int getUpdated() {
+			return updated;
+		}
+
+		public int getRemoved() {
+			return removed;
+		}
+
+		public List<String> getFailures() {
+			return Collections.unmodifiableList(failures);
+		}
+
+		public boolean isSuccess() {
+			return failures.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return "Result[added=" + added + ", updated=" + updated
+					+ ", removed=" + removed + ", failures=" + failures.size()
+					+ "]";
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package edu.cornell.library.orcidclient.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * Some convenience methods for composing CompletableFutures with code that
+ * throws OrcidClientException.
+ */
+public class AsyncUtil {
+	/**
+	 * Like Function, but may throw an OrcidClientException.
+	 */
+	public interface CheckedFunction<T, R> {
+		R apply(T t) throws OrcidClientException;
+	}
+
+	/**
+	 * A future that has already failed.
+	 */
+	public static <T> CompletableFuture<T> failed(Throwable t) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(t);
+		return future;
+	}
+
+	/**
+	 * Adapt a CheckedFunction for use with thenApply(). An exception is passed
+	 * along, wrapped in a CompletionException.
+	 */
+	public static <T, R> Function<T, R> checked(CheckedFunction<T, R> f) {
+		return t -> {
+			try {
+				return f.apply(t);
+			} catch (OrcidClientException e) {
+				throw new CompletionException(e);
+			}
+		};
+	}
+
+	/**
+	 * Remove any layers of CompletionException or ExecutionException, to find
+	 * the exception that actually occurred.
+	 */
+	public static Throwable unwrap(Throwable t) {
+		Throwable cause = t;
+		while ((cause instanceof CompletionException
+				|| cause instanceof ExecutionException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+	/**
+	 * Wait for the future to complete, and return its value. If the future
+	 * failed, throw the OrcidClientException or RuntimeException that caused
+	 * it. Any other cause is wrapped in an OrcidClientException.
+	 */
+	public static <T> T await(CompletableFuture<T> future)
+			throws OrcidClientException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OrcidClientException("Interrupted while waiting", e);
+		} catch (ExecutionException e) {
+			Throwable cause = unwrap(e);
+			if (cause instanceof OrcidClientException) {
+				throw (OrcidClientException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new OrcidClientException("Asynchronous request failed",
+						cause);
+			}
+		}
+	}
+
+	/**
+	 * Apply the task to each of the items, with no more than maxInFlight of
+	 * the resulting futures incomplete at any time. The results are in the
+	 * same order as the items.
+	 * 
+	 * If any task fails, no more tasks are started, and the result fails with
+	 * the same cause.
+	 */
+	public static <I, R> CompletableFuture<List<R>> boundedFanOut(
+			List<I> items, int maxInFlight,
+			Function<? super I, CompletableFuture<R>> task) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(
+					"maxInFlight must be positive: " + maxInFlight);
+		}
+		return new FanOut<I, R>(items, task).start(maxInFlight);
+	}
+
+	/**
+	 * Start the task after the delay, without blocking a thread while
+	 * waiting. The task runs on a shared timer thread, so it should only start
+	 * the work, not do it.
+	 */
+	public static <T> CompletableFuture<T> afterDelay(long delay,
+			TimeUnit unit, Supplier<CompletableFuture<T>> task) {
+		if (delay <= 0) {
+			return task.get();
+		}
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Timer.SCHEDULER.schedule(() -> {
+			try {
+				task.get().whenComplete((value, t) -> {
+					if (t == null) {
+						result.complete(value);
+					} else {
+						result.completeExceptionally(unwrap(t));
+					}
+				});
+			} catch (Throwable t) {
+				result.completeExceptionally(t);
+			}
+		}, delay, unit);
+		return result;
+	}
+
+	private AsyncUtil() {
+		// No reason to instantiate.
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Holds the timer thread, which is not created until it is needed.
+	 */
+	private static class Timer {
+		static final ScheduledExecutorService SCHEDULER = Executors
+				.newSingleThreadScheduledExecutor(r -> {
+					Thread thread = new Thread(r, "orcid-client-timer");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Each time a task completes, start the next one. A task that completes
+	 * immediately is handled in a loop, rather than by recursion, so a
+	 * synchronous HttpWrapper can't overflow the stack.
+	 */
+	private static class FanOut<I, R> {
+		private final List<I> items;
+		private final Function<? super I, CompletableFuture<R>> task;
+		private final List<R> results;
+		private final AtomicInteger nextIndex = new AtomicInteger();
+		private final AtomicInteger remaining;
+		private final CompletableFuture<List<R>> result = new CompletableFuture<>();
+
+		public FanOut(List<I> items,
+				Function<? super I, CompletableFuture<R>> task) {
+			this.items = items;
+			this.task = task;
+			this.results = new ArrayList<>(
+					Collections.<R> nCopies(items.size(), null));
+			this.remaining = new AtomicInteger(items.size());
+		}
+
+		public CompletableFuture<List<R>> start(int maxInFlight) {
+			if (items.isEmpty()) {
+				result.complete(Collections.emptyList());
+			}
+			for (int i = 0; i < maxInFlight && i < items.size(); i++) {
+				launchNext();
+			}
+			return result;
+		}
+
+		private void launchNext() {
+			while (!result.isDone()) {
+				int index = nextIndex.getAndIncrement();
+				if (index >= items.size()) {
+					return;
+				}
+
+				CompletableFuture<R> future;
+				try {
+					future = task.apply(items.get(index));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+					return;
+				}
+
+				if (future.isDone()) {
+					record(index, future);
+				} else {
+					future.whenComplete((r, t) -> {
+						record(index, future);
+						launchNext();
+					});
+					return;
+				}
+			}
+		}
+
+		private void record(int index, CompletableFuture<R> future) {
+			try {
+				R value = future.join();
+				synchronized (results) {
+					results.set(index, value);
+				}
+				if (remaining.decrementAndGet() == 0) {
+					synchronized (results) {
+						result.complete(Collections.unmodifiableList(results));
+					}
+				}
+			} catch (CompletionException | CancellationException e) {
+				result.completeExceptionally(unwrap(e));
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package edu.cornell.library.orcidclient.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Some convenience methods for files that must survive a crash: the journals,
+ * progress files and token files.
+ */
+public class FileUtil {
+	/**
+	 * Writes the new contents of a file, at the given path.
+	 */
+	public interface FileContents {
+		void writeTo(Path path) throws IOException;
+	}
+
+	/**
+	 * Writes the new contents of a text file.
+	 */
+	public interface TextContents {
+		void writeTo(Writer out) throws IOException;
+	}
+
+	/**
+	 * If the file ends with a line cut short by a crash, end that line, so the
+	 * next line is not joined to it. A missing or empty file is left alone.
+	 */
+	public static void endTornLine(Path path) throws IOException {
+		if (!Files.exists(path) || Files.size(path) == 0) {
+			return;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(),
+				"rw")) {
+			file.seek(file.length() - 1);
+			if (file.read() != '\n') {
+				file.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Replace the file, so a crash leaves either the old contents or the new.
+	 *
+	 * The contents are written beside the file, and must be synced by the
+	 * writer. Then the current handle on the file is closed, and the new file
+	 * is moved over the old one. The caller must open the file again.
+	 */
+	public static void replace(Path path, Closeable current,
+			FileContents contents) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		contents.writeTo(temp);
+		current.close();
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Like replace(), for a text file in UTF-8. The contents are synced here.
+	 */
+	public static void replaceText(Path path, Closeable current,
+			TextContents contents) throws IOException {
+		replace(path, current, temp -> {
+			try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+					Writer out = new BufferedWriter(new OutputStreamWriter(
+							stream, StandardCharsets.UTF_8))) {
+				contents.writeTo(out);
+				out.flush();
+				stream.getFD().sync();
+			}
+		});
+	}
+
+	private FileUtil() {
+		// No reason to instantiate.
+	}
+}
@@ -1,7 +1,12 @@
 package edu.cornell.library.orcidclient.util;
 
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -9,6 +14,9 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.logging.Log;
@@ -18,41 +26,93 @@ import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
 
 /**
  * Some convenience methods for dealing with the XML messages in the ORCID API.
+ * 
+ * Creating a JAXBContext is expensive, so we create only one for each class,
+ * and keep it. Marshallers and Unmarshallers are cheaper, but not
+ * thread-safe, so we keep a small pool of each for every class, and borrow
+ * from the pool as needed.
+ * 
+ * A large message can be unmarshalled directly from an InputStream, so the
+ * text of the message is never held in memory.
  */
 public class OrcidXmlUtil {
 	private static final Log log = LogFactory.getLog(OrcidXmlUtil.class);
 
+	/** How many idle Marshallers or Unmarshallers to keep, for each class. */
+	private static final int POOL_SIZE = 16;
+
+	private static final ConcurrentMap<Class<?>, JaxbPool> pools = new ConcurrentHashMap<>();
+
+	private static final XMLInputFactory inputFactory = createInputFactory();
+
 	public static <T> T unmarshall(String xml, Class<T> clazz)
 			throws OrcidClientException {
 		try {
-			String packageName = clazz.getPackage().getName();
-			JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-
-			Unmarshaller u = jaxbContext.createUnmarshaller();
-
-			StreamSource source = new StreamSource(new StringReader(xml));
-			JAXBElement<T> doc = u.unmarshal(source, clazz);
-			log.debug("unmarshall string=" + xml + "\n, message="
-					+ doc.getValue());
-			return doc.getValue();
+			JaxbPool pool = getPool(clazz);
+			Unmarshaller u = pool.borrowUnmarshaller();
+			try {
+				StreamSource source = new StreamSource(new StringReader(xml));
+				JAXBElement<T> doc = u.unmarshal(source, clazz);
+				if (log.isDebugEnabled()) {
+					log.debug("unmarshall string=" + xml + "\n, message="
+							+ doc.getValue());
+				}
+				return doc.getValue();
+			} finally {
+				pool.release(u);
+			}
 		} catch (JAXBException e) {
 			throw new OrcidClientException(
 					"Failed to unmarshall the message '" + xml + "'", e);
 		}
 	}
 
+	/**
+	 * Unmarshall the message as it is read from the stream. The stream is not
+	 * closed.
+	 */
+	public static <T> T unmarshall(InputStream in, Class<T> clazz)
+			throws OrcidClientException {
+		XMLStreamReader reader = null;
+		try {
+			JaxbPool pool = getPool(clazz);
+			Unmarshaller u = pool.borrowUnmarshaller();
+			try {
+				reader = inputFactory.createXMLStreamReader(in);
+				JAXBElement<T> doc = u.unmarshal(reader, clazz);
+				if (log.isDebugEnabled()) {
+					log.debug("unmarshall stream, message=" + doc.getValue());
+				}
+				return doc.getValue();
+			} finally {
+				pool.release(u);
+			}
+		} catch (JAXBException | XMLStreamException e) {
+			throw new OrcidClientException(
+					"Failed to unmarshall the message stream as "
+							+ clazz.getName(),
+					e);
+		} finally {
+			closeQuietly(reader);
+		}
+	}
+
 	public static String marshall(Object xmlObject)
 			throws OrcidClientException {
 		try {
-			JAXBContext jaxbContext = JAXBContext
-					.newInstance(xmlObject.getClass());
-			Marshaller m = jaxbContext.createMarshaller();
-			m.setProperty("jaxb.formatted.output", Boolean.TRUE);
-
-			StringWriter sw = new StringWriter();
-			m.marshal(xmlObject, sw);
-			log.debug("marshall message=" + xmlObject + "\n, string=" + sw);
-			return sw.toString();
+			JaxbPool pool = getPool(xmlObject.getClass());
+			Marshaller m = pool.borrowMarshaller();
+			try {
+				StringWriter sw = new StringWriter();
+				m.marshal(xmlObject, sw);
+				if (log.isDebugEnabled()) {
+					log.debug("marshall message=" + xmlObject + "\n, string="
+							+ sw);
+				}
+				return sw.toString();
+			} finally {
+				pool.release(m);
+			}
 		} catch (PropertyException e) {
 			throw new OrcidClientException("Failed to create the Marshaller",
 					e);
@@ -62,8 +122,85 @@ public class OrcidXmlUtil {
 		}
 	}
 
+	private static JaxbPool getPool(Class<?> clazz) throws JAXBException {
+		JaxbPool pool = pools.get(clazz);
+		if (pool == null) {
+			JaxbPool newPool = new JaxbPool(JAXBContext.newInstance(clazz));
+			pool = pools.putIfAbsent(clazz, newPool);
+			if (pool == null) {
+				pool = newPool;
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * The messages from the API never need a DTD, so don't allow one.
+	 */
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		return factory;
+	}
+
+	private static void closeQuietly(XMLStreamReader reader) {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				log.warn("Failed to close the XMLStreamReader", e);
+			}
+		}
+	}
+
 	private OrcidXmlUtil() {
 		// No reason to instantiate.
 	}
 
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The JAXBContext for a class, with idle Marshallers and Unmarshallers.
+	 * 
+	 * If the pool is empty, borrowing creates a new instance. If the pool is
+	 * full, a released instance is discarded.
+	 */
+	private static class JaxbPool {
+		private final JAXBContext context;
+		private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<>(
+				POOL_SIZE);
+		private final BlockingQueue<Marshaller> marshallers = new ArrayBlockingQueue<>(
+				POOL_SIZE);
+
+		public JaxbPool(JAXBContext context) {
+			this.context = context;
+		}
+
+		public Unmarshaller borrowUnmarshaller() throws JAXBException {
+			Unmarshaller u = unmarshallers.poll();
+			return (u == null) ? context.createUnmarshaller() : u;
+		}
+
+		public void release(Unmarshaller u) {
+			unmarshallers.offer(u);
+		}
+
+		public Marshaller borrowMarshaller() throws JAXBException {
+			Marshaller m = marshallers.poll();
+			if (m == null) {
+				m = context.createMarshaller();
+				m.setProperty("jaxb.formatted.output", Boolean.TRUE);
+			}
+			return m;
+		}
+
+		public void release(Marshaller m) {
+			marshallers.offer(m);
+		}
+	}
+
 }
@@ -0,0 +1,93 @@
+package edu.cornell.library.orcidclient.actions;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+
+/**
+ * An OrcidClientContext with just enough settings for the actions.
+ */
+public class StubOrcidClientContext extends OrcidClientContext {
+	// ----------------------------------------------------------------------
+	// Stub infrastructure
+	// ----------------------------------------------------------------------
+
+	private String apiPublicUrl;
+	private String apiMemberUrl;
+	private String clientId;
+
+	public StubOrcidClientContext setApiPublicUrl(String apiPublicUrl) {
+		this.apiPublicUrl = apiPublicUrl;
+		return this;
+	}
+
+	public StubOrcidClientContext setApiMemberUrl(String apiMemberUrl) {
+		this.apiMemberUrl = apiMemberUrl;
+		return this;
+	}
+
+	public StubOrcidClientContext setClientId(String clientId) {
+		this.clientId = clientId;
+		return this;
+	}
+
+	// ----------------------------------------------------------------------
+	// Stub methods
+	// ----------------------------------------------------------------------
+
+	@Override
+	public String getApiPublicUrl() {
+		return apiPublicUrl;
+	}
+
+	@Override
+	public String getApiMemberUrl() {
+		return apiMemberUrl;
+	}
+
+	@Override
+	public String getClientId() {
+		return clientId;
+	}
+
+	// ----------------------------------------------------------------------
+	// Un-implemented methods
+	// ----------------------------------------------------------------------
+
+	@Override
+	public String getAuthCodeRequestUrl() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public String getCallbackUrl() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public String getAccessTokenRequestUrl() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public String getClientSecret() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public String getSiteBaseUrl() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public String getWebappBaseUrl() {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public URI resolvePathWithWebapp(String path) throws URISyntaxException {
+		throw new RuntimeException("Not implemented.");
+	}
+
+}
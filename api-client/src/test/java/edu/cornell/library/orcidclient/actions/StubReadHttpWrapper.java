@@ -0,0 +1,186 @@
+package edu.cornell.library.orcidclient.actions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+
+/**
+ * Answer GET requests with canned content, chosen by URL. A URL with no
+ * content gets a 404.
+ *
+ * If deferred, executeAsync() returns a future that doesn't complete until the
+ * test calls complete().
+ *
+ * If a URL has an ETag, and the request has a matching If-None-Match header,
+ * the response is 304 (Not Modified), with no content.
+ */
+public class StubReadHttpWrapper implements HttpWrapper {
+	// ----------------------------------------------------------------------
+	// Stub infrastructure
+	// ----------------------------------------------------------------------
+
+	private final Map<String, String> contents = new HashMap<>();
+	private final Map<String, String> etags = new HashMap<>();
+	private final List<String> requestedUrls = Collections
+			.synchronizedList(new ArrayList<>());
+	private final Map<String, CompletableFuture<HttpResponse>> pending = Collections
+			.synchronizedMap(new HashMap<>());
+	private boolean deferred;
+
+	public void setResponse(String url, String content) {
+		contents.put(url, content);
+	}
+
+	public void setEtag(String url, String etag) {
+		etags.put(url, etag);
+	}
+
+	public void setDeferred(boolean deferred) {
+		this.deferred = deferred;
+	}
+
+	public List<String> getRequestedUrls() {
+		synchronized (requestedUrls) {
+			return new ArrayList<>(requestedUrls);
+		}
+	}
+
+	public List<String> getPendingUrls() {
+		synchronized (pending) {
+			return new ArrayList<>(pending.keySet());
+		}
+	}
+
+	/** Complete a deferred request. */
+	public void complete(String url) {
+		CompletableFuture<HttpResponse> future = pending.remove(url);
+		if (future == null) {
+			throw new IllegalStateException("No pending request for " + url);
+		}
+		try {
+			future.complete(respond(url, null));
+		} catch (HttpStatusCodeException e) {
+			future.completeExceptionally(e);
+		}
+	}
+
+	private HttpResponse respond(String url, String ifNoneMatch)
+			throws HttpStatusCodeException {
+		String content = contents.get(url);
+		if (content == null) {
+			throw new HttpStatusCodeException("Not Found", 404, url);
+		}
+		String etag = etags.get(url);
+		if (etag != null && etag.equals(ifNoneMatch)) {
+			return new StubResponse(304, "", etag);
+		}
+		return new StubResponse(200, content, etag);
+	}
+
+	// ----------------------------------------------------------------------
+	// Stub methods
+	// ----------------------------------------------------------------------
+
+	@Override
+	public GetRequest createGetRequest(String url) {
+		return new StubGetRequest(url);
+	}
+
+	// ----------------------------------------------------------------------
+	// Un-implemented methods
+	// ----------------------------------------------------------------------
+
+	@Override
+	public PostRequest createPostRequest(String url) {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public PutRequest createPutRequest(String url) {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	@Override
+	public DeleteRequest createDeleteRequest(String url) {
+		throw new RuntimeException("Not implemented.");
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private class StubGetRequest implements GetRequest {
+		private final String url;
+		private final Map<String, String> headers = new HashMap<>();
+
+		public StubGetRequest(String url) {
+			this.url = url;
+		}
+
+		@Override
+		public String getUrl() {
+			return url;
+		}
+
+		@Override
+		public GetRequest addHeader(String key, String value) {
+			headers.put(key, value);
+			return this;
+		}
+
+		@Override
+		public HttpResponse execute()
+				throws IOException, HttpStatusCodeException {
+			requestedUrls.add(url);
+			return respond(url, headers.get("If-None-Match"));
+		}
+
+		@Override
+		public CompletableFuture<HttpResponse> executeAsync() {
+			if (!deferred) {
+				return GetRequest.super.executeAsync();
+			}
+			requestedUrls.add(url);
+			CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+			pending.put(url, future);
+			return future;
+		}
+	}
+
+	private static class StubResponse implements HttpResponse {
+		private final int statusCode;
+		private final String content;
+		private final String etag;
+
+		public StubResponse(int statusCode, String content, String etag) {
+			this.statusCode = statusCode;
+			this.content = content;
+			this.etag = etag;
+		}
+
+		@Override
+		public int getStatusCode() {
+			return statusCode;
+		}
+
+		@Override
+		public String getContentString() throws IOException {
+			return content;
+		}
+
+		@Override
+		public List<String> getHeaderValues(String key) throws IOException {
+			if ("ETag".equals(key) && etag != null) {
+				return Collections.singletonList(etag);
+			}
+			return Collections.emptyList();
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package edu.cornell.library.orcidclient.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.ScriptedHttpWrapper;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Validity results are kept for their time-to-live, and a 401 from any action
+ * marks the token as invalid. A 403 does not.
+ */
+public class TokenValidityCacheTest extends AbstractTestClass {
+	private static final String PUBLIC_URL = "http://pub.orcid.test/v2.1/";
+	private static final String MEMBER_URL = "http://api.orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+	private static final String EMAIL_URL = "GET " + PUBLIC_URL + ORCID
+			+ "/email";
+
+	private final AtomicLong now = new AtomicLong(1000000);
+
+	private ScriptedHttpWrapper httpWrapper;
+	private TokenValidityCache cache;
+	private OrcidActionClient client;
+	private AccessToken token;
+
+	@Before
+	public void setup() {
+		httpWrapper = new ScriptedHttpWrapper();
+		cache = new TokenValidityCache(60, 10, TimeUnit.SECONDS, 100, now::get);
+		client = new OrcidActionClient(
+				new StubOrcidClientContext().setApiPublicUrl(PUBLIC_URL)
+						.setApiMemberUrl(MEMBER_URL),
+				httpWrapper).setTokenValidityCache(cache);
+		token = new AccessToken("{}", "f5af9f51", "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", ORCID);
+	}
+
+	@Test
+	public void validResult_keptForTtl() throws Exception {
+		assertTrue(client.isAccessTokenValid(token));
+		assertTrue(client.isAccessTokenValid(token));
+		assertEquals(Arrays.asList(EMAIL_URL), httpWrapper.getExecuted());
+
+		now.addAndGet(60000);
+		assertTrue(client.isAccessTokenValid(token));
+		assertEquals(Arrays.asList(EMAIL_URL, EMAIL_URL),
+				httpWrapper.getExecuted());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void invalidResult_keptForShorterTtl() throws Exception {
+		httpWrapper.thenFail(401);
+		assertFalse(client.isAccessTokenValid(token));
+		now.addAndGet(9999);
+		assertFalse(client.isAccessTokenValid(token));
+		assertEquals(1, httpWrapper.getExecuted().size());
+
+		now.addAndGet(1);
+		assertTrue(client.isAccessTokenValid(token));
+		assertEquals(2, httpWrapper.getExecuted().size());
+	}
+
+	@Test
+	public void serverError_notCached() throws Exception {
+		httpWrapper.thenFail(503);
+		assertFalse(client.isAccessTokenValid(token));
+		assertTrue(client.isAccessTokenValid(token));
+		assertEquals(2, httpWrapper.getExecuted().size());
+	}
+
+	@Test
+	public void forbiddenValidation_notCached() throws Exception {
+		httpWrapper.thenFail(403);
+		assertFalse(client.isAccessTokenValid(token));
+		assertTrue(client.isAccessTokenValid(token));
+		assertEquals(2, httpWrapper.getExecuted().size());
+	}
+
+	@Test
+	public void unauthorizedAction_marksTokenInvalid() throws Exception {
+		assertTrue(client.isAccessTokenValid(token));
+		httpWrapper.thenFail(401);
+		try {
+			client.createEditWorksAction().remove(token, "1234");
+			fail("Expected an OrcidClientException");
+		} catch (OrcidClientException e) {
+			// expected
+		}
+
+		assertFalse(client.isAccessTokenValid(token));
+		assertEquals(2, httpWrapper.getExecuted().size());
+	}
+
+	@Test
+	public void unauthorizedAsyncAction_marksTokenInvalid() throws Exception {
+		assertTrue(client.isAccessTokenValid(token));
+		httpWrapper.thenFail(401);
+		try {
+			client.createEditWorksAction().removeAsync(token, "1234").get();
+			fail("Expected an ExecutionException");
+		} catch (ExecutionException e) {
+			// expected
+		}
+
+		assertFalse(client.isAccessTokenValid(token));
+	}
+
+	@Test
+	public void forbiddenAction_tokenStillValid() throws Exception {
+		assertTrue(client.isAccessTokenValid(token));
+		httpWrapper.thenFail(403);
+		try {
+			client.createEditWorksAction().remove(token, "1234");
+			fail("Expected an OrcidClientException");
+		} catch (OrcidClientException e) {
+			// expected
+		}
+
+		assertTrue(client.isAccessTokenValid(token));
+	}
+
+	@Test
+	public void noCache_requestsNotWatched() throws Exception {
+		assertNotSame(httpWrapper, client.getHttpWrapper());
+		client.setTokenValidityCache(null);
+		assertSame(httpWrapper, client.getHttpWrapper());
+		assertSame(httpWrapper, new OrcidActionClient(
+				new StubOrcidClientContext(), httpWrapper).getHttpWrapper());
+	}
+
+	@Test
+	public void fullCache_dropsExpiredEntries() throws Exception {
+		cache = new TokenValidityCache(60, 10, TimeUnit.SECONDS, 2, now::get);
+		cache.recordValid(token("a"));
+		cache.recordInvalid(token("b"));
+		now.addAndGet(10000);
+		cache.recordValid(token("c"));
+
+		assertEquals(2, cache.size());
+		assertEquals(Boolean.TRUE, cache.get(token("a")));
+		assertEquals(Boolean.TRUE, cache.get(token("c")));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static AccessToken token(String token) {
+		return new AccessToken("{}", token, "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", ORCID);
+	}
+}
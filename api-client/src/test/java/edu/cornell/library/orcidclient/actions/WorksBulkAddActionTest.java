@@ -0,0 +1,171 @@
+package edu.cornell.library.orcidclient.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.error_v2.OrcidError;
+import org.orcid.jaxb.model.record.bulk.BulkElement;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkBulk;
+
+import edu.cornell.library.orcidclient.actions.WorksBulkAddAction.Outcome;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.ScriptedHttpWrapper;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Works are sent in chunks of 100, and each gets its own Outcome.
+ */
+public class WorksBulkAddActionTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+	private static final String WORKS_URL = BASE_URL + ORCID + "/works";
+
+	private ScriptedHttpWrapper httpWrapper;
+	private WorksBulkAddAction action;
+	private AccessToken token;
+
+	@Before
+	public void setup() {
+		httpWrapper = new ScriptedHttpWrapper();
+		action = new WorksBulkAddAction(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				httpWrapper);
+		token = new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", ORCID);
+	}
+
+	@Test
+	public void worksAreChunked() throws Exception {
+		List<Work> works = works(250);
+		httpWrapper.thenRespond(createdBulk(1000, 100))
+				.thenRespond(createdBulk(2000, 100))
+				.thenRespond(createdBulk(3000, 50));
+
+		List<Outcome> outcomes = action.addAll(token, works);
+
+		assertEquals(Arrays.asList("POST " + WORKS_URL, "POST " + WORKS_URL,
+				"POST " + WORKS_URL), httpWrapper.getExecuted());
+		assertEquals(Arrays.asList(100, 100, 50), sentCounts());
+		assertEquals(250, outcomes.size());
+		assertEquals("1000", outcomes.get(0).getPutCode());
+		assertEquals("2000", outcomes.get(100).getPutCode());
+		assertEquals("3049", outcomes.get(249).getPutCode());
+		assertSame(works.get(249), outcomes.get(249).getWork());
+	}
+
+	@Test
+	public void perItemErrors_reportedInPlace() throws Exception {
+		WorkBulk response = new WorkBulk();
+		response.getBulk().add(created(11));
+		response.getBulk().add(error(409, "Duplicate external ID"));
+		response.getBulk().add(created(13));
+		httpWrapper.thenRespond(OrcidXmlUtil.marshall(response));
+
+		List<Outcome> outcomes = action.addAll(token, works(3));
+
+		assertTrue(outcomes.get(0).isSuccess());
+		assertFalse(outcomes.get(1).isSuccess());
+		assertNull(outcomes.get(1).getPutCode());
+		assertEquals("409: Duplicate external ID",
+				outcomes.get(1).getErrorMessage());
+		assertEquals("13", outcomes.get(2).getPutCode());
+	}
+
+	@Test
+	public void failedRequest_failsOnlyItsChunk() throws Exception {
+		httpWrapper.thenRespond(createdBulk(1000, 100)).thenFail(400);
+
+		List<Outcome> outcomes = action.addAll(token, works(150));
+
+		assertTrue(outcomes.get(99).isSuccess());
+		assertFalse(outcomes.get(100).isSuccess());
+		assertTrue(outcomes.get(149).getErrorMessage()
+				.contains("HTTP status code=400"));
+	}
+
+	@Test
+	public void mismatchedResponse_failsTheChunk() throws Exception {
+		httpWrapper.thenRespond(createdBulk(1000, 1));
+
+		List<Outcome> outcomes = action.addAll(token, works(2));
+
+		assertTrue(outcomes.get(0).getException().getCause().getMessage()
+				.contains("Sent 2 works, but the response had 1"));
+	}
+
+	@Test
+	public void noWorks_noRequests() throws Exception {
+		assertTrue(action.addAll(token, new ArrayList<>()).isEmpty());
+		assertTrue(httpWrapper.getExecuted().isEmpty());
+	}
+
+	@Test
+	public void malformedOrcid_failsEveryWorkWithoutRequests()
+			throws Exception {
+		AccessToken badToken = new AccessToken("{}", "token", "bearer",
+				"refresh", 600000, ApiScope.ACTIVITIES_UPDATE, "name",
+				"0000 0003 1495 7122");
+
+		List<Outcome> outcomes = action.addAll(badToken, works(150));
+
+		assertEquals(150, outcomes.size());
+		assertTrue(outcomes.get(149).getErrorMessage()
+				.contains("Failed to resolve the URI"));
+		assertTrue(httpWrapper.getExecuted().isEmpty());
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static List<Work> works(int count) {
+		List<Work> works = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			works.add(new Work());
+		}
+		return works;
+	}
+
+	private List<Integer> sentCounts() throws OrcidClientException {
+		List<Integer> counts = new ArrayList<>();
+		for (String body : httpWrapper.getBodies()) {
+			counts.add(OrcidXmlUtil.unmarshall(body, WorkBulk.class).getBulk()
+					.size());
+		}
+		return counts;
+	}
+
+	private static String createdBulk(long firstPutCode, int count)
+			throws OrcidClientException {
+		WorkBulk bulk = new WorkBulk();
+		for (int i = 0; i < count; i++) {
+			bulk.getBulk().add(created(firstPutCode + i));
+		}
+		return OrcidXmlUtil.marshall(bulk);
+	}
+
+	private static BulkElement created(long putCode) {
+		Work work = new Work();
+		work.setPutCode(putCode);
+		return work;
+	}
+
+	private static BulkElement error(int responseCode, String message) {
+		OrcidError error = new OrcidError();
+		error.setResponseCode(responseCode);
+		error.setDeveloperMessage(message);
+		return error;
+	}
+}
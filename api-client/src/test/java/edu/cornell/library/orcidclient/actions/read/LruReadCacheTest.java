@@ -0,0 +1,254 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import static edu.cornell.library.orcidclient.actions.ApiScope.READ_LIMITED;
+import static edu.cornell.library.orcidclient.actions.ApiScope.READ_PUBLIC;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkType;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.actions.StubReadHttpWrapper;
+import edu.cornell.library.orcidclient.actions.read.ReadCache.Key;
+import edu.cornell.library.orcidclient.actions.read.ReadCache.Stats;
+import edu.cornell.library.orcidclient.actions.read.ReadCache.Validators;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.elements.WorkBuilder;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Expiration, eviction, invalidation and revalidation, and the read-through
+ * behavior of the read actions.
+ */
+public class LruReadCacheTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID_1 = "0000-0000-0000-0001";
+	private static final String ORCID_2 = "0000-0000-0000-0002";
+
+	private static final Key KEY_A = new Key(ORCID_1, READ_LIMITED, "/a");
+	private static final Key KEY_B = new Key(ORCID_1, READ_LIMITED, "/b");
+	private static final Key KEY_C = new Key(ORCID_2, READ_LIMITED, "/c");
+
+	private long now;
+	private LruReadCache cache;
+
+	@Before
+	public void setup() {
+		now = 1000;
+		cache = new LruReadCache(100, MILLISECONDS, 10, () -> now);
+	}
+
+	@Test
+	public void expiredEntry_isAMiss() {
+		cache.put(KEY_A, "a", 1, null);
+		now += 99;
+		assertEquals("a", cache.get(KEY_A));
+		now += 1;
+		assertNull(cache.get(KEY_A));
+		assertStats(1, 1, 0, 1, 0, 0);
+	}
+
+	@Test
+	public void overweight_evictsLeastRecentlyUsed() {
+		cache.put(KEY_A, "a", 4, null);
+		cache.put(KEY_B, "b", 4, null);
+		cache.get(KEY_A);
+		cache.put(KEY_C, "c", 4, null);
+
+		assertEquals("a", cache.get(KEY_A));
+		assertNull(cache.get(KEY_B));
+		assertEquals("c", cache.get(KEY_C));
+		assertStats(3, 1, 1, 0, 2, 8);
+	}
+
+	@Test
+	public void tooHeavy_isNotCached() {
+		cache.put(KEY_A, "a", 4, null);
+		cache.put(KEY_B, "b", 11, null);
+		assertNull(cache.get(KEY_B));
+		assertEquals("a", cache.get(KEY_A));
+	}
+
+	@Test
+	public void replacingAnEntry_adjustsTheWeight() {
+		cache.put(KEY_A, "a", 4, null);
+		cache.put(KEY_A, "a2", 6, null);
+		assertEquals("a2", cache.get(KEY_A));
+		assertEquals(6, cache.getStats().getWeight());
+	}
+
+	@Test
+	public void invalidate_removesOnlyThatOrcid() {
+		cache.put(KEY_A, "a", 1, null);
+		cache.put(new Key(ORCID_1, READ_PUBLIC, "/a"), "a", 1, null);
+		cache.put(KEY_C, "c", 1, null);
+		cache.invalidate(ORCID_1);
+		assertNull(cache.get(KEY_A));
+		assertEquals("c", cache.get(KEY_C));
+		assertEquals(1, cache.getStats().getSize());
+	}
+
+	@Test
+	public void putAfterInvalidate_ignored() {
+		long generation = cache.getGeneration(ORCID_1);
+		cache.invalidate(ORCID_1);
+		cache.put(KEY_A, "a", 1, null, generation);
+		assertNull(cache.get(KEY_A));
+
+		cache.put(KEY_A, "a", 1, null, cache.getGeneration(ORCID_1));
+		assertEquals("a", cache.get(KEY_A));
+	}
+
+	@Test
+	public void expiredWithValidators_isKeptForRevalidation() {
+		Validators validators = Validators.of("\"v1\"", null);
+		cache.put(KEY_A, "a", 1, validators);
+		now += 100;
+		assertNull(cache.get(KEY_A));
+		assertSame(validators, cache.getValidators(KEY_A));
+
+		assertEquals("a", cache.refresh(KEY_A));
+		assertEquals("a", cache.get(KEY_A));
+		assertEquals(1, cache.getStats().getRevalidations());
+	}
+
+	@Test
+	public void refreshMissingEntry_returnsNull() {
+		assertNull(cache.refresh(KEY_A));
+		assertEquals(0, cache.getStats().getRevalidations());
+	}
+
+	@Test
+	public void readAction_readsThrough() throws Exception {
+		StubReadHttpWrapper httpWrapper = new StubReadHttpWrapper();
+		Work work = new Work();
+		work.setPutCode(733535L);
+		httpWrapper.setResponse(BASE_URL + ORCID_1 + "/work/733535",
+				OrcidXmlUtil.marshall(work));
+
+		ReadWorkDetailsAction action = new ReadWorkDetailsAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		action.setReadCache(new LruReadCache(1, HOURS, 100000));
+
+		Work first = action.readDetails(token(READ_LIMITED), "733535");
+		Work second = action.readDetails(token(READ_LIMITED), "733535");
+		assertSame(first, second);
+		assertEquals(1, httpWrapper.getRequestedUrls().size());
+
+		action.readDetails(token(READ_PUBLIC), "733535");
+		assertEquals(2, httpWrapper.getRequestedUrls().size());
+	}
+
+	@Test
+	public void readAction_revalidatesWithEtag() throws Exception {
+		String url = BASE_URL + ORCID_1 + "/work/733535";
+		StubReadHttpWrapper httpWrapper = new StubReadHttpWrapper();
+		Work work = new Work();
+		work.setPutCode(733535L);
+		httpWrapper.setResponse(url, OrcidXmlUtil.marshall(work));
+		httpWrapper.setEtag(url, "\"v1\"");
+
+		ReadWorkDetailsAction action = new ReadWorkDetailsAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		cache = new LruReadCache(100, MILLISECONDS, 100000, () -> now);
+		action.setReadCache(cache);
+
+		Work first = action.readDetails(token(READ_LIMITED), "733535");
+		now += 100;
+		Work second = action.readDetails(token(READ_LIMITED), "733535");
+		assertSame(first, second);
+		assertEquals(2, httpWrapper.getRequestedUrls().size());
+		assertEquals(1, cache.getStats().getRevalidations());
+
+		httpWrapper.setEtag(url, "\"v2\"");
+		now += 100;
+		Work third = action.readDetails(token(READ_LIMITED), "733535");
+		assertNotSame(first, third);
+		assertEquals(1, cache.getStats().getRevalidations());
+	}
+
+	@Test
+	public void readInterleavedWithEdit_notCached() throws Exception {
+		String url = BASE_URL + ORCID_1 + "/work/733535";
+		StubReadHttpWrapper httpWrapper = new StubReadHttpWrapper();
+		Work work = new Work();
+		work.setPutCode(733535L);
+		httpWrapper.setResponse(url, OrcidXmlUtil.marshall(work));
+		httpWrapper.setDeferred(true);
+
+		ReadWorkDetailsAction action = new ReadWorkDetailsAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		cache = new LruReadCache(1, HOURS, 100000);
+		action.setReadCache(cache);
+
+		CompletableFuture<Work> before = action
+				.readDetailsAsync(token(READ_LIMITED), "733535");
+		cache.invalidate(ORCID_1); // As an edit does when it completes.
+		httpWrapper.complete(url);
+		assertEquals(Long.valueOf(733535L), before.get().getPutCode());
+
+		assertNull(cache.get(new Key(ORCID_1, READ_LIMITED, "/work/733535")));
+		action.readDetailsAsync(token(READ_LIMITED), "733535");
+		assertEquals(2, httpWrapper.getRequestedUrls().size());
+	}
+
+	@Test
+	public void asyncRead_weighedInBytes() throws Exception {
+		String url = BASE_URL + ORCID_1 + "/work/733535";
+		StubReadHttpWrapper httpWrapper = new StubReadHttpWrapper();
+		Work work = new WorkBuilder(WorkType.JOURNAL_ARTICLE,
+				"\u00dcber die Gr\u00f6\u00dfe").build();
+		work.setPutCode(733535L);
+		String message = OrcidXmlUtil.marshall(work);
+		httpWrapper.setResponse(url, message);
+
+		ReadWorkDetailsAction action = new ReadWorkDetailsAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		cache = new LruReadCache(1, HOURS, 100000);
+		action.setReadCache(cache);
+
+		action.readDetails(token(READ_LIMITED), "733535");
+		long streamed = cache.getStats().getWeight();
+		cache.clear();
+		action.readDetailsAsync(token(READ_LIMITED), "733535").get();
+		assertEquals(message.getBytes(StandardCharsets.UTF_8).length,
+				cache.getStats().getWeight());
+		assertEquals(streamed, cache.getStats().getWeight());
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static AccessToken token(ApiScope scope) {
+		return new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				scope, "name", ORCID_1);
+	}
+
+	private void assertStats(long hits, long misses, long evictions,
+			long expirations, int size, long weight) {
+		Stats stats = cache.getStats();
+		assertEquals("hits", hits, stats.getHits());
+		assertEquals("misses", misses, stats.getMisses());
+		assertEquals("evictions", evictions, stats.getEvictions());
+		assertEquals("expirations", expirations, stats.getExpirations());
+		assertEquals("size", size, stats.getSize());
+		assertEquals("weight", weight, stats.getWeight());
+	}
+}
@@ -0,0 +1,213 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.actions.StubReadHttpWrapper;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Concurrent reads of the same element share one request; reads of different
+ * elements, or reads that come after, do not.
+ */
+public class ReadCoalescerTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+
+	private StubReadHttpWrapper httpWrapper;
+	private ReadCoalescer coalescer;
+	private ReadWorkDetailsAction action;
+	private AccessToken token;
+	private ExecutorService executor;
+
+	@Before
+	public void setup() throws OrcidClientException {
+		httpWrapper = new StubReadHttpWrapper();
+		httpWrapper.setResponse(workUrl(101), work(101));
+		httpWrapper.setResponse(workUrl(102), work(102));
+		httpWrapper.setDeferred(true);
+
+		coalescer = new ReadCoalescer();
+		action = new ReadWorkDetailsAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		action.setReadCoalescer(coalescer);
+		token = new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.READ_LIMITED, "name", ORCID);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentReads_shareOneRequestAndResult() throws Exception {
+		CompletableFuture<Work> first = action.readDetailsAsync(token, "101");
+		CompletableFuture<Work> second = action.readDetailsAsync(token, "101");
+		assertEquals(1, httpWrapper.getRequestedUrls().size());
+		assertEquals(1, coalescer.getInFlightCount());
+
+		httpWrapper.complete(workUrl(101));
+		assertSame(first.get(), second.get());
+		assertEquals(1, coalescer.getCoalescedCount());
+		assertEquals(0, coalescer.getInFlightCount());
+	}
+
+	@Test
+	public void differentElements_notShared() throws Exception {
+		CompletableFuture<Work> first = action.readDetailsAsync(token, "101");
+		CompletableFuture<Work> second = action.readDetailsAsync(token, "102");
+		assertEquals(2, httpWrapper.getPendingUrls().size());
+
+		httpWrapper.complete(workUrl(101));
+		httpWrapper.complete(workUrl(102));
+		assertEquals(101L, first.get().getPutCode().longValue());
+		assertEquals(102L, second.get().getPutCode().longValue());
+		assertEquals(0, coalescer.getCoalescedCount());
+	}
+
+	@Test
+	public void readAfterCompletion_makesNewRequest() throws Exception {
+		CompletableFuture<Work> first = action.readDetailsAsync(token, "101");
+		httpWrapper.complete(workUrl(101));
+		first.get();
+
+		CompletableFuture<Work> second = action.readDetailsAsync(token, "101");
+		httpWrapper.complete(workUrl(101));
+		assertNotSame(first.get(), second.get());
+		assertEquals(2, httpWrapper.getRequestedUrls().size());
+	}
+
+	@Test
+	public void readAfterEdit_makesNewRequest() throws Exception {
+		CompletableFuture<Work> before = action.readDetailsAsync(token, "101");
+		coalescer.invalidate(ORCID); // As an edit does when it completes.
+		CompletableFuture<Work> after = action.readDetailsAsync(token, "101");
+		assertEquals(2, httpWrapper.getRequestedUrls().size());
+		assertEquals(0, coalescer.getCoalescedCount());
+
+		httpWrapper.complete(workUrl(101));
+		after.get();
+		assertFalse(before.isDone());
+	}
+
+	@Test
+	public void failure_sharedByEveryCaller() throws Exception {
+		CompletableFuture<Work> first = action.readDetailsAsync(token, "999");
+		CompletableFuture<Work> second = action.readDetailsAsync(token, "999");
+		httpWrapper.complete(workUrl(999));
+
+		assertFailed(first);
+		assertFailed(second);
+		assertEquals(0, coalescer.getInFlightCount());
+	}
+
+	@Test
+	public void blockingReads_shareOneRead() throws Exception {
+		ReadCache.Key key = new ReadCache.Key(ORCID,
+				ApiScope.READ_LIMITED, "work/101");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger reads = new AtomicInteger();
+		Work result = new Work();
+
+		ReadCoalescer.Reader<Work> reader = () -> {
+			reads.incrementAndGet();
+			started.countDown();
+			await(release);
+			return result;
+		};
+
+		Future<Work> leader = executor
+				.submit(() -> coalescer.read(key, Work.class, reader));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Work> follower = executor
+				.submit(() -> coalescer.read(key, Work.class, reader));
+		while (coalescer.getCoalescedCount() == 0) {
+			Thread.sleep(1);
+		}
+		assertFalse(follower.isDone());
+
+		release.countDown();
+		assertSame(result, leader.get(5, TimeUnit.SECONDS));
+		assertSame(result, follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, reads.get());
+	}
+
+	@Test
+	public void errorInBlockingRead_endsTheRequest() throws Exception {
+		ReadCache.Key key = new ReadCache.Key(ORCID,
+				ApiScope.READ_LIMITED, "work/101");
+		try {
+			coalescer.read(key, Work.class, () -> {
+				throw new NoClassDefFoundError("javax/xml/bind/JAXBContext");
+			});
+			fail("Expected a NoClassDefFoundError");
+		} catch (NoClassDefFoundError e) {
+			// expected
+		}
+		assertEquals(0, coalescer.getInFlightCount());
+
+		Work result = new Work();
+		Future<Work> next = executor
+				.submit(() -> coalescer.read(key, Work.class, () -> result));
+		assertSame(result, next.get(5, TimeUnit.SECONDS));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static String workUrl(long putCode) {
+		return BASE_URL + ORCID + "/work/" + putCode;
+	}
+
+	private static String work(long putCode) throws OrcidClientException {
+		Work work = new Work();
+		work.setPutCode(putCode);
+		return OrcidXmlUtil.marshall(work);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void assertFailed(CompletableFuture<?> future)
+			throws InterruptedException {
+		try {
+			future.get();
+			fail("Expected a failure");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OrcidClientException);
+		}
+	}
+}
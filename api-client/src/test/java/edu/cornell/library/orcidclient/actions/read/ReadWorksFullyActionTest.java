@@ -0,0 +1,148 @@
+package edu.cornell.library.orcidclient.actions.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record.summary_v2.WorkGroup;
+import org.orcid.jaxb.model.record.summary_v2.WorkSummary;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.actions.StubReadHttpWrapper;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Read the summaries, and then the details, in order.
+ */
+public class ReadWorksFullyActionTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+	private static final String WORKS_URL = BASE_URL + ORCID + "/works";
+
+	private StubReadHttpWrapper httpWrapper;
+	private ReadWorksFullyAction action;
+	private AccessToken token;
+
+	@Before
+	public void setup() throws OrcidClientException {
+		httpWrapper = new StubReadHttpWrapper();
+		action = new ReadWorksFullyAction(
+				new StubOrcidClientContext().setApiPublicUrl(BASE_URL),
+				httpWrapper);
+		token = new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.READ_LIMITED, "name", ORCID);
+
+		// Two groups; the first has two sources.
+		httpWrapper.setResponse(WORKS_URL, summaries(
+				Arrays.asList(Arrays.asList(101L, 102L), Arrays.asList(103L))));
+		for (long putCode = 101; putCode <= 103; putCode++) {
+			httpWrapper.setResponse(workUrl(putCode), work(putCode));
+		}
+	}
+
+	@Test
+	public void readAll_worksInSummaryOrder() throws Exception {
+		assertEquals(Arrays.asList(101L, 102L, 103L),
+				putCodes(action.readAll(token)));
+	}
+
+	@Test
+	public void readAllAsync_boundedAndOrdered() throws Exception {
+		httpWrapper.setDeferred(true);
+		CompletableFuture<List<Work>> result = action.setMaxInFlight(2)
+				.readAllAsync(token);
+
+		httpWrapper.complete(WORKS_URL);
+		assertEquals(2, httpWrapper.getPendingUrls().size());
+
+		httpWrapper.complete(workUrl(102));
+		assertEquals(2, httpWrapper.getPendingUrls().size());
+		httpWrapper.complete(workUrl(103));
+		assertFalse(result.isDone());
+		httpWrapper.complete(workUrl(101));
+
+		assertEquals(Arrays.asList(101L, 102L, 103L), putCodes(result.get()));
+	}
+
+	@Test
+	public void withExecutor_worksInSummaryOrder() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			List<Work> works = action.setExecutor(executor).readAll(token);
+			assertEquals(Arrays.asList(101L, 102L, 103L), putCodes(works));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void missingWork_fails() throws Exception {
+		httpWrapper.setResponse(WORKS_URL,
+				summaries(Arrays.asList(Arrays.asList(101L, 999L))));
+		expectException(OrcidClientException.class, "Failed to read profile.");
+		action.readAll(token);
+	}
+
+	@Test
+	public void getPutCodes_includesEverySource() throws Exception {
+		Works works = OrcidXmlUtil.unmarshall(
+				summaries(Arrays.asList(Arrays.asList(5L, 6L),
+						Arrays.asList(7L))),
+				Works.class);
+		assertEquals(Arrays.asList("5", "6", "7"),
+				ReadWorksFullyAction.getPutCodes(works));
+		assertTrue(httpWrapper.getRequestedUrls().isEmpty());
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static String workUrl(long putCode) {
+		return BASE_URL + ORCID + "/work/" + putCode;
+	}
+
+	private static String summaries(List<List<Long>> groups)
+			throws OrcidClientException {
+		Works works = new Works();
+		for (List<Long> group : groups) {
+			WorkGroup workGroup = new WorkGroup();
+			for (Long putCode : group) {
+				WorkSummary summary = new WorkSummary();
+				summary.setPutCode(putCode);
+				workGroup.getWorkSummary().add(summary);
+			}
+			works.getWorkGroup().add(workGroup);
+		}
+		return OrcidXmlUtil.marshall(works);
+	}
+
+	private static String work(long putCode) throws OrcidClientException {
+		Work work = new Work();
+		work.setPutCode(putCode);
+		return OrcidXmlUtil.marshall(work);
+	}
+
+	private static List<Long> putCodes(List<Work> works) {
+		List<Long> putCodes = new ArrayList<>();
+		for (Work work : works) {
+			putCodes.add(work.getPutCode());
+		}
+		return putCodes;
+	}
+}
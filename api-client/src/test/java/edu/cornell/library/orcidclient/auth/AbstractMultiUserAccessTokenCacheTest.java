@@ -0,0 +1,155 @@
+package edu.cornell.library.orcidclient.auth;
+
+import static edu.cornell.library.orcidclient.actions.ApiScope.ACTIVITIES_UPDATE;
+import static edu.cornell.library.orcidclient.actions.ApiScope.READ_LIMITED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * What every MultiUserAccessTokenCache must do. Each implementation has a
+ * subclass, which adds the tests of its own details.
+ */
+public abstract class AbstractMultiUserAccessTokenCacheTest<C extends MultiUserAccessTokenCache>
+		extends AbstractTestClass {
+	protected static final String ORCID_1 = "0000-0003-1495-7122";
+	protected static final String ORCID_2 = "0000-0002-9227-8514";
+	protected static final String ORCID_3 = "0000-0001-2345-6789";
+
+	protected C cache;
+
+	/** An empty cache, for one test. */
+	protected abstract C createCache() throws Exception;
+
+	/**
+	 * Close the cache and open it again, as the next run of the program would.
+	 * A cache that is kept only in memory is returned as it is.
+	 */
+	protected C reopenCache() throws Exception {
+		return cache;
+	}
+
+	/** Close the cache, if it must be closed, and remove its files. */
+	protected void discardCache() throws Exception {
+		// Nothing to discard.
+	}
+
+	@Before
+	public void setupCache() throws Exception {
+		cache = createCache();
+	}
+
+	@After
+	public void cleanupCache() throws Exception {
+		discardCache();
+	}
+
+	@Test
+	public void tokensFoundByOrcidAndScope() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.addAccessToken(token(ORCID_1, READ_LIMITED, "b"));
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+
+		assertEquals("a", cache.getToken(ORCID_1, ACTIVITIES_UPDATE).getToken());
+		assertEquals("b", cache.getToken(ORCID_1, READ_LIMITED).getToken());
+		assertEquals("c", cache.getToken(ORCID_2, ACTIVITIES_UPDATE).getToken());
+		assertNull(cache.getToken(ORCID_2, READ_LIMITED));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void changesSurviveReopen() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a2"));
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+		cache.removeAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+
+		cache = reopenCache();
+		assertEquals(1, cache.size());
+		AccessToken token = cache.getToken(ORCID_1, ACTIVITIES_UPDATE);
+		assertEquals("a2", token.getToken());
+		assertEquals("refresh-a2", token.getRefreshToken());
+		assertEquals("bearer", token.getType());
+		assertEquals(631138518L, token.getExpiresIn());
+		assertEquals("Sofia Garcia", token.getName());
+		assertNull(cache.getToken(ORCID_2, ACTIVITIES_UPDATE));
+	}
+
+	@Test
+	public void removeReplacedToken_noEffect() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "old"));
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "new"));
+		cache.removeAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "old"));
+		assertEquals("new",
+				cache.getToken(ORCID_1, ACTIVITIES_UPDATE).getToken());
+
+		cache.removeAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "new"));
+		assertNull(cache.getToken(ORCID_1, ACTIVITIES_UPDATE));
+	}
+
+	@Test
+	public void bulkGet_onlyFoundIds() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.addAccessToken(token(ORCID_2, READ_LIMITED, "b"));
+		cache.addAccessToken(token(ORCID_3, ACTIVITIES_UPDATE, "c"));
+
+		Map<String, AccessToken> found = cache.getTokens(
+				Arrays.asList(ORCID_3, ORCID_2, ORCID_1), ACTIVITIES_UPDATE);
+		assertEquals(Arrays.asList(ORCID_3, ORCID_1),
+				new ArrayList<>(found.keySet()));
+		assertEquals("c", found.get(ORCID_3).getToken());
+	}
+
+	@Test
+	public void iteration_seesEveryToken() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.addAccessToken(token(ORCID_1, READ_LIMITED, "b"));
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+
+		Set<String> seen = new HashSet<>();
+		for (AccessToken token : cache) {
+			seen.add(token.getToken());
+		}
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), seen);
+	}
+
+	@Test
+	public void viewForOneOrcid_seesOnlyItsTokens() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "b"));
+		AccessTokenCache view = cache.forOrcid(ORCID_1);
+		assertEquals("a", view.getToken(ACTIVITIES_UPDATE).getToken());
+
+		view.removeAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "b"));
+		assertEquals("b",
+				cache.getToken(ORCID_2, ACTIVITIES_UPDATE).getToken());
+		view.removeAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		assertNull(cache.getToken(ORCID_1, ACTIVITIES_UPDATE));
+
+		expectException(OrcidClientException.class, "holds tokens for");
+		view.addAccessToken(token(ORCID_2, READ_LIMITED, "c"));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	protected static AccessToken token(String orcid, ApiScope scope,
+			String token) {
+		return new AccessToken("{}", token, "bearer", "refresh-" + token,
+				631138518, scope, "Sofia Garcia", orcid);
+	}
+}
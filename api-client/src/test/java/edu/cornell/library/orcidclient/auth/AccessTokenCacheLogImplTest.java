@@ -0,0 +1,93 @@
+package edu.cornell.library.orcidclient.auth;
+
+import static edu.cornell.library.orcidclient.actions.ApiScope.ACTIVITIES_UPDATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+/**
+ * The file is compacted when it fills with obsolete lines, and a line cut
+ * short is ignored.
+ */
+public class AccessTokenCacheLogImplTest extends
+		AbstractMultiUserAccessTokenCacheTest<AccessTokenCacheLogImpl> {
+	private static final int MIN_RECORDS_TO_COMPACT = 10;
+
+	private File tempDir;
+	private Path file;
+
+	@Override
+	protected AccessTokenCacheLogImpl createCache() throws Exception {
+		tempDir = createTempDirectory("AccessTokenCacheLogImplTest");
+		file = tempDir.toPath().resolve("tokens.log");
+		return new AccessTokenCacheLogImpl(file, MIN_RECORDS_TO_COMPACT);
+	}
+
+	@Override
+	protected AccessTokenCacheLogImpl reopenCache() throws Exception {
+		cache.close();
+		return new AccessTokenCacheLogImpl(file, MIN_RECORDS_TO_COMPACT);
+	}
+
+	@Override
+	protected void discardCache() throws Exception {
+		cache.close();
+		purgeDirectoryRecursively(tempDir);
+	}
+
+	@Test
+	public void obsoleteLines_compacted() throws Exception {
+		for (int i = 0; i < 25; i++) {
+			cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "t" + i));
+		}
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+
+		assertTrue(lineCount() < 10);
+		cache = reopenCache();
+		assertEquals("t24",
+				cache.getToken(ORCID_1, ACTIVITIES_UPDATE).getToken());
+		assertEquals("c", cache.getToken(ORCID_2, ACTIVITIES_UPDATE).getToken());
+	}
+
+	@Test
+	public void damagedLastLine_ignored() throws Exception {
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+		cache.close();
+		Files.write(file, "{\"access_token\":\"b\",\"tok"
+				.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		cache = reopenCache();
+		assertEquals("a", cache.getToken(ORCID_1, ACTIVITIES_UPDATE).getToken());
+
+		cache.addAccessToken(token(ORCID_2, ACTIVITIES_UPDATE, "c"));
+		cache = reopenCache();
+		assertEquals("c", cache.getToken(ORCID_2, ACTIVITIES_UPDATE).getToken());
+	}
+
+	@Test
+	public void viewForOneOrcid_keptInTheFile() throws Exception {
+		cache.forOrcid(ORCID_1)
+				.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, "a"));
+
+		cache = reopenCache();
+		assertEquals("a", cache.forOrcid(ORCID_1).getToken(ACTIVITIES_UPDATE)
+				.getToken());
+		assertNull(cache.forOrcid(ORCID_2).getToken(ACTIVITIES_UPDATE));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private long lineCount() throws Exception {
+		return Files.readAllLines(file, StandardCharsets.UTF_8).size();
+	}
+}
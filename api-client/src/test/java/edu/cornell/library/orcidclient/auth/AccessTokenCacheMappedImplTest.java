@@ -0,0 +1,96 @@
+package edu.cornell.library.orcidclient.auth;
+
+import static edu.cornell.library.orcidclient.actions.ApiScope.ACTIVITIES_UPDATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * The table grows as it fills, and tokens or files that don't fit are
+ * rejected.
+ */
+public class AccessTokenCacheMappedImplTest extends
+		AbstractMultiUserAccessTokenCacheTest<AccessTokenCacheMappedImpl> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private File tempDir;
+	private Path file;
+
+	@Override
+	protected AccessTokenCacheMappedImpl createCache() throws Exception {
+		tempDir = createTempDirectory("AccessTokenCacheMappedImplTest");
+		file = tempDir.toPath().resolve("tokens.map");
+		return new AccessTokenCacheMappedImpl(file, INITIAL_CAPACITY);
+	}
+
+	@Override
+	protected AccessTokenCacheMappedImpl reopenCache() throws Exception {
+		cache.close();
+		return new AccessTokenCacheMappedImpl(file, INITIAL_CAPACITY);
+	}
+
+	@Override
+	protected void discardCache() throws Exception {
+		cache.close();
+		purgeDirectoryRecursively(tempDir);
+	}
+
+	@Test
+	public void tableGrows() throws Exception {
+		long initialSize = Files.size(file);
+		for (int i = 0; i < 1000; i++) {
+			cache.addAccessToken(token(orcid(i), ACTIVITIES_UPDATE, "t" + i));
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			cache.removeAccessToken(
+					token(orcid(i), ACTIVITIES_UPDATE, "t" + i));
+		}
+
+		cache = reopenCache();
+		assertEquals(500, cache.size());
+		int iterated = 0;
+		for (AccessToken token : cache) {
+			assertEquals(ACTIVITIES_UPDATE, token.getScope());
+			iterated++;
+		}
+		assertEquals(500, iterated);
+		assertNull(cache.getToken(orcid(998), ACTIVITIES_UPDATE));
+		assertEquals("t999",
+				cache.getToken(orcid(999), ACTIVITIES_UPDATE).getToken());
+		assertTrue(Files.size(file) > initialSize);
+	}
+
+	@Test
+	public void tokenTooLong_rejected() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 70; i++) {
+			sb.append('x');
+		}
+		expectException(OrcidClientException.class, "too long");
+		cache.addAccessToken(token(ORCID_1, ACTIVITIES_UPDATE, sb.toString()));
+	}
+
+	@Test
+	public void otherFile_rejected() throws Exception {
+		cache.close();
+		Files.write(file, new byte[100]);
+		expectException(OrcidClientException.class, "Not an access token file");
+		new AccessTokenCacheMappedImpl(file);
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static String orcid(int i) {
+		return String.format("0000-0000-%04d-%04d", i / 10000, i % 10000);
+	}
+}
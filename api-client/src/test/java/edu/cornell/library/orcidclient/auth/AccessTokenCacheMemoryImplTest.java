@@ -0,0 +1,54 @@
+package edu.cornell.library.orcidclient.auth;
+
+import static edu.cornell.library.orcidclient.actions.ApiScope.ACTIVITIES_UPDATE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * The tokens stay consistent while many threads change the cache.
+ */
+public class AccessTokenCacheMemoryImplTest extends
+		AbstractMultiUserAccessTokenCacheTest<AccessTokenCacheMemoryImpl> {
+
+	@Override
+	protected AccessTokenCacheMemoryImpl createCache() {
+		return new AccessTokenCacheMemoryImpl();
+	}
+
+	@Test
+	public void concurrentChanges() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				int thread = t;
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < 1000; i++) {
+						String orcid = String.format("0000-0000-%04d-%04d",
+								thread, i);
+						cache.addAccessToken(
+								token(orcid, ACTIVITIES_UPDATE, "t" + i));
+						if (i % 2 == 0) {
+							cache.removeAccessToken(
+									token(orcid, ACTIVITIES_UPDATE, "t" + i));
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(4000, cache.size());
+	}
+}
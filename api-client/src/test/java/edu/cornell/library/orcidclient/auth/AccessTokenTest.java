@@ -2,6 +2,11 @@ package edu.cornell.library.orcidclient.auth;
 
 import static edu.cornell.library.orcidclient.actions.ApiScope.ACTIVITIES_UPDATE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -55,4 +60,44 @@ public class AccessTokenTest extends AbstractTestClass {
 		token = AccessToken.parse(MISSING_NAME);
 	}
 
+	@Test
+	public void expiresInNotANumber_reportedAsWrongType()
+			throws OrcidClientException {
+		expectException(OrcidClientException.class,
+				"'expires_in' is not a number: 3600");
+		token = AccessToken.parse(SAMPLE_JSON.replace("631138518", "\"3600\""));
+	}
+
+	@Test
+	public void unknownFieldsAndNulls_accepted() throws OrcidClientException {
+		token = AccessToken.parse("{\"extra\":{\"a\":[1,2]},"
+				+ SAMPLE_JSON.substring(1).replace("\"Sofia Garcia\"", "null"));
+		assertNull(token.getName());
+		assertEquals("0000-0001-2345-6789", token.getOrcid());
+	}
+
+	@Test
+	public void parseAll_oneTokenPerLine() throws OrcidClientException {
+		String oneLine = SAMPLE_JSON.replace("\n", "");
+		String lines = oneLine + "\n\n"
+				+ oneLine.replace("Sofia Garcia", "Ana Lopez") + "\n";
+
+		List<AccessToken> tokens = AccessToken.parseAll(
+				new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(2, tokens.size());
+		assertEquals("Ana Lopez", tokens.get(1).getName());
+		assertEquals(oneLine, tokens.get(0).getJsonString());
+	}
+
+	@Test
+	public void parseAll_badLine_reportsLineNumber()
+			throws OrcidClientException {
+		String lines = SAMPLE_JSON.replace("\n", "") + "\n"
+				+ MISSING_NAME.replace("\n", "");
+
+		expectException(OrcidClientException.class, "line 2");
+		AccessToken.parseAll(
+				new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)));
+	}
+
 }
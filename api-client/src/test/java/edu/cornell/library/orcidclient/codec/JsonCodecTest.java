@@ -0,0 +1,64 @@
+package edu.cornell.library.orcidclient.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * The JSON codec should carry the same information as the XML codec, with the
+ * field names and enum values that the ORCID API uses.
+ */
+public class JsonCodecTest extends AbstractTestClass {
+	private static final String WORK_FILE = "/edu/cornell/library/orcidclient/elements/work-full-2.1_abridged.xml";
+
+	@Test
+	public void workSurvivesRoundTrip() throws Exception {
+		Work expected = readWork();
+		String json = JsonCodec.INSTANCE.encode(expected);
+		Work actual = JsonCodec.INSTANCE.decode(json, Work.class);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void decodeFromStream() throws Exception {
+		Work expected = readWork();
+		byte[] json = JsonCodec.INSTANCE.encode(expected)
+				.getBytes(StandardCharsets.UTF_8);
+		assertEquals(expected, JsonCodec.INSTANCE
+				.decode(new ByteArrayInputStream(json), Work.class));
+	}
+
+	@Test
+	public void usesOrcidFieldNamesAndValues() throws Exception {
+		String json = JsonCodec.INSTANCE.encode(readWork());
+		assertTrue(json, json.contains("\"external-id-type\""));
+		assertTrue(json, json.contains("\"JOURNAL_ARTICLE\""));
+	}
+
+	@Test
+	public void unknownFieldsAreIgnored() throws Exception {
+		Work work = JsonCodec.INSTANCE.decode(
+				"{\"put-code\":733535,\"no-such-field\":\"x\"}", Work.class);
+		assertEquals(Long.valueOf(733535L), work.getPutCode());
+	}
+
+	@Test
+	public void badJson_throwsException() throws Exception {
+		expectException(OrcidClientException.class, "Failed to decode");
+		JsonCodec.INSTANCE.decode("{\"put-code\":", Work.class);
+	}
+
+	private Work readWork() throws IOException, OrcidClientException {
+		return XmlCodec.INSTANCE.decode(
+				readAll(getClass().getResourceAsStream(WORK_FILE)), Work.class);
+	}
+}
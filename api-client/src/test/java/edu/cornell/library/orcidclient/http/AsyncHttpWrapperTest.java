@@ -0,0 +1,132 @@
+package edu.cornell.library.orcidclient.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Run the AsyncHttpWrapper against a local HTTP server.
+ */
+public class AsyncHttpWrapperTest extends AbstractTestClass {
+	private HttpServer server;
+	private String baseUrl;
+	private AsyncHttpWrapper wrapper;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/ok", exchange -> {
+			exchange.getResponseHeaders().add("Location", "/ok/123");
+			respond(exchange, 200, "hello");
+		});
+		server.createContext("/missing", exchange -> {
+			respond(exchange, 404, "nope");
+		});
+		server.createContext("/echo", exchange -> {
+			String body = IOUtils.toString(exchange.getRequestBody(), UTF_8);
+			String type = exchange.getRequestHeaders()
+					.getFirst("Content-Type");
+			respond(exchange, 200, type + ":" + body);
+		});
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+		wrapper = new AsyncHttpWrapper();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		wrapper.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void getAsync_completesWithContentAndHeaders() throws Exception {
+		HttpResponse response = wrapper.createGetRequest(baseUrl + "/ok")
+				.executeAsync().get();
+		assertEquals("hello", response.getContentString());
+		assertEquals("/ok/123", response.getHeaderValues("Location").get(0));
+	}
+
+	@Test
+	public void errorStatus_failsTheFuture() throws Exception {
+		CompletableFuture<HttpResponse> future = wrapper
+				.createGetRequest(baseUrl + "/missing").executeAsync();
+		try {
+			future.get();
+			fail("Expected an ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof HttpStatusCodeException);
+			HttpStatusCodeException cause = (HttpStatusCodeException) e
+					.getCause();
+			assertEquals(404, cause.getStatusCode());
+			assertEquals("nope", cause.getResponseContent());
+		}
+	}
+
+	@Test
+	public void errorStatus_blockingExecuteThrows() throws Exception {
+		expectException(HttpStatusCodeException.class, "statusCode=404");
+		wrapper.createGetRequest(baseUrl + "/missing").execute();
+	}
+
+	@Test
+	public void postBody_isSentWithExplicitContentType() throws Exception {
+		HttpResponse response = wrapper.createPostRequest(baseUrl + "/echo")
+				.addHeader("Content-Type", "application/vnd.orcid+xml")
+				.setBodyString("<work/>").execute();
+		assertEquals("application/vnd.orcid+xml:<work/>",
+				response.getContentString());
+	}
+
+	@Test
+	public void futureCompletedOnCompletionExecutor() throws Exception {
+		AtomicInteger handedOff = new AtomicInteger();
+		Executor executor = task -> {
+			handedOff.incrementAndGet();
+			new Thread(task, "completion").start();
+		};
+		try (AsyncHttpWrapper custom = new AsyncHttpWrapper(
+				new PooledHttpWrapper.Settings(), executor)) {
+			assertEquals("hello", custom.createGetRequest(baseUrl + "/ok")
+					.execute().getContentString());
+			try {
+				custom.createGetRequest(baseUrl + "/missing").execute();
+				fail("Expected an HttpStatusCodeException");
+			} catch (HttpStatusCodeException e) {
+				assertEquals(404, e.getStatusCode());
+			}
+		}
+		assertEquals(2, handedOff.get());
+	}
+
+	private static void respond(HttpExchange exchange, int status,
+			String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package edu.cornell.library.orcidclient.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Stream responses from a local HTTP server.
+ */
+public class BaseGetRequestTest extends AbstractTestClass {
+	private static final String WORK_XML_PATH = "/edu/cornell/library/orcidclient/elements/work-full-2.1_abridged.xml";
+
+	private HttpServer server;
+	private String baseUrl;
+	private String workXml;
+
+	@Before
+	public void startServer() throws IOException {
+		workXml = IOUtils.toString(getClass().getResourceAsStream(WORK_XML_PATH),
+				UTF_8);
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/work", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/vnd.orcid+xml");
+			respond(exchange, 200, workXml);
+		});
+		server.createContext("/missing", exchange -> {
+			respond(exchange, 404, "nope");
+		});
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void streamedContent_unmarshallsLikeTheString() throws Exception {
+		Work streamed = new BaseGetRequest(baseUrl + "/work")
+				.execute((response, content) -> {
+					assertEquals("application/vnd.orcid+xml",
+							response.getHeaderValues("Content-Type").get(0));
+					try {
+						return OrcidXmlUtil.unmarshall(content, Work.class);
+					} catch (Exception e) {
+						throw new IOException(e);
+					}
+				});
+		Work buffered = OrcidXmlUtil.unmarshall(workXml, Work.class);
+		assertEquals(OrcidXmlUtil.marshall(buffered),
+				OrcidXmlUtil.marshall(streamed));
+	}
+
+	@Test
+	public void errorStatus_handlerIsNotCalled() throws Exception {
+		try {
+			new BaseGetRequest(baseUrl + "/missing")
+					.execute((response, content) -> {
+						fail("Handler should not be called.");
+						return null;
+					});
+			fail("Expected an HttpStatusCodeException");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(404, e.getStatusCode());
+			assertEquals("nope", e.getResponseContent());
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status,
+			String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
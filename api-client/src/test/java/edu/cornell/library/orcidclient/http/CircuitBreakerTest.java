@@ -0,0 +1,227 @@
+package edu.cornell.library.orcidclient.http;
+
+import static edu.cornell.library.orcidclient.http.CircuitBreaker.REFUSED;
+import static edu.cornell.library.orcidclient.http.CircuitBreaker.State.CLOSED;
+import static edu.cornell.library.orcidclient.http.CircuitBreaker.State.HALF_OPEN;
+import static edu.cornell.library.orcidclient.http.CircuitBreaker.State.OPEN;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.http.CircuitBreaker.Settings;
+import edu.cornell.library.orcidclient.http.CircuitBreakerHttpWrapper.CircuitOpenException;
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpResponse;
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * The states of the breaker, and how the wrapper applies them.
+ */
+public class CircuitBreakerTest extends AbstractTestClass {
+	private static final long FAST = MILLISECONDS.toNanos(5);
+	private static final long SLOW = MILLISECONDS.toNanos(500);
+
+	private long now;
+	private CircuitBreaker breaker;
+
+	@Before
+	public void setup() {
+		now = 0;
+		breaker = new CircuitBreaker("test", settings(), () -> now);
+	}
+
+	private static Settings settings() {
+		return new Settings().setWindowSize(4).setMinimumCalls(4)
+				.setFailureRateThreshold(0.5).setSlowCallDuration(100)
+				.setSlowCallRateThreshold(0.75).setOpenDuration(1000)
+				.setHalfOpenProbes(1);
+	}
+
+	private void outcome(boolean failure, long elapsed) {
+		breaker.record(acquire(), failure, elapsed);
+	}
+
+	private long acquire() {
+		long permit = breaker.tryAcquire();
+		assertNotEquals(REFUSED, permit);
+		return permit;
+	}
+
+	@Test
+	public void opensAtTheFailureRate() {
+		outcome(false, FAST);
+		outcome(true, FAST);
+		outcome(false, FAST);
+		assertEquals(CLOSED, breaker.getState());
+		outcome(true, FAST);
+		assertEquals(OPEN, breaker.getState());
+		assertEquals(REFUSED, breaker.tryAcquire());
+		assertEquals(1, breaker.getRefusedCount());
+	}
+
+	@Test
+	public void opensAtTheSlowCallRate() {
+		outcome(false, SLOW);
+		outcome(false, SLOW);
+		outcome(false, FAST);
+		outcome(false, SLOW);
+		assertEquals(OPEN, breaker.getState());
+	}
+
+	@Test
+	public void probesWhenHalfOpen() {
+		openIt();
+		now += MILLISECONDS.toNanos(1000);
+		long probe = acquire();
+		assertEquals(HALF_OPEN, breaker.getState());
+		assertEquals("only one probe", REFUSED, breaker.tryAcquire());
+
+		breaker.record(probe, false, FAST);
+		assertEquals(CLOSED, breaker.getState());
+		assertEquals(0.0, breaker.getFailureRate(), 0.0);
+	}
+
+	@Test
+	public void failedProbe_reopens() {
+		openIt();
+		now += MILLISECONDS.toNanos(1000);
+		breaker.record(acquire(), true, FAST);
+		assertEquals(OPEN, breaker.getState());
+		assertEquals(2, breaker.getTimesOpened());
+	}
+
+	@Test
+	public void outcomeFromBeforeOpening_notCountedAsProbe() {
+		long early = acquire();
+		openIt();
+		now += MILLISECONDS.toNanos(1000);
+		long probe = acquire();
+
+		breaker.record(early, true, FAST);
+		assertEquals(HALF_OPEN, breaker.getState());
+		breaker.record(early, false, FAST);
+		assertEquals(HALF_OPEN, breaker.getState());
+
+		breaker.record(probe, false, FAST);
+		assertEquals(CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void wrapper_failsFastWhileOpen() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper();
+		for (int i = 0; i < 4; i++) {
+			scripted.thenThrow(new IOException("timeout"));
+		}
+		CircuitBreakerHttpWrapper wrapper = new CircuitBreakerHttpWrapper(
+				scripted, settings(), "http://api/", "http://pub/");
+
+		for (int i = 0; i < 4; i++) {
+			try {
+				wrapper.createGetRequest("http://api/record").execute();
+				fail("Expected an IOException");
+			} catch (CircuitOpenException e) {
+				fail("Not open yet");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+		try {
+			wrapper.createGetRequest("http://api/record").execute();
+			fail("Expected a CircuitOpenException");
+		} catch (CircuitOpenException e) {
+			assertEquals(OPEN, e.getState());
+		}
+		assertEquals(4, scripted.getExecuted().size());
+
+		// Other base URLs are not affected.
+		wrapper.createGetRequest("http://pub/record").execute();
+		assertEquals(CLOSED,
+				wrapper.getBreakers().get("http://pub/").getState());
+	}
+
+	@Test
+	public void wrapper_clientErrorsAreNotFailures() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper();
+		for (int i = 0; i < 4; i++) {
+			scripted.thenFail(404);
+		}
+		CircuitBreakerHttpWrapper wrapper = new CircuitBreakerHttpWrapper(
+				scripted, settings(), "http://api/");
+		for (int i = 0; i < 4; i++) {
+			try {
+				wrapper.createDeleteRequest("http://api/work/1").executeAsync()
+						.get();
+			} catch (Exception e) {
+				// expected
+			}
+		}
+		assertEquals(CLOSED,
+				wrapper.getBreakers().get("http://api/").getState());
+	}
+
+	@Test
+	public void wrapper_localFailuresAreNotFailures() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper();
+		for (int i = 0; i < 4; i++) {
+			scripted.thenThrow(new LocalIOException());
+		}
+		CircuitBreakerHttpWrapper wrapper = new CircuitBreakerHttpWrapper(
+				scripted, settings(), "http://api/");
+		for (int i = 0; i < 4; i++) {
+			try {
+				wrapper.createGetRequest("http://api/record").execute();
+				fail("Expected a LocalIOException");
+			} catch (LocalIOException e) {
+				// expected
+			}
+		}
+		assertEquals(CLOSED,
+				wrapper.getBreakers().get("http://api/").getState());
+	}
+
+	@Test
+	public void wrapper_asyncCallThrowing_countedAsFailure() throws Exception {
+		HttpWrapper throwing = new InterceptingHttpWrapper(
+				new ScriptedHttpWrapper()) {
+			@Override
+			protected <R> R intercept(RequestInfo request, Call<R> call)
+					throws IOException, HttpStatusCodeException {
+				return call.execute();
+			}
+
+			@Override
+			protected CompletableFuture<HttpResponse> interceptAsync(
+					RequestInfo request, AsyncCall call) {
+				throw new IllegalStateException("executor is shut down");
+			}
+		};
+		CircuitBreakerHttpWrapper wrapper = new CircuitBreakerHttpWrapper(
+				throwing, settings(), "http://api/");
+		for (int i = 0; i < 4; i++) {
+			CompletableFuture<HttpResponse> future = wrapper
+					.createGetRequest("http://api/record").executeAsync();
+			assertTrue(future.isCompletedExceptionally());
+		}
+		assertEquals(OPEN, wrapper.getBreakers().get("http://api/").getState());
+	}
+
+	private void openIt() {
+		for (int i = 0; i < 4; i++) {
+			outcome(true, FAST);
+		}
+		assertEquals(OPEN, breaker.getState());
+	}
+
+	private static class LocalIOException extends IOException
+			implements HttpWrapper.LocalFailure {
+		// Nothing to add.
+	}
+}
@@ -0,0 +1,118 @@
+package edu.cornell.library.orcidclient.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cornell.library.orcidclient.http.PooledHttpWrapper.FallbackKeepAliveStrategy;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * The settings reach the connection pool, and every kind of request is sent
+ * through that pool, on a connection that is kept alive.
+ */
+public class PooledHttpWrapperTest extends AbstractTestClass {
+	private HttpServer server;
+	private String baseUrl;
+	private Set<InetSocketAddress> clientAddresses;
+	private PooledHttpWrapper wrapper;
+
+	@Before
+	public void startServer() throws IOException {
+		clientAddresses = Collections.synchronizedSet(new HashSet<>());
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/ok", exchange -> {
+			clientAddresses.add(exchange.getRemoteAddress());
+			respond(exchange, 200, "hello");
+		});
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		if (wrapper != null) {
+			wrapper.close();
+		}
+		server.stop(0);
+	}
+
+	@Test
+	public void settings_appliedToPool() throws Exception {
+		wrapper = new PooledHttpWrapper(new PooledHttpWrapper.Settings()
+				.setMaxTotal(7).setMaxPerRoute(3).setSocketTimeout(1234)
+				.setTcpNoDelay(false).setValidateAfterInactivity(567));
+
+		PoolingHttpClientConnectionManager cm = wrapper.getConnectionManager();
+		assertEquals(7, cm.getMaxTotal());
+		assertEquals(3, cm.getDefaultMaxPerRoute());
+		assertEquals(567, cm.getValidateAfterInactivity());
+		SocketConfig socketConfig = cm.getDefaultSocketConfig();
+		assertEquals(1234, socketConfig.getSoTimeout());
+		assertFalse(socketConfig.isTcpNoDelay());
+		assertTrue(socketConfig.isSoKeepAlive());
+	}
+
+	@Test
+	public void allRequestTypes_shareOneKeptAliveConnection() throws Exception {
+		wrapper = new PooledHttpWrapper();
+		String url = baseUrl + "/ok";
+
+		assertEquals("hello",
+				wrapper.createGetRequest(url).execute().getContentString());
+		wrapper.createPostRequest(url).setBodyString("<work/>").execute();
+		wrapper.createPutRequest(url).setBodyString("<work/>").execute();
+		wrapper.createDeleteRequest(url).execute();
+
+		assertEquals(1, clientAddresses.size());
+		assertEquals(1, wrapper.getConnectionManager().getTotalStats()
+				.getAvailable());
+	}
+
+	@Test
+	public void keepAlive_serverHeaderPreferred() {
+		FallbackKeepAliveStrategy strategy = new FallbackKeepAliveStrategy(
+				60000);
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1,
+				200, "OK");
+		assertEquals(60000,
+				strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+
+		response.addHeader("Keep-Alive", "timeout=5");
+		assertEquals(5000,
+				strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static void respond(HttpExchange exchange, int status,
+			String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
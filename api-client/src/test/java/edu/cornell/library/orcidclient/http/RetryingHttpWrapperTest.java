@@ -0,0 +1,147 @@
+package edu.cornell.library.orcidclient.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.http.RetryingHttpWrapper.Settings;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Which failures are retried, and how often.
+ */
+public class RetryingHttpWrapperTest extends AbstractTestClass {
+	private static final String URL = "http://x/work/1";
+
+	private final ScriptedHttpWrapper scripted = new ScriptedHttpWrapper();
+
+	private RetryingHttpWrapper wrapper(Settings settings) {
+		return new RetryingHttpWrapper(scripted,
+				settings.setInitialBackoff(1).setJitter(0));
+	}
+
+	@Test
+	public void transientFailures_areRetried() throws Exception {
+		scripted.thenFail(503).thenThrow(new IOException("reset"))
+				.thenRespond("done");
+		assertEquals("done", wrapper(new Settings()).createGetRequest(URL)
+				.execute().getContentString());
+		assertEquals(3, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void tooManyFailures_failsWithTheLast() throws Exception {
+		scripted.thenFail(500).thenFail(502);
+		try {
+			wrapper(new Settings().setMaxAttempts(2)).createPutRequest(URL)
+					.execute();
+			fail("Expected a 502");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(502, e.getStatusCode());
+		}
+		assertEquals(2, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void clientErrors_areNotRetried() throws Exception {
+		scripted.thenFail(404);
+		try {
+			wrapper(new Settings()).createDeleteRequest(URL).execute();
+			fail("Expected a 404");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(404, e.getStatusCode());
+		}
+		assertEquals(1, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void interruption_isNotRetried() throws Exception {
+		scripted.thenThrow(new InterruptedIOException());
+		try {
+			wrapper(new Settings()).createGetRequest(URL).execute();
+			fail("Expected an InterruptedIOException");
+		} catch (InterruptedIOException e) {
+			// expected
+		}
+		assertEquals(1, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void localFailure_isNotRetried() throws Exception {
+		scripted.thenThrow(new LocalIOException());
+		try {
+			wrapper(new Settings()).createGetRequest(URL).execute();
+			fail("Expected a LocalIOException");
+		} catch (LocalIOException e) {
+			// expected
+		}
+		assertEquals(1, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void post_isNotRetriedByDefault() throws Exception {
+		scripted.thenFail(503).thenRespond("done");
+		try {
+			wrapper(new Settings()).createPostRequest(URL).execute();
+			fail("Expected a 503");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(1, scripted.getExecuted().size());
+		}
+	}
+
+	@Test
+	public void post_isRetriedIfAllowed() throws Exception {
+		scripted.thenFail(503).thenRespond("done");
+		assertEquals("done",
+				wrapper(new Settings().setRetryPost(true))
+						.createPostRequest(URL).execute().getContentString());
+	}
+
+	@Test
+	public void deadline_stopsTheRetries() throws Exception {
+		scripted.thenFail(503).thenFail(503);
+		try {
+			new RetryingHttpWrapper(scripted,
+					new Settings().setInitialBackoff(1000).setDeadline(500))
+							.createGetRequest(URL).execute();
+			fail("Expected a 503");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(1, scripted.getExecuted().size());
+		}
+	}
+
+	@Test
+	public void async_isRetried() throws Exception {
+		scripted.thenFail(504).thenRespond("done");
+		assertEquals("done", wrapper(new Settings()).createGetRequest(URL)
+				.executeAsync().get().getContentString());
+	}
+
+	@Test
+	public void async_failsWithTheCause() throws Exception {
+		scripted.thenFail(500).thenFail(500);
+		try {
+			wrapper(new Settings().setMaxAttempts(2)).createGetRequest(URL)
+					.executeAsync().get();
+			fail("Expected a 500");
+		} catch (ExecutionException e) {
+			assertEquals(500,
+					((HttpStatusCodeException) e.getCause()).getStatusCode());
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private static class LocalIOException extends IOException
+			implements HttpWrapper.LocalFailure {
+		// Nothing to add.
+	}
+}
@@ -0,0 +1,214 @@
+package edu.cornell.library.orcidclient.http;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HttpWrapper that answers each request with the next outcome in the
+ * script: a response, a status code, or an exception. When the script runs
+ * out, it responds with 200 and "OK".
+ *
+ * Records the method and URL of each request that is executed, and the body of
+ * each POST or PUT.
+ */
+public class ScriptedHttpWrapper implements HttpWrapper {
+	private final Deque<Outcome> script = new ArrayDeque<>();
+	private final List<String> executed = Collections
+			.synchronizedList(new ArrayList<>());
+	private final List<String> bodies = Collections
+			.synchronizedList(new ArrayList<>());
+
+	public ScriptedHttpWrapper thenRespond(String content) {
+		script.add(new Outcome(content, 0, null, null));
+		return this;
+	}
+
+	public ScriptedHttpWrapper thenFail(int statusCode) {
+		return thenFail(statusCode, Collections.emptyMap());
+	}
+
+	public ScriptedHttpWrapper thenFail(int statusCode,
+			Map<String, List<String>> headers) {
+		script.add(new Outcome(null, statusCode, headers, null));
+		return this;
+	}
+
+	public ScriptedHttpWrapper thenThrow(IOException e) {
+		script.add(new Outcome(null, 0, null, e));
+		return this;
+	}
+
+	/** Like "GET http://..." */
+	public List<String> getExecuted() {
+		return new ArrayList<>(executed);
+	}
+
+	/** The bodies of the POST and PUT requests, in order. */
+	public List<String> getBodies() {
+		return new ArrayList<>(bodies);
+	}
+
+	private synchronized HttpResponse respond(String method, String url)
+			throws IOException, HttpStatusCodeException {
+		executed.add(method + " " + url);
+		Outcome outcome = script.isEmpty() ? new Outcome("OK", 0, null, null)
+				: script.remove();
+		if (outcome.exception != null) {
+			throw outcome.exception;
+		}
+		if (outcome.statusCode != 0) {
+			throw new HttpStatusCodeException("Scripted failure",
+					outcome.statusCode, "", outcome.headers);
+		}
+		return new ScriptedResponse(outcome.content);
+	}
+
+	@Override
+	public GetRequest createGetRequest(String url) {
+		return new GetRequest() {
+			@Override
+			public String getUrl() {
+				return url;
+			}
+
+			@Override
+			public GetRequest addHeader(String key, String value) {
+				return this;
+			}
+
+			@Override
+			public HttpResponse execute()
+					throws IOException, HttpStatusCodeException {
+				return respond("GET", url);
+			}
+		};
+	}
+
+	@Override
+	public PostRequest createPostRequest(String url) {
+		return new PostRequest() {
+			private String body;
+
+			@Override
+			public String getUrl() {
+				return url;
+			}
+
+			@Override
+			public PostRequest addFormField(String key, String value) {
+				return this;
+			}
+
+			@Override
+			public PostRequest addHeader(String key, String value) {
+				return this;
+			}
+
+			@Override
+			public PostRequest setBodyString(String body) {
+				this.body = body;
+				return this;
+			}
+
+			@Override
+			public HttpResponse execute()
+					throws IOException, HttpStatusCodeException {
+				bodies.add(body);
+				return respond("POST", url);
+			}
+		};
+	}
+
+	@Override
+	public PutRequest createPutRequest(String url) {
+		return new PutRequest() {
+			private String body;
+
+			@Override
+			public String getUrl() {
+				return url;
+			}
+
+			@Override
+			public PutRequest addHeader(String key, String value) {
+				return this;
+			}
+
+			@Override
+			public PutRequest setBodyString(String body) {
+				this.body = body;
+				return this;
+			}
+
+			@Override
+			public HttpResponse execute()
+					throws IOException, HttpStatusCodeException {
+				bodies.add(body);
+				return respond("PUT", url);
+			}
+		};
+	}
+
+	@Override
+	public DeleteRequest createDeleteRequest(String url) {
+		return new DeleteRequest() {
+			@Override
+			public String getUrl() {
+				return url;
+			}
+
+			@Override
+			public DeleteRequest addHeader(String key, String value) {
+				return this;
+			}
+
+			@Override
+			public HttpResponse execute()
+					throws IOException, HttpStatusCodeException {
+				return respond("DELETE", url);
+			}
+		};
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	private static class Outcome {
+		final String content;
+		final int statusCode;
+		final Map<String, List<String>> headers;
+		final IOException exception;
+
+		Outcome(String content, int statusCode,
+				Map<String, List<String>> headers, IOException exception) {
+			this.content = content;
+			this.statusCode = statusCode;
+			this.headers = headers;
+			this.exception = exception;
+		}
+	}
+
+	private static class ScriptedResponse implements HttpResponse {
+		private final String content;
+
+		ScriptedResponse(String content) {
+			this.content = content;
+		}
+
+		@Override
+		public String getContentString() {
+			return content;
+		}
+
+		@Override
+		public List<String> getHeaderValues(String key) {
+			return Collections.emptyList();
+		}
+	}
+}
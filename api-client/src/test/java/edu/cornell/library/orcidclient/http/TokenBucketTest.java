@@ -0,0 +1,120 @@
+package edu.cornell.library.orcidclient.http;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Pacing with a token bucket, and throttling in the RateLimitingHttpWrapper.
+ */
+public class TokenBucketTest extends AbstractTestClass {
+	private static final long MS = MILLISECONDS.toNanos(1);
+
+	private long now;
+	private TokenBucket bucket;
+
+	@Before
+	public void setup() {
+		now = 0;
+		bucket = new TokenBucket(10, 2, () -> now);
+	}
+
+	@Test
+	public void burstThenSteadyRate() {
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(100 * MS, bucket.tryAcquire());
+
+		now += 40 * MS;
+		assertEquals(60 * MS, bucket.tryAcquire());
+		now += 60 * MS;
+		assertEquals(0, bucket.tryAcquire());
+	}
+
+	@Test
+	public void neverMoreThanTheBurst() {
+		now += SECONDS.toNanos(60);
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(0, bucket.tryAcquire());
+		assertEquals(100 * MS, bucket.tryAcquire());
+	}
+
+	@Test
+	public void pause_blocksUntilOverThenResumesAtTheRate() {
+		bucket.pause(500, MILLISECONDS);
+		assertEquals(500 * MS, bucket.tryAcquire());
+		now += 500 * MS;
+		assertEquals(100 * MS, bucket.tryAcquire());
+		now += 100 * MS;
+		assertEquals(0, bucket.tryAcquire());
+	}
+
+	@Test
+	public void shorterPause_doesNotCancelLonger() {
+		bucket.pause(500, MILLISECONDS);
+		bucket.pause(100, MILLISECONDS);
+		assertEquals(500 * MS, bucket.tryAcquire());
+	}
+
+	@Test
+	public void throttledRequest_isRetriedAfterThePause() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper()
+				.thenFail(429, Collections.singletonMap("Retry-After",
+						Collections.singletonList("0")))
+				.thenRespond("done");
+		RateLimitingHttpWrapper wrapper = new RateLimitingHttpWrapper(
+				scripted, "APP-1");
+
+		assertEquals("done", wrapper.createPostRequest("http://x/work")
+				.execute().getContentString());
+		assertEquals(2, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void throttledTooOften_fails() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper()
+				.thenFail(429).thenFail(429);
+		RateLimitingHttpWrapper wrapper = new RateLimitingHttpWrapper(
+				scripted, "APP-1").setMaxThrottleRetries(1);
+
+		expectException(HttpStatusCodeException.class, "429");
+		wrapper.createGetRequest("http://x/record").execute();
+	}
+
+	@Test
+	public void throttledAsync_isRetried() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper()
+				.thenFail(503, Collections.singletonMap("Retry-After",
+						Collections.singletonList("0")))
+				.thenRespond("done");
+		RateLimitingHttpWrapper wrapper = new RateLimitingHttpWrapper(
+				scripted, "APP-1");
+
+		assertEquals("done", wrapper.createGetRequest("http://x/record")
+				.executeAsync().get().getContentString());
+		assertEquals(2, scripted.getExecuted().size());
+	}
+
+	@Test
+	public void otherFailures_areNotRetried() throws Exception {
+		ScriptedHttpWrapper scripted = new ScriptedHttpWrapper().thenFail(503);
+		RateLimitingHttpWrapper wrapper = new RateLimitingHttpWrapper(
+				scripted, "APP-1");
+		try {
+			wrapper.createGetRequest("http://x/record").execute();
+			fail("Expected a 503");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(503, e.getStatusCode());
+		}
+		assertEquals(1, scripted.getExecuted().size());
+	}
+}
@@ -0,0 +1,199 @@
+package edu.cornell.library.orcidclient.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Relationship;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkType;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.OrcidActionClient;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.auth.AccessTokenCacheMemoryImpl;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.elements.ExternalIdBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.ScriptedHttpWrapper;
+import edu.cornell.library.orcidclient.sync.EditPlan.ElementType;
+import edu.cornell.library.orcidclient.sync.EditPlan.Kind;
+import edu.cornell.library.orcidclient.sync.EditPlanExecutor.Report;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Plans survive a round trip through a file, and an interrupted execution
+ * picks up where it stopped.
+ */
+public class EditPlanTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID_1 = "0000-0003-1495-7122";
+	private static final String ORCID_2 = "0000-0002-9227-8514";
+
+	private File tempDir;
+	private ScriptedHttpWrapper httpWrapper;
+	private EditPlanExecutor executor;
+
+	@Before
+	public void setup() throws Exception {
+		tempDir = createTempDirectory("EditPlanTest");
+		httpWrapper = new ScriptedHttpWrapper();
+
+		Map<String, AccessToken> tokens = new HashMap<>();
+		for (String orcid : Arrays.asList(ORCID_1, ORCID_2)) {
+			tokens.put(orcid, token(orcid, ApiScope.ACTIVITIES_UPDATE));
+		}
+		executor = new OrcidActionClient(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				httpWrapper).createEditPlanExecutor(tokens::get)
+						.setMaxInFlight(1);
+	}
+
+	@After
+	public void cleanup() {
+		purgeDirectoryRecursively(tempDir);
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		EditPlan plan = samplePlan();
+		Path file = tempDir.toPath().resolve("plan.gz");
+		plan.writeTo(file);
+		EditPlan read = EditPlan.readFrom(file);
+
+		assertEquals(plan.getId(), read.getId());
+		assertEquals(3, read.size());
+		assertEquals("10.1/a", ((Work) read.getOperations().get(0).getElement())
+				.getExternalIdentifiers().getExternalIdentifier().get(0)
+				.getValue());
+		assertEquals("2", read.getOperations().get(2).getPutCode());
+	}
+
+	@Test
+	public void counts() throws Exception {
+		EditPlan plan = samplePlan();
+		Map<String, Integer> writes = new HashMap<>();
+		writes.put(ORCID_1, 2);
+		writes.put(ORCID_2, 1);
+		assertEquals(writes, plan.getWriteCounts());
+		assertEquals(Integer.valueOf(1), plan.getKindCounts().get(Kind.ADD));
+	}
+
+	@Test
+	public void damagedElement_rejected() throws Exception {
+		String digest = samplePlan().getOperations().get(0).getDigest();
+		EditPlan.Operation damaged = new EditPlan.Operation(Kind.ADD, ORCID_1,
+				ElementType.WORK, null, digest,
+				XmlCodec.INSTANCE.encode(work("10.1/zzz")));
+
+		expectException(OrcidClientException.class, "does not match");
+		damaged.getElement();
+	}
+
+	@Test
+	public void resumeAfterFailure() throws Exception {
+		EditPlan plan = samplePlan();
+		Path progress = tempDir.toPath().resolve("progress");
+
+		httpWrapper.thenRespond("").thenFail(400).thenRespond("");
+		Report first = executor.execute(plan, progress);
+		assertEquals(2, first.getSucceeded());
+		assertEquals(1, first.getFailures().size());
+
+		Report second = executor.execute(plan, progress);
+		assertEquals(2, second.getSkipped());
+		assertEquals(1, second.getSucceeded());
+		assertTrue(second.isComplete());
+		assertEquals(Arrays.asList( //
+				"POST " + BASE_URL + ORCID_1 + "/work", //
+				"PUT " + BASE_URL + ORCID_1 + "/work/1", //
+				"DELETE " + BASE_URL + ORCID_2 + "/work/2", //
+				"PUT " + BASE_URL + ORCID_1 + "/work/1"), //
+				httpWrapper.getExecuted());
+	}
+
+	@Test
+	public void tornProgressLine_ignoredAndEnded() throws Exception {
+		EditPlan plan = samplePlan();
+		Path progress = tempDir.toPath().resolve("progress");
+		Files.write(progress, ("plan " + plan.getId() + "\ndone 0\ndone 1")
+				.getBytes(StandardCharsets.UTF_8));
+
+		Report first = executor.execute(plan, progress);
+		assertEquals(1, first.getSkipped());
+		assertEquals(2, first.getSucceeded());
+
+		Report second = executor.execute(plan, progress);
+		assertEquals(3, second.getSkipped());
+		assertEquals(Arrays.asList( //
+				"PUT " + BASE_URL + ORCID_1 + "/work/1", //
+				"DELETE " + BASE_URL + ORCID_2 + "/work/2"), //
+				httpWrapper.getExecuted());
+	}
+
+	@Test
+	public void tokensFromMultiUserCache_foundByOrcidAndScope()
+			throws Exception {
+		AccessTokenCacheMemoryImpl cache = new AccessTokenCacheMemoryImpl();
+		cache.addAccessToken(token(ORCID_1, ApiScope.ACTIVITIES_UPDATE));
+		cache.addAccessToken(token(ORCID_2, ApiScope.READ_LIMITED));
+		executor = new OrcidActionClient(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				httpWrapper)
+						.createEditPlanExecutor(EditSender.TokenSource
+								.from(cache, ApiScope.ACTIVITIES_UPDATE));
+
+		Report report = executor.execute(samplePlan(),
+				tempDir.toPath().resolve("progress"));
+		assertEquals(2, report.getSucceeded());
+		assertEquals(1, report.getFailures().size());
+		assertTrue(report.getFailures().get(0)
+				.contains("No access token for " + ORCID_2));
+	}
+
+	@Test
+	public void progressForOtherPlan_rejected() throws Exception {
+		Path progress = tempDir.toPath().resolve("progress");
+		Files.write(progress, Arrays.asList("plan 1234"));
+
+		expectException(OrcidClientException.class, "different plan");
+		executor.execute(samplePlan(), progress);
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static EditPlan samplePlan() throws OrcidClientException {
+		return new EditPlan.Builder() //
+				.add(ORCID_1, work("10.1/a")) //
+				.update(ORCID_1, "1", work("10.1/b")) //
+				.remove(ORCID_2, ElementType.WORK, "2") //
+				.build();
+	}
+
+	private static AccessToken token(String orcid, ApiScope scope) {
+		return new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				scope, "name", orcid);
+	}
+
+	private static Work work(String doi) {
+		return new WorkBuilder(WorkType.JOURNAL_ARTICLE, "Title")
+				.addExternalId(new ExternalIdBuilder(Relationship.SELF)
+						.setType("doi").setValue(doi)
+						.setUrl("https://doi.org/" + doi))
+				.build();
+	}
+}
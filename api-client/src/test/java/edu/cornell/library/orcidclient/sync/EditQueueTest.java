@@ -0,0 +1,404 @@
+package edu.cornell.library.orcidclient.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.record_v2.Relationship;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkBulk;
+import org.orcid.jaxb.model.record_v2.WorkType;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.OrcidActionClient;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.elements.ExternalIdBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.InterceptingHttpWrapper;
+import edu.cornell.library.orcidclient.http.ScriptedHttpWrapper;
+import edu.cornell.library.orcidclient.sync.EditPlan.ElementType;
+import edu.cornell.library.orcidclient.sync.EditPlan.Operation;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.AsyncUtil;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Edits are sent in the background, retried when ORCID is unavailable, and
+ * kept in the journal until they are finished. Edits to the same element that
+ * wait together are combined.
+ */
+public class EditQueueTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+
+	private File tempDir;
+	private Path journal;
+	private ScriptedHttpWrapper httpWrapper;
+	private OrcidActionClient client;
+	private AccessToken token;
+	private EditQueue queue;
+
+	@Before
+	public void setup() throws Exception {
+		tempDir = createTempDirectory("EditQueueTest");
+		journal = tempDir.toPath().resolve("edits.journal");
+		httpWrapper = new ScriptedHttpWrapper();
+		client = new OrcidActionClient(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				httpWrapper);
+		token = new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", ORCID);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		if (queue != null) {
+			queue.close();
+		}
+		purgeDirectoryRecursively(tempDir);
+	}
+
+	@Test
+	public void submittedEdit_isSent() throws Exception {
+		queue = open(10);
+		CompletableFuture<String> future = queue.submit(update("1", "10.1/a"));
+
+		assertNull(AsyncUtil.await(future));
+		assertEquals(Arrays.asList("PUT " + BASE_URL + ORCID + "/work/1"),
+				httpWrapper.getExecuted());
+		assertEquals(0, queue.getPendingCount());
+	}
+
+	@Test
+	public void transientFailure_retried() throws Exception {
+		httpWrapper.thenFail(503).thenFail(429);
+		queue = open(10);
+		AsyncUtil.await(queue.submit(update("1", "10.1/a")));
+
+		assertEquals(3, httpWrapper.getExecuted().size());
+		assertTrue(queue.getFailures().isEmpty());
+	}
+
+	@Test
+	public void addThatTimesOut_notResent() throws Exception {
+		httpWrapper.thenThrow(new IOException("Read timed out"));
+		queue = open(10);
+		CompletableFuture<String> future = queue.submit(add("10.1/a"));
+
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(1, httpWrapper.getExecuted().size());
+		assertEquals(1, queue.getFailures().size());
+		assertTrue(future.isCompletedExceptionally());
+	}
+
+	@Test
+	public void addRefusedAsUnavailable_resent() throws Exception {
+		httpWrapper.thenFail(503);
+		queue = open(10);
+		AsyncUtil.await(queue.submit(add("10.1/a")));
+
+		assertEquals(Arrays.asList( //
+				"POST " + BASE_URL + ORCID + "/work", //
+				"POST " + BASE_URL + ORCID + "/work"), //
+				httpWrapper.getExecuted());
+		assertTrue(queue.getFailures().isEmpty());
+	}
+
+	@Test
+	public void addInterruptedWhileSending_notResentOnReplay()
+			throws Exception {
+		Path crashed = tempDir.toPath().resolve("crashed.journal");
+		client = new OrcidActionClient(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				new InterceptingHttpWrapper(httpWrapper) {
+					@Override
+					protected <R> R intercept(RequestInfo request,
+							Call<R> call)
+							throws IOException, HttpStatusCodeException {
+						Files.copy(journal, crashed);
+						return call.execute();
+					}
+
+					@Override
+					protected CompletableFuture<HttpResponse> interceptAsync(
+							RequestInfo request, AsyncCall call) {
+						try {
+							Files.copy(journal, crashed);
+						} catch (IOException e) {
+							return AsyncUtil.failed(e);
+						}
+						return call.execute();
+					}
+				});
+		queue = open(10);
+		AsyncUtil.await(queue.submit(add("10.1/a")));
+		queue.close();
+
+		journal = crashed;
+		client = new OrcidActionClient(
+				new StubOrcidClientContext().setApiMemberUrl(BASE_URL),
+				httpWrapper);
+		queue = open(10);
+		assertEquals(1, httpWrapper.getExecuted().size());
+		assertEquals(1, queue.getFailures().size());
+		assertTrue(queue.getFailures().get(0).getCause().getMessage()
+				.contains("may have been applied"));
+		assertEquals(0, EditJournal.readPending(crashed).size());
+	}
+
+	@Test
+	public void refusedAdd_resentAfterRestart() throws Exception {
+		httpWrapper.thenFail(503);
+		queue = open(60000);
+		queue.submit(add("10.1/a"));
+		waitForRequests(1);
+		queue.close();
+		assertTrue(EditJournal.read(journal).sending.isEmpty());
+
+		queue = open(10);
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(2, httpWrapper.getExecuted().size());
+		assertTrue(queue.getFailures().isEmpty());
+	}
+
+	@Test
+	public void permanentFailure_dropped() throws Exception {
+		httpWrapper.thenFail(400);
+		queue = open(10);
+		CompletableFuture<String> future = queue.submit(update("1", "10.1/a"));
+
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(1, httpWrapper.getExecuted().size());
+		assertEquals(1, queue.getFailures().size());
+		assertTrue(future.isCompletedExceptionally());
+	}
+
+	@Test
+	public void pendingEdits_surviveRestart() throws Exception {
+		httpWrapper.thenFail(503);
+		queue = open(60000);
+		queue.submit(update("1", "10.1/a"));
+		waitForRequests(1);
+		queue.close();
+		assertEquals(1, EditJournal.readPending(journal).size());
+
+		queue = open(10);
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(2, httpWrapper.getExecuted().size());
+		assertEquals(0, EditJournal.readPending(journal).size());
+	}
+
+	@Test
+	public void tornJournalLine_ignored() throws Exception {
+		writeJournal(update("1", "10.1/a"));
+		Files.write(journal, "+1 {\"op\":\"UPD"
+				.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		try (EditJournal j = new EditJournal(journal)) {
+			j.append(2, update("2", "10.1/b"));
+		}
+
+		assertEquals(2, EditJournal.readPending(journal).size());
+	}
+
+	@Test
+	public void editsToSameElement_sentInOrder() throws Exception {
+		writeJournal(update("1", "10.1/a"), update("2", "10.1/b"),
+				remove("1"));
+		queue = open(10);
+
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		List<String> executed = httpWrapper.getExecuted();
+		assertEquals(3, executed.size());
+		assertEquals("DELETE " + BASE_URL + ORCID + "/work/1",
+				executed.get(2));
+	}
+
+	@Test
+	public void addedWorks_sentInBulk() throws Exception {
+		WorkBulk response = new WorkBulk();
+		for (long putCode : new long[] { 501, 502 }) {
+			Work created = new Work();
+			created.setPutCode(putCode);
+			response.getBulk().add(created);
+		}
+		httpWrapper.thenRespond(OrcidXmlUtil.marshall(response));
+		writeJournal(add("10.1/a"), add("10.1/b"));
+		queue = open(10);
+
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("POST " + BASE_URL + ORCID + "/works"),
+				httpWrapper.getExecuted());
+	}
+
+	@Test
+	public void repeatedUpdates_onlyLatestSent() throws Exception {
+		queue = open(10, 300);
+		List<CompletableFuture<String>> futures = Arrays.asList(
+				queue.submit(update("1", "10.1/a")),
+				queue.submit(update("1", "10.1/b")),
+				queue.submit(update("1", "10.1/c")));
+		for (CompletableFuture<String> future : futures) {
+			AsyncUtil.await(future);
+		}
+
+		assertEquals(Arrays.asList("PUT " + BASE_URL + ORCID + "/work/1"),
+				httpWrapper.getExecuted());
+		assertTrue(httpWrapper.getBodies().get(0).contains("10.1/c"));
+		assertEquals(2, queue.getCoalescedCount());
+	}
+
+	@Test
+	public void updateThenRemove_onlyRemoveSent() throws Exception {
+		queue = open(10, 300);
+		queue.submit(update("1", "10.1/a"));
+		queue.submit(update("2", "10.1/b"));
+		queue.submit(remove("1"));
+
+		assertTrue(queue.awaitEmpty(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("DELETE " + BASE_URL + ORCID + "/work/1",
+				"PUT " + BASE_URL + ORCID + "/work/2"),
+				httpWrapper.getExecuted());
+	}
+
+	@Test
+	public void coalescedEdit_journaledInPlace() throws Exception {
+		queue = open(10, 60000);
+		queue.submit(update("1", "10.1/a"));
+		queue.submit(update("1", "10.1/b"));
+		queue.close();
+
+		Map<Long, Operation> pending = EditJournal.readPending(journal);
+		assertEquals(1, pending.size());
+		assertEquals(update("1", "10.1/b").getDigest(),
+				pending.values().iterator().next().getDigest());
+	}
+
+	@Test
+	public void addThenCancel_sendsNothing() throws Exception {
+		queue = open(10, 60000);
+		CompletableFuture<String> future = queue.submit(add("10.1/a"));
+
+		assertTrue(queue.cancel(future));
+		assertTrue(future.isCancelled());
+		assertEquals(0, queue.getPendingCount());
+		assertTrue(EditJournal.readPending(journal).isEmpty());
+		assertTrue(httpWrapper.getExecuted().isEmpty());
+	}
+
+	@Test
+	public void replacedUpdateCancelled_replacementStillSent()
+			throws Exception {
+		queue = open(10, 300);
+		CompletableFuture<String> first = queue.submit(update("1", "10.1/a"));
+		CompletableFuture<String> second = queue.submit(update("1", "10.1/b"));
+
+		assertTrue(queue.cancel(first));
+		assertTrue(first.isCancelled());
+		AsyncUtil.await(second);
+		assertEquals(Arrays.asList("PUT " + BASE_URL + ORCID + "/work/1"),
+				httpWrapper.getExecuted());
+		assertTrue(httpWrapper.getBodies().get(0).contains("10.1/b"));
+	}
+
+	@Test
+	public void replacingUpdateCancelled_bothWithdrawn() throws Exception {
+		queue = open(10, 60000);
+		CompletableFuture<String> first = queue.submit(update("1", "10.1/a"));
+		CompletableFuture<String> second = queue.submit(update("1", "10.1/b"));
+
+		assertTrue(queue.cancel(second));
+		assertTrue(first.isCancelled());
+		assertEquals(0, queue.getPendingCount());
+		assertTrue(EditJournal.readPending(journal).isEmpty());
+	}
+
+	@Test
+	public void joinedAddCancelled_addStillSent() throws Exception {
+		queue = open(10, 300);
+		CompletableFuture<String> first = queue.submit(add("10.1/a"));
+		CompletableFuture<String> second = queue.submit(add("10.1/a"));
+
+		assertTrue(queue.cancel(first));
+		AsyncUtil.await(second);
+		assertEquals(Arrays.asList("POST " + BASE_URL + ORCID + "/work"),
+				httpWrapper.getExecuted());
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private EditQueue open(long backoffMillis) throws OrcidClientException {
+		return open(backoffMillis, 0);
+	}
+
+	private EditQueue open(long backoffMillis, long windowMillis)
+			throws OrcidClientException {
+		return client.createEditQueue(journal,
+				orcid -> ORCID.equals(orcid) ? token : null,
+				new EditQueue.Settings()
+						.setBackoffMillis(backoffMillis, backoffMillis)
+						.setCoalesceWindowMillis(windowMillis));
+	}
+
+	/**
+	 * Put edits in the journal before the queue starts, so they are all ready
+	 * together.
+	 */
+	private void writeJournal(Operation... ops) throws Exception {
+		try (EditJournal j = new EditJournal(journal)) {
+			for (int i = 0; i < ops.length; i++) {
+				j.append(i, ops[i]);
+			}
+		}
+	}
+
+	private void waitForRequests(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (httpWrapper.getExecuted().size() < count
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static Operation add(String doi) throws OrcidClientException {
+		return new EditPlan.Builder().add(ORCID, work(doi)).build()
+				.getOperations().get(0);
+	}
+
+	private static Operation update(String putCode, String doi)
+			throws OrcidClientException {
+		return new EditPlan.Builder().update(ORCID, putCode, work(doi))
+				.build().getOperations().get(0);
+	}
+
+	private static Operation remove(String putCode) {
+		return new EditPlan.Builder().remove(ORCID, ElementType.WORK, putCode)
+				.build().getOperations().get(0);
+	}
+
+	private static Work work(String doi) {
+		return new WorkBuilder(WorkType.JOURNAL_ARTICLE, "Title")
+				.addExternalId(new ExternalIdBuilder(Relationship.SELF)
+						.setType("doi").setValue(doi)
+						.setUrl("https://doi.org/" + doi))
+				.build();
+	}
+}
@@ -0,0 +1,204 @@
+package edu.cornell.library.orcidclient.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.orcid.jaxb.model.common_v2.Source;
+import org.orcid.jaxb.model.common_v2.SourceClientId;
+import org.orcid.jaxb.model.common_v2.Visibility;
+import org.orcid.jaxb.model.record.summary_v2.WorkGroup;
+import org.orcid.jaxb.model.record.summary_v2.WorkSummary;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.Relationship;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkBulk;
+import org.orcid.jaxb.model.record_v2.WorkType;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.OrcidActionClient;
+import edu.cornell.library.orcidclient.actions.StubOrcidClientContext;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.elements.ExternalIdBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.ScriptedHttpWrapper;
+import edu.cornell.library.orcidclient.sync.WorksSynchronizer.Plan;
+import edu.cornell.library.orcidclient.sync.WorksSynchronizer.Result;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Match by external ID, compare content, and send only the edits that are
+ * needed.
+ */
+public class WorksSynchronizerTest extends AbstractTestClass {
+	private static final String BASE_URL = "http://orcid.test/v2.1/";
+	private static final String ORCID = "0000-0003-1495-7122";
+	private static final String RECORD_URL = BASE_URL + ORCID;
+	private static final String CLIENT_ID = "APP-OURS";
+
+	private ScriptedHttpWrapper httpWrapper;
+	private WorksSynchronizer synchronizer;
+	private AccessToken token;
+
+	@Before
+	public void setup() {
+		httpWrapper = new ScriptedHttpWrapper();
+		StubOrcidClientContext context = new StubOrcidClientContext()
+				.setApiPublicUrl(BASE_URL).setApiMemberUrl(BASE_URL)
+				.setClientId(CLIENT_ID);
+		synchronizer = new OrcidActionClient(context, httpWrapper)
+				.createWorksSynchronizer().setMaxInFlight(1);
+		token = new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", ORCID);
+	}
+
+	@Test
+	public void onlyTheNecessaryEdits() throws Exception {
+		httpWrapper.thenRespond(summaries(summary(1, "10.1/a", CLIENT_ID),
+				summary(2, "10.1/b", CLIENT_ID),
+				summary(3, "10.1/c", CLIENT_ID),
+				summary(4, "10.1/d", "APP-OTHER")));
+		httpWrapper.thenRespond(bulk(onRecord(work("10.1/a", "A"), 1),
+				onRecord(work("10.1/b", "B"), 2)));
+		httpWrapper.thenRespond(bulk(onRecord(work("10.1/d", "D"), 10),
+				onRecord(work("10.1/e", "E"), 11)));
+
+		Work revised = work("10.1/b", "B, revised");
+		Result result = synchronizer.synchronize(token,
+				Arrays.asList(work("10.1/a", "A"), revised,
+						work("10.1/d", "D"), work("10.1/e", "E")));
+
+		assertEquals(Arrays.asList( //
+				"GET " + RECORD_URL + "/works", //
+				"GET " + RECORD_URL + "/works/1,2", //
+				"POST " + RECORD_URL + "/works", //
+				"PUT " + RECORD_URL + "/work/2", //
+				"DELETE " + RECORD_URL + "/work/3"), //
+				httpWrapper.getExecuted());
+		assertEquals(2, result.getAdded());
+		assertEquals(1, result.getUpdated());
+		assertEquals(1, result.getRemoved());
+		assertTrue(result.isSuccess());
+		assertNull("caller's work was changed", revised.getPutCode());
+	}
+
+	@Test
+	public void unchangedRecord_noWrites() throws Exception {
+		httpWrapper.thenRespond(summaries(summary(1, "10.1/a", CLIENT_ID)));
+		httpWrapper.thenRespond(bulk(onRecord(work("10.1/a", "A"), 1)));
+
+		Plan plan = synchronizer.plan(token,
+				Collections.singletonList(work("10.1/a", "A")));
+
+		assertTrue(plan.isEmpty());
+		assertEquals(1, plan.getUnchanged());
+		assertEquals(2, httpWrapper.getExecuted().size());
+	}
+
+	@Test
+	public void duplicatesAreRemoved() throws Exception {
+		httpWrapper.thenRespond(summaries(summary(1, "10.1/a", CLIENT_ID),
+				summary(2, "10.1/a", CLIENT_ID)));
+		httpWrapper.thenRespond(bulk(onRecord(work("10.1/a", "A"), 1)));
+
+		Plan plan = synchronizer.plan(token,
+				Collections.singletonList(work("10.1/a", "A")));
+
+		assertEquals(Collections.singletonList("2"), plan.getRemoves());
+		assertEquals(1, plan.getUnchanged());
+	}
+
+	@Test
+	public void failedEdit_othersStillSent() throws Exception {
+		httpWrapper.thenRespond(summaries(summary(1, "10.1/a", CLIENT_ID),
+				summary(2, "10.1/b", CLIENT_ID)));
+		httpWrapper.thenFail(500).thenRespond("");
+
+		Result result = synchronizer.synchronize(token,
+				Collections.<Work> emptyList());
+
+		assertEquals(1, result.getRemoved());
+		assertEquals(1, result.getFailures().size());
+		assertTrue(result.getFailures().get(0).startsWith("Remove 1 failed"));
+	}
+
+	@Test
+	public void matchKeys_ignoreCase() {
+		Work work = work(" 10.1/ABC", "A");
+		assertEquals(Collections.singletonList("doi:10.1/abc"),
+				WorksSynchronizer.matchKeys(work.getExternalIdentifiers(),
+						work.getWorkType(), work.getWorkTitle()));
+	}
+
+	@Test
+	public void matchKeys_fallBackToTitle() {
+		Work work = new WorkBuilder(WorkType.BOOK, " The Title ").build();
+		assertEquals(Collections.singletonList("title:book:the title"),
+				WorksSynchronizer.matchKeys(work.getExternalIdentifiers(),
+						work.getWorkType(), work.getWorkTitle()));
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper methods
+	// ----------------------------------------------------------------------
+
+	private static Work work(String doi, String title) {
+		return new WorkBuilder(WorkType.JOURNAL_ARTICLE, title)
+				.addExternalId(new ExternalIdBuilder(Relationship.SELF)
+						.setType("doi").setValue(doi)
+						.setUrl("https://doi.org/" + doi))
+				.build();
+	}
+
+	/** As ORCID would return it. */
+	private static Work onRecord(Work work, long putCode) {
+		work.setPutCode(putCode);
+		work.setVisibility(Visibility.PUBLIC);
+		work.setSource(source(CLIENT_ID));
+		return work;
+	}
+
+	private static WorkSummary summary(long putCode, String doi,
+			String clientId) {
+		Work work = work(doi, "whatever");
+		WorkSummary summary = new WorkSummary();
+		summary.setPutCode(putCode);
+		summary.setTitle(work.getWorkTitle());
+		summary.setType(work.getWorkType());
+		summary.setExternalIdentifiers(work.getExternalIdentifiers());
+		summary.setSource(source(clientId));
+		return summary;
+	}
+
+	private static Source source(String clientId) {
+		Source source = new Source();
+		source.setSourceClientId(new SourceClientId(clientId));
+		return source;
+	}
+
+	private static String summaries(WorkSummary... summaries)
+			throws OrcidClientException {
+		Works works = new Works();
+		for (WorkSummary summary : summaries) {
+			WorkGroup group = new WorkGroup();
+			group.getWorkSummary().add(summary);
+			works.getWorkGroup().add(group);
+		}
+		return OrcidXmlUtil.marshall(works);
+	}
+
+	private static String bulk(Work... works) throws OrcidClientException {
+		WorkBulk bulk = new WorkBulk();
+		List<Work> list = Arrays.asList(works);
+		bulk.getBulk().addAll(list);
+		return OrcidXmlUtil.marshall(bulk);
+	}
+}
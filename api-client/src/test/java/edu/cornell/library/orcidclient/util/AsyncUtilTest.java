@@ -0,0 +1,92 @@
+package edu.cornell.library.orcidclient.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.testing.AbstractTestClass;
+
+/**
+ * Check the ordering, concurrency and failure handling of boundedFanOut().
+ */
+public class AsyncUtilTest extends AbstractTestClass {
+	private final List<CompletableFuture<String>> pending = new ArrayList<>();
+
+	@Test
+	public void resultsAreInInputOrder() throws Exception {
+		CompletableFuture<List<String>> result = AsyncUtil
+				.boundedFanOut(Arrays.asList(1, 2, 3), 3, this::startTask);
+		pending.get(2).complete("three");
+		pending.get(0).complete("one");
+		pending.get(1).complete("two");
+		assertEquals(Arrays.asList("one", "two", "three"), result.get());
+	}
+
+	@Test
+	public void noMoreThanMaxInFlight() throws Exception {
+		CompletableFuture<List<String>> result = AsyncUtil.boundedFanOut(
+				Arrays.asList(1, 2, 3, 4, 5), 2, this::startTask);
+		assertEquals(2, pending.size());
+
+		pending.get(1).complete("two");
+		assertEquals(3, pending.size());
+
+		int completed = 1;
+		for (int i = 0; i < 5; i++) {
+			if (!pending.get(i).isDone()) {
+				pending.get(i).complete("x");
+				completed++;
+			}
+			assertTrue(pending.size() - completed <= 2);
+		}
+		assertEquals(5, result.get().size());
+	}
+
+	@Test
+	public void failure_stopsStartingTasks() throws Exception {
+		CompletableFuture<List<String>> result = AsyncUtil.boundedFanOut(
+				Arrays.asList(1, 2, 3, 4, 5), 2, this::startTask);
+		pending.get(0).completeExceptionally(
+				new OrcidClientException("Task failed"));
+		assertTrue(result.isCompletedExceptionally());
+		assertEquals(2, pending.size());
+
+		expectException(OrcidClientException.class, "Task failed");
+		AsyncUtil.await(result);
+	}
+
+	@Test
+	public void synchronousTasks_manyItems() throws Exception {
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			items.add(i);
+		}
+		List<String> result = AsyncUtil.boundedFanOut(items, 4,
+				i -> CompletableFuture.completedFuture(String.valueOf(i)))
+				.get();
+		assertEquals(20000, result.size());
+		assertEquals("19999", result.get(19999));
+	}
+
+	@Test
+	public void noItems_completesImmediately() throws Exception {
+		CompletableFuture<List<String>> result = AsyncUtil
+				.boundedFanOut(new ArrayList<Integer>(), 4, this::startTask);
+		assertTrue(result.get().isEmpty());
+		assertFalse(result.isCompletedExceptionally());
+	}
+
+	private CompletableFuture<String> startTask(Integer i) {
+		CompletableFuture<String> future = new CompletableFuture<>();
+		pending.add(future);
+		return future;
+	}
+}
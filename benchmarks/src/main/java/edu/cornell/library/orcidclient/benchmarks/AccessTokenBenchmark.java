@@ -0,0 +1,56 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * Parse the JSON of an access token, as it comes from the /oauth/token
+ * endpoint, or from a persistent token store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessTokenBenchmark {
+	private static final String JSON = "{" //
+			+ "\"access_token\":\"f5af9f51-07e6-4332-8f1a-c0c11c1e3728\"," //
+			+ "\"token_type\":\"bearer\"," //
+			+ "\"refresh_token\":\"f725f747-3a65-49f6-a231-3e8944ce464d\"," //
+			+ "\"expires_in\":631138518," //
+			+ "\"scope\":\"/activities/update\"," //
+			+ "\"name\":\"Sofia Garcia\"," //
+			+ "\"orcid\":\"0000-0001-2345-6789\"" //
+			+ "}";
+
+	private static final byte[] LINES = String
+			.join("\n", Collections.nCopies(1000, JSON))
+			.getBytes(StandardCharsets.UTF_8);
+
+	@Benchmark
+	public AccessToken parse() throws OrcidClientException {
+		return AccessToken.parse(JSON);
+	}
+
+	@Benchmark
+	public List<AccessToken> parseAll() throws OrcidClientException {
+		return AccessToken.parseAll(new ByteArrayInputStream(LINES));
+	}
+}
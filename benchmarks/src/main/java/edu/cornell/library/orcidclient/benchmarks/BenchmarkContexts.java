@@ -0,0 +1,55 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.AUTHORIZED_API_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CALLBACK_PATH;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CLIENT_ID;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CLIENT_SECRET;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.OAUTH_AUTHORIZE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.OAUTH_TOKEN_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.PUBLIC_API_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.SITE_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.WEBAPP_BASE_URL;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.context.OrcidClientContextImpl;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * Contexts and tokens for the benchmarks.
+ */
+public class BenchmarkContexts {
+	public static final String ORCID = "0000-0001-2345-6789";
+
+	/**
+	 * A context that sends all API requests to this base URL.
+	 */
+	public static OrcidClientContext context(String apiBaseUrl)
+			throws OrcidClientException {
+		Map<String, String> settings = new HashMap<>();
+		settings.put(CLIENT_ID, "APP-BENCHMARK");
+		settings.put(CLIENT_SECRET, "benchmark-secret");
+		settings.put(SITE_BASE_URL, apiBaseUrl);
+		settings.put(PUBLIC_API_BASE_URL, apiBaseUrl);
+		settings.put(AUTHORIZED_API_BASE_URL, apiBaseUrl);
+		settings.put(OAUTH_AUTHORIZE_URL, apiBaseUrl + "oauth/authorize");
+		settings.put(OAUTH_TOKEN_URL, apiBaseUrl + "oauth/token");
+		settings.put(WEBAPP_BASE_URL, "http://localhost/benchmark/");
+		settings.put(CALLBACK_PATH, "callback");
+		return new OrcidClientContextImpl(settings);
+	}
+
+	public static AccessToken token() {
+		return new AccessToken("{}", "f5af9f51-07e6-4332-8f1a-c0c11c1e3728",
+				"bearer", "f725f747-3a65-49f6-a231-3e8944ce464d", 631138518,
+				ApiScope.READ_LIMITED, "Sofia Garcia", ORCID);
+	}
+
+	private BenchmarkContexts() {
+		// No instances.
+	}
+}
@@ -0,0 +1,92 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cornell.library.orcidclient.codec.JsonCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.stubserver.Fixtures;
+
+/**
+ * Compare the JAXB and Jackson codecs, decoding and encoding the same
+ * elements. The JSON payloads are produced from the XML fixtures.
+ * 
+ * For allocation rates, run with the GC profiler:
+ * 
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar CodecBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+	@Param({ "RECORD", "WORKS", "WORK" })
+	private Fixtures fixture;
+
+	private Class<?> elementClass;
+	private Object element;
+	private String xml;
+	private byte[] xmlBytes;
+	private String json;
+	private byte[] jsonBytes;
+
+	@Setup
+	public void setup() throws OrcidClientException {
+		elementClass = fixture.getElementClass();
+		xml = fixture.getXml();
+		xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+		element = XmlCodec.INSTANCE.decode(xml, elementClass);
+		json = JsonCodec.INSTANCE.encode(element);
+		jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Object decodeXmlString() throws OrcidClientException {
+		return XmlCodec.INSTANCE.decode(xml, elementClass);
+	}
+
+	@Benchmark
+	public Object decodeJsonString() throws OrcidClientException {
+		return JsonCodec.INSTANCE.decode(json, elementClass);
+	}
+
+	@Benchmark
+	public Object decodeXmlStream() throws OrcidClientException {
+		return XmlCodec.INSTANCE.decode(new ByteArrayInputStream(xmlBytes),
+				elementClass);
+	}
+
+	@Benchmark
+	public Object decodeJsonStream() throws OrcidClientException {
+		return JsonCodec.INSTANCE.decode(new ByteArrayInputStream(jsonBytes),
+				elementClass);
+	}
+
+	@Benchmark
+	public String encodeXml() throws OrcidClientException {
+		return XmlCodec.INSTANCE.encode(element);
+	}
+
+	@Benchmark
+	public String encodeJson() throws OrcidClientException {
+		return JsonCodec.INSTANCE.encode(element);
+	}
+}
@@ -0,0 +1,79 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.stubserver.Fixtures;
+import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
+
+/**
+ * Compare OrcidXmlUtil, which caches the JAXBContext and pools its Marshallers
+ * and Unmarshallers, against the naive approach of creating a new JAXBContext
+ * for every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrcidXmlUtilBenchmark {
+	@Param({ "RECORD", "WORKS", "WORK" })
+	private Fixtures fixture;
+
+	private String xml;
+	private Object element;
+
+	@Setup
+	public void setup() throws OrcidClientException {
+		xml = fixture.getXml();
+		element = OrcidXmlUtil.unmarshall(xml, fixture.getElementClass());
+	}
+
+	@Benchmark
+	public Object unmarshallCached() throws OrcidClientException {
+		return OrcidXmlUtil.unmarshall(xml, fixture.getElementClass());
+	}
+
+	@Benchmark
+	public Object unmarshallNewContext() throws JAXBException {
+		Class<?> clazz = fixture.getElementClass();
+		return JAXBContext.newInstance(clazz).createUnmarshaller()
+				.unmarshal(new StreamSource(new StringReader(xml)), clazz)
+				.getValue();
+	}
+
+	@Benchmark
+	public String marshallCached() throws OrcidClientException {
+		return OrcidXmlUtil.marshall(element);
+	}
+
+	@Benchmark
+	public String marshallNewContext() throws JAXBException {
+		Marshaller m = JAXBContext.newInstance(element.getClass())
+				.createMarshaller();
+		m.setProperty("jaxb.formatted.output", Boolean.TRUE);
+		StringWriter sw = new StringWriter();
+		m.marshal(element, sw);
+		return sw.toString();
+	}
+}
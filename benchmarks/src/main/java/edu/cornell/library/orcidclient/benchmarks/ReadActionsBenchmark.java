@@ -0,0 +1,101 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.Record;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.actions.read.ReadRecordAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorkDetailsAction;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksSummariesAction;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.BaseHttpWrapper;
+import edu.cornell.library.orcidclient.http.HttpWrapper;
+import edu.cornell.library.orcidclient.http.PooledHttpWrapper;
+import edu.cornell.library.orcidclient.stubserver.OrcidStubServer;
+import edu.cornell.library.orcidclient.stubserver.OrcidStubServer.Settings;
+
+/**
+ * The read actions, end to end, against the OrcidStubServer. This includes the
+ * HTTP round trip and the parsing of the response. Latency may be added, to
+ * imitate a remote server.
+ * 
+ * Compare the BaseHttpWrapper, which opens a connection for each request, with
+ * the PooledHttpWrapper, which keeps them alive.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ReadActionsBenchmark {
+	@Param({ "BASE", "POOLED" })
+	private String wrapper;
+
+	@Param({ "0" })
+	private long latencyMillis;
+
+	private OrcidStubServer server;
+	private HttpWrapper httpWrapper;
+	private AccessToken token;
+	private ReadRecordAction recordAction;
+	private ReadWorksSummariesAction summariesAction;
+	private ReadWorkDetailsAction detailsAction;
+
+	@Setup
+	public void setup() throws IOException, OrcidClientException {
+		server = new OrcidStubServer(new Settings().setLatency(latencyMillis,
+				0, TimeUnit.MILLISECONDS));
+		httpWrapper = "POOLED".equals(wrapper) ? new PooledHttpWrapper()
+				: new BaseHttpWrapper();
+		token = BenchmarkContexts.token();
+
+		OrcidClientContext context = BenchmarkContexts
+				.context(server.getApiBaseUrl());
+		recordAction = new ReadRecordAction(context, httpWrapper);
+		summariesAction = new ReadWorksSummariesAction(context, httpWrapper);
+		detailsAction = new ReadWorkDetailsAction(context, httpWrapper);
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		if (httpWrapper instanceof PooledHttpWrapper) {
+			((PooledHttpWrapper) httpWrapper).close();
+		}
+		server.close();
+	}
+
+	@Benchmark
+	public Record readRecord() throws OrcidClientException {
+		return recordAction.read(token);
+	}
+
+	@Benchmark
+	public Works readSummaries() throws OrcidClientException {
+		return summariesAction.readSummaries(token);
+	}
+
+	@Benchmark
+	public Work readDetails() throws OrcidClientException {
+		return detailsAction.readDetails(token, "733535");
+	}
+}
@@ -0,0 +1,66 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cornell.library.orcidclient.actions.WorksEditAction;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.BaseHttpWrapper;
+
+/**
+ * Build the URL for an edit request, as AbstractRecordElementEditAction does
+ * for every add, update and remove.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestUrlBenchmark {
+	private UrlExposingAction action;
+	private AccessToken token;
+
+	@Setup
+	public void setup() throws OrcidClientException {
+		action = new UrlExposingAction();
+		token = BenchmarkContexts.token();
+	}
+
+	@Benchmark
+	public String addUrl() throws OrcidClientException {
+		return action.createRequestUrl(token, "work");
+	}
+
+	@Benchmark
+	public String updateUrl() throws OrcidClientException {
+		return action.createRequestUrl(token, "work", "733535");
+	}
+
+	/**
+	 * createRequestUrl() is protected, so expose it.
+	 */
+	private static class UrlExposingAction extends WorksEditAction {
+		UrlExposingAction() throws OrcidClientException {
+			super(BenchmarkContexts.context("https://api.sandbox.orcid.org/v2.1/"),
+					new BaseHttpWrapper());
+		}
+
+		@Override
+		public String createRequestUrl(AccessToken accessToken,
+				String... parts) throws OrcidClientException {
+			return super.createRequestUrl(accessToken, parts);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package edu.cornell.library.orcidclient.benchmarks;
+
+import static org.orcid.jaxb.model.common_v2.ContributorRole.AUTHOR;
+import static org.orcid.jaxb.model.record_v2.CitationType.BIBTEX;
+import static org.orcid.jaxb.model.record_v2.Relationship.SELF;
+import static org.orcid.jaxb.model.record_v2.SequenceType.FIRST;
+import static org.orcid.jaxb.model.record_v2.WorkType.JOURNAL_ARTICLE;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.elements.ExternalIdBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder.CitationBuilder;
+import edu.cornell.library.orcidclient.elements.WorkBuilder.ContributorBuilder;
+
+/**
+ * Build a fully-populated Work, as in WorkBuilderTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkBuilderBenchmark {
+	@Benchmark
+	public Work buildFullWork() {
+		return new WorkBuilder(JOURNAL_ARTICLE, "Work Title") //
+				.setSubtitle("Sub title") //
+				.setJournalTitle("Journal Title") //
+				.setShortDescription("Short description") //
+				.setCitation(new CitationBuilder(BIBTEX,
+						"@article {ORCID2012, title = \"ORCID\"}")) //
+				.addExternalId(new ExternalIdBuilder(SELF) //
+						.setType("doi") //
+						.setValue("10.1087/20120404") //
+						.setUrl("https://doi.org/10.1087/20120404")) //
+				.addContributor(new ContributorBuilder(AUTHOR, FIRST) //
+						.setOrcidId("0000-0001-5109-3700") //
+						.setCreditName("Laure L. Haak")) //
+				.setLanguageCode("en") //
+				.setCountry("US") //
+				.setPublicationDate(new int[] { 2012, 10, 1 }) //
+				.build();
+	}
+}
@@ -0,0 +1,49 @@
+package edu.cornell.library.orcidclient.stubserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.PersonExternalIdentifiers;
+import org.orcid.jaxb.model.record_v2.Record;
+import org.orcid.jaxb.model.record_v2.Work;
+
+/**
+ * Sample payloads, as the ORCID API would return them.
+ * 
+ * The record and the works summary each contain 50 works. The work is the
+ * fully-populated sample from the ORCID documentation. The external
+ * identifiers are those from the record.
+ */
+public enum Fixtures {
+	RECORD("record-2.1.xml", Record.class),
+
+	WORKS("works-2.1.xml", Works.class),
+
+	WORK("work-2.1.xml", Work.class),
+
+	EXTERNAL_IDS("external-identifiers-2.1.xml",
+			PersonExternalIdentifiers.class);
+
+	private final String filename;
+	private final Class<?> elementClass;
+
+	private Fixtures(String filename, Class<?> elementClass) {
+		this.filename = filename;
+		this.elementClass = elementClass;
+	}
+
+	public Class<?> getElementClass() {
+		return elementClass;
+	}
+
+	public String getXml() {
+		try (InputStream in = Fixtures.class.getResourceAsStream(filename)) {
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to read " + filename, e);
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package edu.cornell.library.orcidclient.stubserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.orcid.jaxb.model.error_v2.OrcidError;
+import org.orcid.jaxb.model.record.bulk.BulkElement;
+import org.orcid.jaxb.model.record_v2.Work;
+import org.orcid.jaxb.model.record_v2.WorkBulk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.codec.JsonCodec;
+import edu.cornell.library.orcidclient.codec.OrcidCodec;
+import edu.cornell.library.orcidclient.codec.XmlCodec;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+
+/**
+ * An imitation of the ORCID API, on a local port, for load and latency tests
+ * that must not touch the real API.
+ *
+ * These endpoints are served, for any ORCID iD, from the Fixtures:
+ *
+ * <pre>
+ *   GET    /v2.1/{orcid}/record
+ *   GET    /v2.1/{orcid}/works
+ *   GET    /v2.1/{orcid}/work/{putcode}
+ *   GET    /v2.1/{orcid}/external-identifiers
+ *   POST   /v2.1/{orcid}/work                         -- 201, with Location
+ *   POST   /v2.1/{orcid}/works                        -- bulk, 200, with put codes
+ *   POST   /v2.1/{orcid}/external-identifiers         -- 201, with Location
+ *   PUT    /v2.1/{orcid}/work/{putcode}               -- 200, echoes the body
+ *   PUT    /v2.1/{orcid}/external-identifiers/{putcode}
+ *   DELETE /v2.1/{orcid}/work/{putcode}               -- 204
+ *   DELETE /v2.1/{orcid}/external-identifiers/{putcode}
+ *   POST   /oauth/token                               -- an access token
+ * </pre>
+ *
+ * Elements are returned as JSON if the Accept header asks for it, otherwise as
+ * XML. Nothing is stored: an added work is not returned by later reads.
+ *
+ * The Settings can add latency to every response, and make some fraction of
+ * the requests fail with 500 (Internal Server Error) or 429 (Too Many
+ * Requests).
+ */
+public class OrcidStubServer implements AutoCloseable {
+	private static final Log log = LogFactory.getLog(OrcidStubServer.class);
+
+	public static final String API_PATH = "/v2.1/";
+	public static final String TOKEN_PATH = "/oauth/token";
+	public static final String ORCID = "0000-0003-1495-7122";
+
+	static {
+		/*
+		 * Without this, Nagle's algorithm and delayed ACKs add about 40 ms to
+		 * each response. It must be set before the HttpServer is loaded.
+		 */
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private static final Pattern API_REQUEST = Pattern
+			.compile("/v2\\.1/([^/]+)/(record|works|work|external-identifiers)"
+					+ "(?:/(\\d+))?");
+
+	private final Settings settings;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<Fixtures, byte[]> xml = new EnumMap<>(Fixtures.class);
+	private final Map<Fixtures, byte[]> json = new EnumMap<>(Fixtures.class);
+	private final byte[] errorXml;
+	private final Random random;
+
+	private final AtomicLong nextPutCode = new AtomicLong(100000);
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong throttles = new AtomicLong();
+
+	public OrcidStubServer() throws IOException {
+		this(new Settings());
+	}
+
+	public OrcidStubServer(Settings settings) throws IOException {
+		this.settings = settings;
+		this.random = new Random(settings.seed);
+
+		for (Fixtures fixture : Fixtures.values()) {
+			xml.put(fixture, fixture.getXml().getBytes(StandardCharsets.UTF_8));
+			json.put(fixture, encode(JsonCodec.INSTANCE, fixture));
+		}
+		errorXml = encodeError();
+
+		executor = Executors.newFixedThreadPool(settings.threads);
+		server = HttpServer.create(
+				new InetSocketAddress("localhost", settings.port), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+		log.info("Started " + this);
+	}
+
+	private static byte[] encode(OrcidCodec codec, Fixtures fixture) {
+		try {
+			Object element = XmlCodec.INSTANCE.decode(fixture.getXml(),
+					fixture.getElementClass());
+			return codec.encode(element).getBytes(StandardCharsets.UTF_8);
+		} catch (OrcidClientException e) {
+			throw new IllegalStateException("Failed to encode " + fixture, e);
+		}
+	}
+
+	private static byte[] encodeError() {
+		try {
+			OrcidError error = new OrcidError();
+			error.setResponseCode(500);
+			error.setDeveloperMessage("Failure injected by the stub server");
+			error.setUserMessage("Something went wrong");
+			return XmlCodec.INSTANCE.encode(error)
+					.getBytes(StandardCharsets.UTF_8);
+		} catch (OrcidClientException e) {
+			throw new IllegalStateException("Failed to encode the error", e);
+		}
+	}
+
+	/** Like "http://localhost:54321/v2.1/", for the API base URL settings. */
+	public String getApiBaseUrl() {
+		return getRootUrl() + API_PATH;
+	}
+
+	/** For the OAUTH_TOKEN_URL setting. */
+	public String getTokenUrl() {
+		return getRootUrl() + TOKEN_PATH;
+	}
+
+	private String getRootUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	/** How many requests have been received. */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/** How many requests were answered with a 500. */
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	/** How many requests were answered with a 429. */
+	public long getThrottleCount() {
+		return throttles.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			requests.incrementAndGet();
+			byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+			delay();
+
+			if (chance(settings.throttleRate)) {
+				throttles.incrementAndGet();
+				exchange.getResponseHeaders().set("Retry-After",
+						String.valueOf(settings.retryAfterSeconds));
+				respond(exchange, 429, "text/plain", new byte[0]);
+			} else if (chance(settings.errorRate)) {
+				failures.incrementAndGet();
+				respond(exchange, 500, XmlCodec.MEDIA_TYPE, errorXml);
+			} else {
+				route(exchange, body);
+			}
+		} catch (Exception e) {
+			log.error("Stub server failed on " + exchange.getRequestURI(), e);
+			respond(exchange, 500, "text/plain", new byte[0]);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void delay() throws InterruptedException {
+		long latency = settings.latencyMillis;
+		if (settings.latencyJitterMillis > 0) {
+			latency += nextLong(settings.latencyJitterMillis + 1);
+		}
+		if (latency > 0) {
+			Thread.sleep(latency);
+		}
+	}
+
+	private void route(HttpExchange exchange, byte[] body)
+			throws IOException, OrcidClientException {
+		String method = exchange.getRequestMethod();
+		String path = exchange.getRequestURI().getPath();
+		if (TOKEN_PATH.equals(path) && "POST".equals(method)) {
+			respond(exchange, 200, "application/json", tokenJson());
+			return;
+		}
+
+		Matcher m = API_REQUEST.matcher(path);
+		if (!m.matches()) {
+			respond(exchange, 404, "text/plain", new byte[0]);
+			return;
+		}
+		String orcid = m.group(1);
+		String element = m.group(2);
+		String putCode = m.group(3);
+
+		switch (method) {
+		case "GET":
+			Fixtures fixture = fixtureFor(element, putCode);
+			if (fixture == null) {
+				respond(exchange, 404, "text/plain", new byte[0]);
+			} else if (wantsJson(exchange)) {
+				respond(exchange, 200, JsonCodec.MEDIA_TYPE, json.get(fixture));
+			} else {
+				respond(exchange, 200, XmlCodec.MEDIA_TYPE, xml.get(fixture));
+			}
+			break;
+		case "POST":
+			if (putCode == null && "works".equals(element)) {
+				addBulk(exchange, body);
+			} else if (putCode != null || !isEditable(element)) {
+				respond(exchange, 405, "text/plain", new byte[0]);
+			} else {
+				exchange.getResponseHeaders().set("Location", getApiBaseUrl()
+						+ orcid + "/" + element + "/" + nextPutCode.getAndIncrement());
+				respond(exchange, 201, "text/plain", new byte[0]);
+			}
+			break;
+		case "PUT":
+			if (putCode == null || !isEditable(element)) {
+				respond(exchange, 405, "text/plain", new byte[0]);
+			} else {
+				respond(exchange, 200, contentType(exchange), body);
+			}
+			break;
+		case "DELETE":
+			if (putCode == null || !isEditable(element)) {
+				respond(exchange, 405, "text/plain", new byte[0]);
+			} else {
+				respond(exchange, 204, "text/plain", new byte[0]);
+			}
+			break;
+		default:
+			respond(exchange, 405, "text/plain", new byte[0]);
+		}
+	}
+
+	/**
+	 * Give each work in the bulk element a put code, and send it back.
+	 */
+	private void addBulk(HttpExchange exchange, byte[] body)
+			throws IOException, OrcidClientException {
+		OrcidCodec codec = contentType(exchange).contains("json")
+				? JsonCodec.INSTANCE : XmlCodec.INSTANCE;
+		WorkBulk bulk = codec.decode(new String(body, StandardCharsets.UTF_8),
+				WorkBulk.class);
+		for (BulkElement element : bulk.getBulk()) {
+			if (element instanceof Work) {
+				((Work) element).setPutCode(nextPutCode.getAndIncrement());
+			}
+		}
+		respond(exchange, 200, codec.getMediaType(),
+				codec.encode(bulk).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Fixtures fixtureFor(String element, String putCode) {
+		switch (element) {
+		case "record":
+			return (putCode == null) ? Fixtures.RECORD : null;
+		case "works":
+			return (putCode == null) ? Fixtures.WORKS : null;
+		case "work":
+			return (putCode == null) ? null : Fixtures.WORK;
+		default:
+			return (putCode == null) ? Fixtures.EXTERNAL_IDS : null;
+		}
+	}
+
+	private static boolean isEditable(String element) {
+		return "work".equals(element) || "external-identifiers".equals(element);
+	}
+
+	private static String contentType(HttpExchange exchange) {
+		String contentType = exchange.getRequestHeaders()
+				.getFirst("Content-Type");
+		return (contentType == null) ? XmlCodec.MEDIA_TYPE : contentType;
+	}
+
+	private static boolean wantsJson(HttpExchange exchange) {
+		String accept = exchange.getRequestHeaders().getFirst("Accept");
+		return accept != null && accept.contains("json");
+	}
+
+	private byte[] tokenJson() {
+		String json = "{" //
+				+ "\"access_token\":\"stub-" + nextLong(Long.MAX_VALUE) + "\"," //
+				+ "\"token_type\":\"bearer\"," //
+				+ "\"refresh_token\":\"stub-refresh\"," //
+				+ "\"expires_in\":631138518," //
+				+ "\"scope\":\"" + settings.tokenScope.getScope() + "\"," //
+				+ "\"name\":\"Sofia Garcia\"," //
+				+ "\"orcid\":\"" + ORCID + "\"" //
+				+ "}";
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void respond(HttpExchange exchange, int status,
+			String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status,
+				(body.length == 0) ? -1 : body.length);
+		if (body.length > 0) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+
+	private boolean chance(double rate) {
+		if (rate <= 0) {
+			return false;
+		}
+		synchronized (random) {
+			return random.nextDouble() < rate;
+		}
+	}
+
+	private long nextLong(long bound) {
+		synchronized (random) {
+			return (long) (random.nextDouble() * bound);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return "OrcidStubServer[url=" + getRootUrl() + ", " + settings + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Helper classes
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The configuration for the server. The rates are between 0.0 and 1.0.
+	 */
+	public static class Settings {
+		int port = 0;
+		int threads = 16;
+		long latencyMillis = 0;
+		long latencyJitterMillis = 0;
+		double errorRate = 0.0;
+		double throttleRate = 0.0;
+		int retryAfterSeconds = 1;
+		ApiScope tokenScope = ApiScope.ACTIVITIES_UPDATE;
+		long seed = 1L;
+
+		/** The port to listen on. By default, any free port. */
+		public Settings setPort(int port) {
+			this.port = port;
+			return this;
+		}
+
+		/** How many requests may be handled at once. */
+		public Settings setThreads(int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * Delay every response by this much, plus a random amount up to the
+		 * jitter.
+		 */
+		public Settings setLatency(long latency, long jitter, TimeUnit unit) {
+			this.latencyMillis = unit.toMillis(latency);
+			this.latencyJitterMillis = unit.toMillis(jitter);
+			return this;
+		}
+
+		/** This fraction of the requests fails with 500. */
+		public Settings setErrorRate(double errorRate) {
+			this.errorRate = errorRate;
+			return this;
+		}
+
+		/**
+		 * This fraction of the requests fails with 429, and a Retry-After
+		 * header.
+		 */
+		public Settings setThrottleRate(double throttleRate) {
+			this.throttleRate = throttleRate;
+			return this;
+		}
+
+		/** The value of the Retry-After header on a 429. */
+		public Settings setRetryAfterSeconds(int retryAfterSeconds) {
+			this.retryAfterSeconds = retryAfterSeconds;
+			return this;
+		}
+
+		/** The scope of the tokens issued by /oauth/token. */
+		public Settings setTokenScope(ApiScope tokenScope) {
+			this.tokenScope = tokenScope;
+			return this;
+		}
+
+		/** Seed the random failures, for repeatable runs. */
+		public Settings setSeed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return "Settings[port=" + port + ", threads=" + threads
+					+ ", latencyMillis=" + latencyMillis
+					+ ", latencyJitterMillis=" + latencyJitterMillis
+					+ ", errorRate=" + errorRate + ", throttleRate="
+					+ throttleRate + ", retryAfterSeconds=" + retryAfterSeconds
+					+ ", tokenScope=" + tokenScope + ", seed=" + seed + "]";
+		}
+	}
+}
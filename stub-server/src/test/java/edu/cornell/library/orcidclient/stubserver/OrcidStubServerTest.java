@@ -0,0 +1,166 @@
+package edu.cornell.library.orcidclient.stubserver;
+
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.AUTHORIZED_API_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CALLBACK_PATH;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CLIENT_ID;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.CLIENT_SECRET;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.OAUTH_AUTHORIZE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.OAUTH_TOKEN_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.PUBLIC_API_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.SITE_BASE_URL;
+import static edu.cornell.library.orcidclient.context.OrcidClientContextImpl.Setting.WEBAPP_BASE_URL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.orcid.jaxb.model.record.summary_v2.Works;
+import org.orcid.jaxb.model.record_v2.Work;
+
+import edu.cornell.library.orcidclient.actions.ApiScope;
+import edu.cornell.library.orcidclient.actions.OrcidActionClient;
+import edu.cornell.library.orcidclient.actions.WorksBulkAddAction.Outcome;
+import edu.cornell.library.orcidclient.auth.AccessToken;
+import edu.cornell.library.orcidclient.codec.JsonCodec;
+import edu.cornell.library.orcidclient.context.OrcidClientContext;
+import edu.cornell.library.orcidclient.context.OrcidClientContextImpl;
+import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
+import edu.cornell.library.orcidclient.http.BaseHttpWrapper;
+import edu.cornell.library.orcidclient.http.HttpWrapper.HttpStatusCodeException;
+import edu.cornell.library.orcidclient.stubserver.OrcidStubServer.Settings;
+
+/**
+ * Drive the stub server with the real client, over a real socket.
+ */
+public class OrcidStubServerTest {
+	private OrcidStubServer server;
+
+	@After
+	public void closeServer() {
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	@Test
+	public void readsAndEdits() throws Exception {
+		server = new OrcidStubServer();
+		OrcidActionClient client = new OrcidActionClient(context(),
+				new BaseHttpWrapper());
+		AccessToken token = token();
+
+		Works works = client.createReadWorksSummariesAction()
+				.readSummaries(token);
+		assertEquals(50, works.getWorkGroup().size());
+
+		Work work = client.createReadWorkDetailsAction().readDetails(token,
+				"733535");
+		String putCode = client.createEditWorksAction().add(token, work);
+		assertEquals("100000", putCode);
+		client.createEditWorksAction().update(token, work, putCode);
+		client.createEditWorksAction().remove(token, putCode);
+
+		assertEquals(5, server.getRequestCount());
+	}
+
+	@Test
+	public void readsJson() throws Exception {
+		server = new OrcidStubServer();
+		OrcidActionClient client = new OrcidActionClient(context(),
+				new BaseHttpWrapper(), null, JsonCodec.INSTANCE);
+		Works works = client.createReadWorksSummariesAction()
+				.readSummaries(token());
+		assertEquals(50, works.getWorkGroup().size());
+	}
+
+	@Test
+	public void bulkAdds() throws Exception {
+		server = new OrcidStubServer();
+		OrcidActionClient client = new OrcidActionClient(context(),
+				new BaseHttpWrapper());
+		List<Work> works = new ArrayList<>();
+		for (int i = 0; i < 150; i++) {
+			works.add(new Work());
+		}
+
+		List<Outcome> outcomes = client.createWorksBulkAddAction()
+				.addAll(token(), works);
+		assertEquals(150, outcomes.size());
+		assertEquals("100000", outcomes.get(0).getPutCode());
+		assertEquals("100149", outcomes.get(149).getPutCode());
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void issuesTokens() throws Exception {
+		server = new OrcidStubServer(
+				new Settings().setTokenScope(ApiScope.READ_LIMITED));
+		String json = new BaseHttpWrapper()
+				.createPostRequest(server.getTokenUrl())
+				.addFormField("grant_type", "authorization_code")
+				.execute().getContentString();
+		AccessToken token = AccessToken.parse(json);
+		assertEquals(ApiScope.READ_LIMITED, token.getScope());
+		assertEquals(OrcidStubServer.ORCID, token.getOrcid());
+	}
+
+	@Test
+	public void throttles() throws Exception {
+		server = new OrcidStubServer(
+				new Settings().setThrottleRate(1.0).setRetryAfterSeconds(7));
+		try {
+			new BaseHttpWrapper()
+					.createGetRequest(
+							server.getApiBaseUrl() + OrcidStubServer.ORCID
+									+ "/record")
+					.execute();
+			fail("Expected a 429");
+		} catch (HttpStatusCodeException e) {
+			assertEquals(429, e.getStatusCode());
+		}
+		assertEquals(1, server.getThrottleCount());
+	}
+
+	@Test
+	public void injectsErrors() throws Exception {
+		server = new OrcidStubServer(new Settings().setErrorRate(0.5));
+		OrcidActionClient client = new OrcidActionClient(context(),
+				new BaseHttpWrapper());
+		int failed = 0;
+		for (int i = 0; i < 40; i++) {
+			try {
+				client.createReadRecordAction().read(token());
+			} catch (OrcidClientException e) {
+				failed++;
+			}
+		}
+		assertEquals(server.getFailureCount(), failed);
+		assertTrue("failed=" + failed, failed > 5 && failed < 35);
+	}
+
+	private OrcidClientContext context() throws OrcidClientException {
+		String apiBaseUrl = server.getApiBaseUrl();
+		Map<String, String> settings = new HashMap<>();
+		settings.put(CLIENT_ID, "APP-STUB");
+		settings.put(CLIENT_SECRET, "stub-secret");
+		settings.put(SITE_BASE_URL, apiBaseUrl);
+		settings.put(PUBLIC_API_BASE_URL, apiBaseUrl);
+		settings.put(AUTHORIZED_API_BASE_URL, apiBaseUrl);
+		settings.put(OAUTH_AUTHORIZE_URL, apiBaseUrl + "oauth/authorize");
+		settings.put(OAUTH_TOKEN_URL, server.getTokenUrl());
+		settings.put(WEBAPP_BASE_URL, "http://localhost/test/");
+		settings.put(CALLBACK_PATH, "callback");
+		return new OrcidClientContextImpl(settings);
+	}
+
+	private static AccessToken token() {
+		return new AccessToken("{}", "token", "bearer", "refresh", 600000,
+				ApiScope.ACTIVITIES_UPDATE, "name", OrcidStubServer.ORCID);
+	}
+}
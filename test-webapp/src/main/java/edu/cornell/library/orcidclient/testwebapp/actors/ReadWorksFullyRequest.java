@@ -8,13 +8,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.jtwig.JtwigModel;
-import org.orcid.jaxb.model.record.summary_v2.WorkGroup;
-import org.orcid.jaxb.model.record.summary_v2.WorkSummary;
 import org.orcid.jaxb.model.record.summary_v2.Works;
 
 import edu.cornell.library.orcidclient.actions.OrcidActionClient;
 import edu.cornell.library.orcidclient.actions.read.ReadWorkDetailsAction;
 import edu.cornell.library.orcidclient.actions.read.ReadWorkDetailsAction.WorkDetailsEndpoint;
+import edu.cornell.library.orcidclient.actions.read.ReadWorksFullyAction;
 import edu.cornell.library.orcidclient.actions.read.ReadWorksSummariesAction;
 import edu.cornell.library.orcidclient.auth.AccessToken;
 import edu.cornell.library.orcidclient.exceptions.OrcidClientException;
@@ -25,6 +24,10 @@ import edu.cornell.library.orcidclient.util.OrcidXmlUtil;
  * 
  * Start by getting the summaries, from which we can get the put codes. For each
  * put code, read the full details.
+ * 
+ * This shows the XML of each response, so it reads one at a time. An
+ * application that wants the Works themselves should use the
+ * ReadWorksFullyAction, which reads them concurrently.
  */
 public class ReadWorksFullyRequest extends AbstractActor {
 	private OrcidActionClient actions;
@@ -42,7 +45,7 @@ public class ReadWorksFullyRequest extends AbstractActor {
 
 		Works works = OrcidXmlUtil.unmarshall(worksSummaryXml, Works.class);
 
-		List<String> putCodes = getPutCodes(works);
+		List<String> putCodes = ReadWorksFullyAction.getPutCodes(works);
 		List<String> workXmls = getWorkDetailsXml(putCodes, token);
 
 		render("/templates/readWorksFullyResult.twig.html", //
@@ -51,16 +54,6 @@ public class ReadWorksFullyRequest extends AbstractActor {
 						.with("workXmls", workXmls));
 	}
 
-	private List<String> getPutCodes(Works works) {
-		List<String> putCodes = new ArrayList<>();
-		for (WorkGroup workGroup : works.getWorkGroup()) {
-			for (WorkSummary workSummary : workGroup.getWorkSummary()) {
-				putCodes.add(String.valueOf(workSummary.getPutCode()));
-			}
-		}
-		return putCodes;
-	}
-
 	private List<String> getWorkDetailsXml(List<String> putCodes,
 			AccessToken token) throws OrcidClientException {
 		ReadWorkDetailsAction action = actions.createReadWorkDetailsAction();